@@ -3,6 +3,9 @@ package com.bosslog;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
+import net.runelite.client.config.ConfigSection;
+import net.runelite.client.config.Range;
+import net.runelite.client.config.Units;
 
 @ConfigGroup("420kc")
 public interface BossLogConfig extends Config
@@ -11,9 +14,40 @@ public interface BossLogConfig extends Config
     {
         OFF,
         ON,
-        CAP
+        CAP;
+
+        /**
+         * Whether a KC is highlighted as 420: exactly 420, or 420 and up when capped.
+         */
+        public boolean is420(int kc)
+        {
+            switch (this)
+            {
+                case CAP:
+                    return kc >= 420;
+                case ON:
+                    return kc == 420;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    enum NearbyMode
+    {
+        OFF,
+        BADGE,
+        KC
     }
 
+    @ConfigSection(
+        name = "Network",
+        description = "Request limits for the hiscore and TempleOSRS APIs",
+        position = 100,
+        closedByDefault = true
+    )
+    String networkSection = "network";
+
     @ConfigItem(
         keyName = "defaultPlayer",
         name = "Default Player",
@@ -68,4 +102,251 @@ public interface BossLogConfig extends Config
     {
         return true;
     }
+
+    @ConfigItem(
+        keyName = "showOverlay",
+        name = "KC Overlay",
+        description = "Show the KC, kills to 420 and session kills for the boss you're killing"
+    )
+    default boolean showOverlay()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+        keyName = "nearbyPlayers",
+        name = "Nearby Players",
+        description = "OFF: nothing. BADGE: show '420' over nearby players with 420 KC. KC: show their KC for the boss you last killed. Looks players up in the background."
+    )
+    default NearbyMode nearbyPlayers()
+    {
+        return NearbyMode.OFF;
+    }
+
+    @ConfigItem(
+        keyName = "nameAutocomplete",
+        name = "Name Autocomplete",
+        description = "Suggest names from your lookup history, friends list and clan while typing"
+    )
+    default boolean nameAutocomplete()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+        keyName = "lookupHistory",
+        name = "",
+        description = "",
+        hidden = true
+    )
+    default String lookupHistory()
+    {
+        return "";
+    }
+
+    @ConfigItem(
+        keyName = "typeAheadLookup",
+        name = "Type-ahead Lookup",
+        description = "Start fetching a player once you pause typing their name, so pressing Enter shows it sooner"
+    )
+    default boolean typeAheadLookup()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "typeAheadDelay",
+        name = "Type-ahead Delay",
+        description = "How long to wait after the last keystroke before fetching"
+    )
+    @Range(min = 150, max = 3000)
+    @Units(Units.MILLISECONDS)
+    default int typeAheadDelay()
+    {
+        return 600;
+    }
+
+    @ConfigItem(
+        keyName = "partyShare",
+        name = "Share KC With Party",
+        description = "Send your boss KCs to your RuneLite party and show party members' KCs from theirs, instead of looking them up on the hiscores"
+    )
+    default boolean partyShare()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+        keyName = "autoRefresh",
+        name = "Auto Refresh",
+        description = "Re-check the displayed player's hiscores in the background. Slows down while nothing changes."
+    )
+    default boolean autoRefresh()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "autoRefreshInterval",
+        name = "Auto Refresh Interval",
+        description = "How often to re-check the displayed player's hiscores"
+    )
+    @Range(min = 1, max = 60)
+    @Units(Units.MINUTES)
+    default int autoRefreshInterval()
+    {
+        return 5;
+    }
+
+    @ConfigItem(
+        keyName = "hiscoreRequestsPerMinute",
+        name = "Hiscore Requests / Min",
+        description = "Maximum requests per minute to the OSRS hiscores. A full lookup uses 4.",
+        section = networkSection,
+        position = 101
+    )
+    @Range(min = 4, max = 600)
+    default int hiscoreRequestsPerMinute()
+    {
+        return 60;
+    }
+
+    @ConfigItem(
+        keyName = "templeRequestsPerMinute",
+        name = "TempleOSRS Requests / Min",
+        description = "Maximum requests per minute to TempleOSRS",
+        section = networkSection,
+        position = 102
+    )
+    @Range(min = 1, max = 300)
+    default int templeRequestsPerMinute()
+    {
+        return 30;
+    }
+
+    @ConfigItem(
+        keyName = "circuitBreakerCooldown",
+        name = "Outage Cooldown",
+        description = "After repeated errors from a host, stop sending it requests for this long",
+        section = networkSection,
+        position = 103
+    )
+    @Range(min = 5, max = 600)
+    @Units(Units.SECONDS)
+    default int circuitBreakerCooldown()
+    {
+        return 60;
+    }
+
+    @ConfigItem(
+        keyName = "prewarmConnections",
+        name = "Pre-warm Connections",
+        description = "Open connections to the hiscores and TempleOSRS when the plugin starts or the panel opens, so the first lookup is faster",
+        section = networkSection,
+        position = 104
+    )
+    default boolean prewarmConnections()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+        keyName = "hedgeClogRequests",
+        name = "Hedge Clog Requests",
+        description = "If TempleOSRS is slower than usual to answer a collection log request, send a second copy and use whichever answers first",
+        section = networkSection,
+        position = 105
+    )
+    default boolean hedgeClogRequests()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "hedgePercentile",
+        name = "Hedge After Percentile",
+        description = "Send the duplicate once the request is slower than this percentile of recent response times",
+        section = networkSection,
+        position = 106
+    )
+    @Range(min = 50, max = 99)
+    @Units(Units.PERCENT)
+    default int hedgePercentile()
+    {
+        return 90;
+    }
+
+    @ConfigItem(
+        keyName = "prefetchOnMenu",
+        name = "Prefetch On Right-Click",
+        description = "Start fetching a player's hiscores in the background when you right-click them, so the lookup is ready when you click it",
+        section = networkSection,
+        position = 107
+    )
+    default boolean prefetchOnMenu()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+        keyName = "prefetchClog",
+        name = "Prefetch Collection Log",
+        description = "Also prefetch the collection log on right-click. Uses more TempleOSRS requests.",
+        section = networkSection,
+        position = 108
+    )
+    default boolean prefetchClog()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "nearbyLookupsPerMinute",
+        name = "Nearby Lookups / Min",
+        description = "Maximum nearby players looked up per minute. Each lookup uses 4 hiscore requests.",
+        section = networkSection,
+        position = 109
+    )
+    @Range(min = 1, max = 15)
+    default int nearbyLookupsPerMinute()
+    {
+        return 5;
+    }
+
+    @ConfigItem(
+        keyName = "localFeed",
+        name = "Local Overlay Feed",
+        description = "Serve the displayed results as JSON at http://127.0.0.1:<port>/results and live KCs as events at /events, for stream overlays. Only reachable from this computer.",
+        section = networkSection,
+        position = 110
+    )
+    default boolean localFeed()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "localFeedPort",
+        name = "Local Feed Port",
+        description = "Port for the local overlay feed",
+        section = networkSection,
+        position = 111
+    )
+    @Range(min = 1024, max = 65535)
+    default int localFeedPort()
+    {
+        return 4200;
+    }
+
+    @ConfigItem(
+        keyName = "clogPerBoss",
+        name = "Fetch Collection Log Per Boss",
+        description = "Only download the collection log of bosses with KC, and others when hovered, instead of the whole log. The whole log is still downloaded while the local overlay feed is on.",
+        section = networkSection,
+        position = 112
+    )
+    default boolean clogPerBoss()
+    {
+        return true;
+    }
 }
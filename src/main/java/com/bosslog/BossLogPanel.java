@@ -6,13 +6,22 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Graphics2D;
 import java.awt.GridLayout;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
 import javax.inject.Inject;
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -20,12 +29,17 @@ import javax.swing.BoxLayout;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JLabel;
+import javax.swing.JMenuItem;
 import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.ToolTipManager;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.game.ItemManager;
@@ -36,7 +50,10 @@ import net.runelite.client.plugins.hiscore.HiscorePanel;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.FontManager;
 import net.runelite.client.ui.PluginPanel;
+import net.runelite.client.ui.components.materialtabs.MaterialTab;
+import net.runelite.client.ui.components.materialtabs.MaterialTabGroup;
 import net.runelite.client.util.ImageUtil;
+import net.runelite.client.util.Text;
 import org.apache.commons.lang3.StringUtils;
 
 @Slf4j
@@ -45,6 +62,12 @@ public class BossLogPanel extends PluginPanel
     private static final Color GOLD = new Color(76, 175, 110);
     private static final Color TEXT_DIM = new Color(160, 200, 160);
 
+    private static final int MAX_SUGGESTIONS = 8;
+    private static final int MAX_REFRESH_BACKOFF = 4;
+
+    // OSRS display names: 1-12 letters, digits, spaces, hyphens and underscores
+    private static final Pattern VALID_NAME = Pattern.compile("[A-Za-z0-9 _\\-]{1,12}");
+
     // Boss display order matching vanilla RuneLite hiscores
     private static final HiscoreSkill[] BOSSES = {
         HiscoreSkill.ABYSSAL_SIRE,
@@ -124,13 +147,32 @@ public class BossLogPanel extends PluginPanel
         NAME_OVERRIDES.put("Calvar'ion", "Cal'varion");
     }
 
+    // Quiet period after the last chat KC before hiscores are re-checked in the background
+    private static final int RECONCILE_DELAY_MS = 10 * 60_000;
+
+    // Snapshot history used for "gained since last week" and the boss chart
+    private static final long WEEK_MS = 7 * 24 * 60 * 60_000L;
+    private static final long CHART_RANGE_MS = 90 * 24 * 60 * 60_000L;
+
     private final HiscoreService hiscoreService;
-    private final ClogService clogService;
     private final BossLogConfig config;
     private final ConfigManager configManager;
     private final SpriteManager spriteManager;
     private final ItemManager itemManager;
     private final ClientThread clientThread;
+    private final ConnectionWarmer connectionWarmer;
+    private final KcJournal kcJournal;
+    private final SessionStats sessionStats;
+    private final LookupCache lookupCache;
+    private final ClogService clogService;
+    private final NameIndex nameIndex;
+    private final ClanLeaderboardPanel clanPanel;
+    private final SnapshotStore snapshotStore;
+    private final LastGoodStore lastGoodStore;
+    private final LocalFeedServer localFeedServer;
+    private final CompareStore compareStore;
+    private final ComparePanel comparePanel;
+    private final ScheduledExecutorService executor;
 
     private final JLabel accountIcon = new JLabel();
     private final JTextField playerInput = new JTextField();
@@ -138,6 +180,7 @@ public class BossLogPanel extends PluginPanel
     private final JButton toggleButton = new JButton();
     private final JLabel statusLabel = new JLabel(" ");
     private final JLabel clogNotice = new JLabel();
+    private final JLabel sessionLabel = new JLabel();
     private final JPanel resultsPanel = new JPanel();
 
     // Track labels for updating after lookup
@@ -147,40 +190,119 @@ public class BossLogPanel extends PluginPanel
     private final Map<HiscoreSkill, ImageIcon> originalIcons = new LinkedHashMap<>();
 
     // Current lookup state
+    private String currentPlayer;
     private HiscoreResult hiscoreResult;
     private ClogResult clogResult;
+    // Whether clogResult only has some categories; the rest are fetched on hover
+    private boolean clogPartial;
+    // Categories fetched on hover this lookup, so each is only requested once
+    private final Set<String> clogRequested = new HashSet<>();
+
+    // When the displayed hiscores were saved, if they are the offline copy; 0 when live
+    private long hiscoreSavedAt;
+
+    // Hiscore boss name -> KC gained since the snapshot a week ago, for the displayed player
+    private Map<String, Integer> weeklyGain = new HashMap<>();
+
+    // KC and rank history of the clicked boss, under the grid
+    private final KcChart historyChart = new KcChart();
+    private HiscoreSkill chartBoss;
+
+    // Ranking table page around the displayed player, for the clicked boss
+    private final RankTablePanel rankTablePanel;
+
+    // Local player the session stats belong to, once a kill has been seen
+    private String localSessionPlayer;
+
+    // Hiscore boss name -> KC from chat that the hiscores haven't caught up with yet
+    private final Map<String, Integer> liveKc = new HashMap<>();
+    private final Timer reconcileTimer = new Timer(RECONCILE_DELAY_MS, e -> reconcileLiveKc());
+
+    // Background re-check of the displayed player; interval doubles while nothing changes
+    private final Timer autoRefreshTimer = new Timer(0, e -> autoRefresh());
+    private int refreshBackoff = 1;
+
+    // Fires once the user pauses typing in the search field
+    private final Timer typeAheadTimer = new Timer(0, e -> typeAheadLookup());
+    private boolean settingPlayerName;
+
+    // Name suggestions under the search field; never takes focus from it
+    private final JPopupMenu suggestionPopup = new JPopupMenu();
 
     // Original tooltip dismiss delay to restore on shutdown
     private final int originalDismissDelay;
 
     @Inject
-    public BossLogPanel(HiscoreService hiscoreService, ClogService clogService,
+    public BossLogPanel(HiscoreService hiscoreService,
                         BossLogConfig config, ConfigManager configManager,
                         SpriteManager spriteManager,
-                        ItemManager itemManager, ClientThread clientThread)
+                        ItemManager itemManager, ClientThread clientThread,
+                        ConnectionWarmer connectionWarmer, KcJournal kcJournal,
+                        SessionStats sessionStats, LookupCache lookupCache,
+                        ClogService clogService, NameIndex nameIndex, ClanLeaderboardPanel clanPanel,
+                        SnapshotStore snapshotStore, LastGoodStore lastGoodStore,
+                        CompareStore compareStore, ComparePanel comparePanel,
+                        RankTableService rankTableService, LocalFeedServer localFeedServer,
+                        ScheduledExecutorService executor)
     {
         super(false);
         this.hiscoreService = hiscoreService;
-        this.clogService = clogService;
         this.config = config;
         this.configManager = configManager;
         this.spriteManager = spriteManager;
         this.itemManager = itemManager;
         this.clientThread = clientThread;
+        this.connectionWarmer = connectionWarmer;
+        this.kcJournal = kcJournal;
+        this.sessionStats = sessionStats;
+        this.lookupCache = lookupCache;
+        this.clogService = clogService;
+        this.nameIndex = nameIndex;
+        this.clanPanel = clanPanel;
+        this.snapshotStore = snapshotStore;
+        this.lastGoodStore = lastGoodStore;
+        this.localFeedServer = localFeedServer;
+        this.compareStore = compareStore;
+        this.comparePanel = comparePanel;
+        this.executor = executor;
+        this.rankTablePanel = new RankTablePanel(rankTableService);
 
         // Keep tooltips visible longer for reading item lists
         originalDismissDelay = ToolTipManager.sharedInstance().getDismissDelay();
         ToolTipManager.sharedInstance().setDismissDelay(15000);
 
+        reconcileTimer.setRepeats(false);
+        typeAheadTimer.setRepeats(false);
+        autoRefreshTimer.setRepeats(false);
+        suggestionPopup.setFocusable(false);
+
         setLayout(new BorderLayout());
         setBackground(ColorScheme.DARK_GRAY_COLOR);
         setBorder(null);
 
-        add(buildSearchPanel(), BorderLayout.NORTH);
+        JPanel lookupTab = new JPanel(new BorderLayout());
+        lookupTab.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        lookupTab.add(buildSearchPanel(), BorderLayout.NORTH);
 
         JScrollPane scroll = buildResultsScroll();
         scroll.setBorder(null);
-        add(scroll, BorderLayout.CENTER);
+        lookupTab.add(scroll, BorderLayout.CENTER);
+
+        // Tabs: single-player lookup, side-by-side compare, and the clan 420 leaderboard
+        JPanel display = new JPanel(new BorderLayout());
+        display.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        MaterialTabGroup tabGroup = new MaterialTabGroup(display);
+        tabGroup.setBorder(new EmptyBorder(5, 0, 0, 0));
+        MaterialTab lookupMaterialTab = new MaterialTab("Lookup", tabGroup, lookupTab);
+        MaterialTab compareMaterialTab = new MaterialTab("Compare", tabGroup, comparePanel);
+        MaterialTab clanMaterialTab = new MaterialTab("Clan", tabGroup, clanPanel);
+        tabGroup.addTab(lookupMaterialTab);
+        tabGroup.addTab(compareMaterialTab);
+        tabGroup.addTab(clanMaterialTab);
+        tabGroup.select(lookupMaterialTab);
+
+        add(tabGroup, BorderLayout.NORTH);
+        add(display, BorderLayout.CENTER);
     }
 
     private JPanel buildSearchPanel()
@@ -215,6 +337,25 @@ public class BossLogPanel extends PluginPanel
         playerInput.setBorder(BorderFactory.createLineBorder(ColorScheme.MEDIUM_GRAY_COLOR));
         playerInput.setPreferredSize(new java.awt.Dimension(0, 30));
         playerInput.addActionListener(e -> doLookup());
+        playerInput.getDocument().addDocumentListener(new DocumentListener()
+        {
+            @Override
+            public void insertUpdate(DocumentEvent e)
+            {
+                onSearchEdited();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e)
+            {
+                onSearchEdited();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e)
+            {
+            }
+        });
         searchRow.add(playerInput, BorderLayout.CENTER);
 
         lookupButton.setBackground(Color.BLACK);
@@ -260,6 +401,13 @@ public class BossLogPanel extends PluginPanel
         clogNotice.setVisible(false);
         panel.add(clogNotice);
 
+        // Local player's session stats for the last boss killed (hidden until a kill)
+        sessionLabel.setFont(FontManager.getRunescapeSmallFont());
+        sessionLabel.setForeground(TEXT_DIM);
+        sessionLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        sessionLabel.setVisible(false);
+        panel.add(sessionLabel);
+
         return panel;
     }
 
@@ -346,6 +494,14 @@ public class BossLogPanel extends PluginPanel
         }
 
         resultsPanel.add(grid);
+
+        historyChart.setVisible(false);
+        resultsPanel.add(Box.createVerticalStrut(5));
+        resultsPanel.add(historyChart);
+
+        rankTablePanel.setVisible(false);
+        resultsPanel.add(Box.createVerticalStrut(5));
+        resultsPanel.add(rankTablePanel);
     }
 
     private JPanel makeBossCell(HiscoreSkill boss)
@@ -373,6 +529,20 @@ public class BossLogPanel extends PluginPanel
             }));
 
         bossLabels.put(boss, label);
+        label.addMouseListener(new MouseAdapter()
+        {
+            @Override
+            public void mouseClicked(MouseEvent e)
+            {
+                toggleHistoryChart(boss);
+            }
+
+            @Override
+            public void mouseEntered(MouseEvent e)
+            {
+                loadClogCategory(boss);
+            }
+        });
 
         JPanel cell = new JPanel();
         cell.setBackground(ColorScheme.DARKER_GRAY_COLOR);
@@ -400,9 +570,83 @@ public class BossLogPanel extends PluginPanel
         return String.valueOf(kc);
     }
 
+    @Override
+    public void onActivate()
+    {
+        // Panel opened: a lookup is likely, make sure connections are warm
+        connectionWarmer.warmUp();
+    }
+
     public void setPlayerName(String name)
     {
-        playerInput.setText(name);
+        settingPlayerName = true;
+        try
+        {
+            playerInput.setText(name);
+        }
+        finally
+        {
+            settingPlayerName = false;
+        }
+    }
+
+    /**
+     * Each keystroke refreshes name suggestions, drops the previous speculative
+     * lookup and restarts the debounce.
+     */
+    private void onSearchEdited()
+    {
+        if (settingPlayerName)
+        {
+            return;
+        }
+        updateSuggestions();
+
+        if (!config.typeAheadLookup())
+        {
+            return;
+        }
+        lookupCache.cancelSpeculative();
+        typeAheadTimer.setInitialDelay(config.typeAheadDelay());
+        typeAheadTimer.restart();
+    }
+
+    private void updateSuggestions()
+    {
+        suggestionPopup.setVisible(false);
+        suggestionPopup.removeAll();
+
+        String text = playerInput.getText().trim();
+        if (!config.nameAutocomplete() || text.isEmpty() || !playerInput.isShowing())
+        {
+            return;
+        }
+
+        List<String> names = nameIndex.suggest(text, MAX_SUGGESTIONS);
+        if (names.isEmpty())
+        {
+            return;
+        }
+        for (String name : names)
+        {
+            JMenuItem item = new JMenuItem(name);
+            item.addActionListener(e ->
+            {
+                setPlayerName(name);
+                doLookup();
+            });
+            suggestionPopup.add(item);
+        }
+        suggestionPopup.show(playerInput, 0, playerInput.getHeight());
+    }
+
+    private void typeAheadLookup()
+    {
+        String player = playerInput.getText().trim();
+        if (VALID_NAME.matcher(player).matches())
+        {
+            lookupCache.prefetch(player, config.prefetchClog());
+        }
     }
 
     private volatile int lookupVersion = 0;
@@ -416,6 +660,9 @@ public class BossLogPanel extends PluginPanel
             return;
         }
 
+        typeAheadTimer.stop();
+        autoRefreshTimer.stop();
+        suggestionPopup.setVisible(false);
         final int thisLookup = ++lookupVersion;
         statusLabel.setText("Looking up " + player + "...");
         statusLabel.setForeground(TEXT_DIM);
@@ -423,9 +670,20 @@ public class BossLogPanel extends PluginPanel
         accountIcon.setIcon(null); accountIcon.setToolTipText(null);
 
         // Clear previous results
+        currentPlayer = player;
         hiscoreResult = null;
         clogResult = null;
+        clogPartial = false;
+        clogRequested.clear();
+        liveKc.clear();
+        reconcileTimer.stop();
         clogNotice.setVisible(false);
+        hiscoreSavedAt = 0;
+        statusLabel.setToolTipText(null);
+        weeklyGain = new HashMap<>();
+        chartBoss = null;
+        historyChart.setVisible(false);
+        rankTablePanel.setVisible(false);
 
         // Reset all labels to "--" and restore original icons
         for (Map.Entry<HiscoreSkill, JLabel> entry : bossLabels.entrySet())
@@ -442,7 +700,7 @@ public class BossLogPanel extends PluginPanel
         }
 
         // Fire hiscore lookup
-        hiscoreService.lookup(player).thenAccept(result ->
+        lookupCache.getHiscores(player, RequestScheduler.Priority.INTERACTIVE).thenAccept(result ->
             SwingUtilities.invokeLater(() ->
             {
                 if (thisLookup != lookupVersion) return; // stale result
@@ -454,38 +712,80 @@ public class BossLogPanel extends PluginPanel
                     return;
                 }
 
-                hiscoreResult = result;
+                recordSnapshot(player, result, thisLookup);
+                executor.execute(() -> lastGoodStore.saveHiscores(player, result));
+                hiscoreResult = applyJournaledKc(player, result);
+                nameIndex.addToHistory(player);
+                compareStore.putHiscores(player, hiscoreResult);
+                comparePanel.refresh();
 
                 statusLabel.setText(result.getAccountType().getLabel()
                     + " | Total: " + result.getTotalLevel());
                 statusLabel.setForeground(result.getAccountType().getColor());
 
                 updateAccountIcon(result.getAccountType());
-                updateBossLabels(result);
+                updateBossLabels(hiscoreResult);
                 updateTooltips();
+                publishFeed();
+
+                refreshBackoff = 1;
+                scheduleAutoRefresh();
             })
         ).exceptionally(ex ->
         {
-            SwingUtilities.invokeLater(() ->
+            // May be called on the EDT if the lookup failed fast; read the disk off it
+            String failure = describeFailure("Lookup failed", ex);
+            executor.execute(() ->
             {
-                lookupButton.setEnabled(true);
-                statusLabel.setText("Lookup failed");
-                statusLabel.setForeground(TEXT_DIM);
+                LastGoodStore.Saved<HiscoreResult> saved = lastGoodStore.loadHiscores(player);
+                SwingUtilities.invokeLater(() ->
+                {
+                    if (thisLookup != lookupVersion) return; // stale result
+                    lookupButton.setEnabled(true);
+                    if (saved == null)
+                    {
+                        statusLabel.setText(failure);
+                        statusLabel.setForeground(TEXT_DIM);
+                        return;
+                    }
+                    showSavedHiscores(player, saved, failure);
+                });
             });
             return null;
         });
 
-        // Fire clog lookup in parallel (if enabled)
+        // Fire clog lookup (if enabled): the whole log in parallel, or per boss as soon
+        // as the hiscores say which bosses have KC; the rest are fetched on hover
         if (config.showCollectionLog())
         {
-            clogService.lookup(player).thenAccept(result ->
+            final boolean partial = lookupCache.isClogPerBoss();
+            clogPartial = partial;
+            CompletableFuture<ClogResult> clogFuture = partial
+                ? lookupCache.getKilledBossesClog(player, RequestScheduler.Priority.INTERACTIVE)
+                : lookupCache.getClog(player, RequestScheduler.Priority.INTERACTIVE);
+            clogFuture.thenAccept(result ->
                 SwingUtilities.invokeLater(() ->
                 {
                     if (thisLookup != lookupVersion) return; // stale result
                     clogResult = result;
                     updateTooltips();
+                    publishFeed();
                     if (result != null)
                     {
+                        // A per-boss log only replaces the categories it has in the offline copy
+                        executor.execute(() ->
+                        {
+                            if (partial)
+                            {
+                                lastGoodStore.mergeClog(player, result);
+                            }
+                            else
+                            {
+                                lastGoodStore.saveClog(player, result);
+                            }
+                        });
+                        compareStore.putClog(player, result);
+                        comparePanel.refresh();
                         // Resolve untradeable item names via game cache on client thread
                         resolveUntradeableNames(result);
                     }
@@ -497,12 +797,484 @@ public class BossLogPanel extends PluginPanel
                 })
             ).exceptionally(ex ->
             {
-                log.warn("Clog lookup failed", ex);
+                log.debug("Clog lookup failed", ex);
+                executor.execute(() ->
+                {
+                    LastGoodStore.Saved<ClogResult> saved = lastGoodStore.loadClog(player);
+                    SwingUtilities.invokeLater(() ->
+                    {
+                        if (thisLookup != lookupVersion) return; // stale result
+                        if (saved == null)
+                        {
+                            clogNotice.setText(describeFailure("Collection log unavailable", ex));
+                            clogNotice.setVisible(true);
+                            return;
+                        }
+                        clogResult = clogService.withReferenceData(saved.getResult());
+                        clogPartial = false;
+                        compareStore.putClog(player, clogResult);
+                        comparePanel.refresh();
+                        updateTooltips();
+                        publishFeed();
+                        resolveUntradeableNames(clogResult);
+                        clogNotice.setText("Collection log from "
+                            + formatAge(System.currentTimeMillis() - saved.getSavedAt()) + " ago (offline)");
+                        clogNotice.setVisible(true);
+                    });
+                });
                 return null;
             });
         }
     }
 
+    /**
+     * Apply a KC from a game chat message to the displayed results, if they are
+     * for the local player. Only the affected boss cell is updated; hiscores are
+     * re-checked in the background once the player stops getting kills.
+     */
+    public void applyLiveKc(String localPlayer, String bossName, int kc)
+    {
+        if (hiscoreResult == null || currentPlayer == null
+            || !Text.standardize(currentPlayer).equals(Text.standardize(localPlayer)))
+        {
+            return;
+        }
+        if (kc <= hiscoreResult.getKc(bossName))
+        {
+            return;
+        }
+
+        // Copied, not mutated: the previous result is shared with the compare tab and feed
+        hiscoreResult = hiscoreResult.copy();
+        hiscoreResult.setKc(bossName, kc);
+        compareStore.putHiscores(currentPlayer, hiscoreResult);
+        liveKc.put(bossName, kc);
+        reconcileTimer.restart();
+
+        for (Map.Entry<HiscoreSkill, JLabel> entry : bossLabels.entrySet())
+        {
+            if (hiscoreName(entry.getKey()).equals(bossName))
+            {
+                updateBossLabel(entry.getKey(), entry.getValue(), hiscoreResult);
+                updateTooltip(entry.getKey(), entry.getValue());
+                break;
+            }
+        }
+        publishFeed();
+    }
+
+    /**
+     * Hand the displayed results to the local overlay feed, if it is running.
+     */
+    public void publishFeed()
+    {
+        if (currentPlayer != null && hiscoreResult != null && localFeedServer.isRunning())
+        {
+            localFeedServer.publishResults(currentPlayer, hiscoreResult, clogResult);
+        }
+    }
+
+    /**
+     * Refresh the session summary line and, if the local player is displayed,
+     * the boss cell's tooltip after a kill or fight duration.
+     */
+    public void updateSessionStats(String localPlayer, String bossName)
+    {
+        localSessionPlayer = localPlayer;
+        SessionStats.BossStats stats = sessionStats.getStats(localPlayer, bossName);
+        if (stats == null)
+        {
+            return;
+        }
+
+        StringBuilder text = new StringBuilder(bossName)
+            .append(": ").append(stats.getKills()).append(" this session");
+        if (stats.getKillsPerHour() > 0)
+        {
+            text.append(" \u00b7 ").append(Math.round(stats.getKillsPerHour())).append("/hr");
+        }
+        sessionLabel.setText(text.toString());
+        sessionLabel.setVisible(true);
+
+        for (Map.Entry<HiscoreSkill, JLabel> entry : bossLabels.entrySet())
+        {
+            if (hiscoreName(entry.getKey()).equals(bossName))
+            {
+                updateTooltip(entry.getKey(), entry.getValue());
+                break;
+            }
+        }
+    }
+
+    /**
+     * Store a snapshot of a fresh hiscore result and work out each boss's KC gained
+     * since a week ago. The KCs are copied here, before live KCs are merged in, so the
+     * history only holds what the hiscores reported.
+     */
+    private void recordSnapshot(String player, HiscoreResult result, int thisLookup)
+    {
+        Map<String, Integer> kills = new HashMap<>(result.getBossKills());
+        Map<String, Integer> ranks = new HashMap<>(result.getBossRanks());
+        long now = System.currentTimeMillis();
+        executor.execute(() ->
+        {
+            snapshotStore.record(player, kills, ranks, now);
+            SnapshotStore.Snapshot weekAgo = snapshotStore.at(player, now - WEEK_MS);
+            Map<String, Integer> gains = new HashMap<>();
+            if (weekAgo != null)
+            {
+                for (Map.Entry<String, Integer> entry : kills.entrySet())
+                {
+                    // Bosses below the hiscore threshold a week ago have no baseline
+                    int before = weekAgo.getKc(entry.getKey());
+                    int gained = entry.getValue() - before;
+                    if (before >= 0 && gained > 0)
+                    {
+                        gains.put(entry.getKey(), gained);
+                    }
+                }
+            }
+            SwingUtilities.invokeLater(() ->
+            {
+                if (thisLookup != lookupVersion) return; // stale result
+                weeklyGain = gains;
+                updateTooltips();
+                if (chartBoss != null)
+                {
+                    loadHistoryChart(chartBoss);
+                }
+            });
+        });
+    }
+
+    /**
+     * Show or hide the KC and rank history chart for a boss, and the ranking
+     * table around the player if they are ranked on it.
+     */
+    private void toggleHistoryChart(HiscoreSkill boss)
+    {
+        if (currentPlayer == null || boss == chartBoss)
+        {
+            chartBoss = null;
+            historyChart.setVisible(false);
+            rankTablePanel.setVisible(false);
+        }
+        else
+        {
+            chartBoss = boss;
+            loadHistoryChart(boss);
+
+            int rank = hiscoreResult != null ? hiscoreResult.getRank(hiscoreName(boss)) : -1;
+            if (rank > 0)
+            {
+                rankTablePanel.show(hiscoreResult.getAccountType(), hiscoreName(boss), currentPlayer, rank);
+            }
+            rankTablePanel.setVisible(rank > 0);
+        }
+        resultsPanel.revalidate();
+    }
+
+    private void loadHistoryChart(HiscoreSkill boss)
+    {
+        String player = currentPlayer;
+        String bossName = hiscoreName(boss);
+        final int thisLookup = lookupVersion;
+        long now = System.currentTimeMillis();
+        executor.execute(() ->
+        {
+            List<SnapshotStore.Point> points = snapshotStore.history(player, bossName, now - CHART_RANGE_MS, now);
+            SwingUtilities.invokeLater(() ->
+            {
+                if (thisLookup != lookupVersion || boss != chartBoss) return; // stale result
+                historyChart.setPoints(boss.getName(), points);
+                historyChart.setVisible(true);
+                resultsPanel.revalidate();
+            });
+        });
+    }
+
+    /**
+     * "Gained since last week" line for a boss tooltip, empty without an older snapshot.
+     */
+    private String formatGainHtml(String hiscoreName)
+    {
+        Integer gained = weeklyGain.get(hiscoreName);
+        if (gained == null)
+        {
+            return "";
+        }
+        return "<br><span style='color:#a0c8a0;'>+" + gained + " kc since last week</span>";
+    }
+
+    /**
+     * Session stats lines for a boss tooltip, empty unless the local player is displayed.
+     */
+    private String formatSessionHtml(String hiscoreName)
+    {
+        if (currentPlayer == null || localSessionPlayer == null
+            || !Text.standardize(currentPlayer).equals(Text.standardize(localSessionPlayer)))
+        {
+            return "";
+        }
+        SessionStats.BossStats stats = sessionStats.getStats(localSessionPlayer, hiscoreName);
+        if (stats == null)
+        {
+            return "";
+        }
+
+        StringBuilder html = new StringBuilder("<br><span style='color:#a0c8a0;'>Session: ")
+            .append(stats.getKills()).append(stats.getKills() == 1 ? " kill" : " kills");
+        if (stats.getKillsPerHour() > 0)
+        {
+            html.append(" \u00b7 ").append(String.format("%.1f", stats.getKillsPerHour())).append("/hr");
+        }
+        if (stats.getAverageDurationMillis() >= 0)
+        {
+            html.append("<br>Avg ").append(formatDuration(stats.getAverageDurationMillis()))
+                .append(" \u00b7 Best ").append(formatDuration(stats.getBestDurationMillis()));
+        }
+        long eta = stats.getMillisToNextMilestone();
+        if (eta >= 0)
+        {
+            html.append("<br>").append(stats.getNextMilestone()).append(" kc in ~").append(formatEta(eta));
+        }
+        return html.append("</span>").toString();
+    }
+
+    private static String formatDuration(long millis)
+    {
+        long seconds = millis / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
+    private static String formatEta(long millis)
+    {
+        long minutes = Math.max(1, millis / 60_000);
+        return minutes < 60 ? minutes + "m" : String.format("%dh %02dm", minutes / 60, minutes % 60);
+    }
+
+    /**
+     * A copy of {@code result} with KCs from the local kill journal that are newer
+     * than the hiscores, so kills from before a restart show up without waiting for
+     * the hiscores. {@code result} may be cached or stored, so it is left as it is.
+     */
+    private HiscoreResult applyJournaledKc(String player, HiscoreResult result)
+    {
+        HiscoreResult merged = result.copy();
+        for (Map.Entry<String, Integer> entry : kcJournal.getLatestKc(player).entrySet())
+        {
+            if (entry.getValue() > merged.getKc(entry.getKey()))
+            {
+                merged.setKc(entry.getKey(), entry.getValue());
+                liveKc.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (!liveKc.isEmpty())
+        {
+            reconcileTimer.restart();
+        }
+        return merged;
+    }
+
+    /**
+     * Background re-check of the hiscores after a run of chat KCs.
+     * Chat KCs the hiscores haven't caught up with yet are kept.
+     */
+    private void reconcileLiveKc()
+    {
+        String player = currentPlayer;
+        if (player == null || liveKc.isEmpty())
+        {
+            return;
+        }
+
+        final int thisLookup = lookupVersion;
+        hiscoreService.lookup(player, RequestScheduler.Priority.BACKGROUND).thenAccept(result ->
+            SwingUtilities.invokeLater(() ->
+            {
+                if (thisLookup != lookupVersion || result == null) return; // stale result
+
+                hiscoreResult = mergeLiveKc(result);
+                compareStore.putHiscores(player, hiscoreResult);
+                comparePanel.refresh();
+                updateBossLabels(hiscoreResult);
+                updateTooltips();
+                publishFeed();
+            })
+        ).exceptionally(ex ->
+        {
+            log.debug("Background hiscore reconcile failed", ex);
+            return null;
+        });
+    }
+
+    /**
+     * A copy of a fresh result keeping chat KCs the hiscores haven't caught up with yet.
+     */
+    private HiscoreResult mergeLiveKc(HiscoreResult result)
+    {
+        HiscoreResult merged = result.copy();
+        liveKc.entrySet().removeIf(e ->
+        {
+            if (merged.getKc(e.getKey()) >= e.getValue())
+            {
+                return true;
+            }
+            merged.setKc(e.getKey(), e.getValue());
+            return false;
+        });
+        return merged;
+    }
+
+    /**
+     * Auto refresh was switched on or off, or its interval changed: start over from
+     * the configured interval for whoever is on display, or stop.
+     */
+    public void onAutoRefreshChanged()
+    {
+        refreshBackoff = 1;
+        if (hiscoreResult == null)
+        {
+            autoRefreshTimer.stop();
+            return;
+        }
+        scheduleAutoRefresh();
+    }
+
+    private void scheduleAutoRefresh()
+    {
+        if (!config.autoRefresh())
+        {
+            autoRefreshTimer.stop();
+            return;
+        }
+        // Jittered so many clients don't refresh in lockstep
+        double jitter = 0.85 + ThreadLocalRandom.current().nextDouble() * 0.3;
+        long delay = (long) (config.autoRefreshInterval() * 60_000L * refreshBackoff * jitter);
+        autoRefreshTimer.setInitialDelay((int) Math.min(Integer.MAX_VALUE, delay));
+        autoRefreshTimer.restart();
+    }
+
+    /**
+     * Background re-fetch of the displayed player. Unchanged hiscores come back
+     * as the same result object and skip every UI update.
+     */
+    private void autoRefresh()
+    {
+        String player = currentPlayer;
+        HiscoreResult previous = hiscoreResult;
+        if (!config.autoRefresh() || player == null || previous == null)
+        {
+            return;
+        }
+
+        final int thisLookup = lookupVersion;
+        hiscoreService.refresh(player, previous).thenAccept(result ->
+            SwingUtilities.invokeLater(() ->
+            {
+                if (thisLookup != lookupVersion) return; // stale result
+
+                if (result == previous && hiscoreSavedAt > 0)
+                {
+                    // Hiscores are back and match the offline copy
+                    hiscoreSavedAt = 0;
+                    statusLabel.setToolTipText(null);
+                    statusLabel.setText(result.getAccountType().getLabel()
+                        + " | Total: " + result.getTotalLevel());
+                    statusLabel.setForeground(result.getAccountType().getColor());
+                }
+                if (result == null || result == previous)
+                {
+                    refreshBackoff = Math.min(MAX_REFRESH_BACKOFF, refreshBackoff * 2);
+                    scheduleAutoRefresh();
+                    return;
+                }
+
+                log.debug("Hiscores changed for {}", player);
+                refreshBackoff = 1;
+                recordSnapshot(player, result, thisLookup);
+                executor.execute(() -> lastGoodStore.saveHiscores(player, result));
+                hiscoreResult = mergeLiveKc(result);
+                compareStore.putHiscores(player, hiscoreResult);
+                comparePanel.refresh();
+                hiscoreSavedAt = 0;
+                statusLabel.setToolTipText(null);
+                statusLabel.setText(result.getAccountType().getLabel()
+                    + " | Total: " + result.getTotalLevel());
+                statusLabel.setForeground(result.getAccountType().getColor());
+                updateAccountIcon(result.getAccountType());
+                updateBossLabels(hiscoreResult);
+                updateTooltips();
+                publishFeed();
+                scheduleAutoRefresh();
+            })
+        ).exceptionally(ex ->
+        {
+            log.debug("Auto refresh failed", ex);
+            SwingUtilities.invokeLater(() ->
+            {
+                if (thisLookup != lookupVersion) return; // stale result
+                refreshBackoff = Math.min(MAX_REFRESH_BACKOFF, refreshBackoff * 2);
+                scheduleAutoRefresh();
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Show the offline copy of a player's hiscores after a failed lookup, marked
+     * with its age. Auto refresh, if on, replaces it once the hiscores answer again.
+     */
+    private void showSavedHiscores(String player, LastGoodStore.Saved<HiscoreResult> saved, String failure)
+    {
+        HiscoreResult result = saved.getResult();
+        hiscoreResult = applyJournaledKc(player, result);
+        hiscoreSavedAt = saved.getSavedAt();
+        compareStore.putHiscores(player, hiscoreResult);
+        comparePanel.refresh();
+
+        statusLabel.setText(result.getAccountType().getLabel() + " | Saved "
+            + formatAge(System.currentTimeMillis() - hiscoreSavedAt) + " ago");
+        statusLabel.setForeground(TEXT_DIM);
+        statusLabel.setToolTipText(failure + "; showing the last successful lookup");
+
+        updateAccountIcon(result.getAccountType());
+        updateBossLabels(hiscoreResult);
+        updateTooltips();
+        publishFeed();
+
+        // Not reset to 1: the hiscores just failed, so don't re-check at the fastest rate
+        refreshBackoff = Math.min(MAX_REFRESH_BACKOFF, refreshBackoff * 2);
+        scheduleAutoRefresh();
+    }
+
+    private static String formatAge(long millis)
+    {
+        long minutes = millis / 60_000;
+        if (minutes < 60)
+        {
+            return Math.max(1, minutes) + "m";
+        }
+        if (minutes < 48 * 60)
+        {
+            return minutes / 60 + "h";
+        }
+        return minutes / (24 * 60) + "d";
+    }
+
+    /**
+     * Status text for a failed lookup, naming the transient cause when known.
+     */
+    static String describeFailure(String prefix, Throwable ex)
+    {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof FetchException)
+        {
+            return prefix + " \u2014 " + ((FetchException) cause).getStatus().getLabel().toLowerCase();
+        }
+        return prefix;
+    }
+
     private void updateAccountIcon(AccountType type)
     {
         String resource;
@@ -536,6 +1308,40 @@ public class BossLogPanel extends PluginPanel
         }
     }
 
+    /**
+     * Fetch a hovered boss's collection log category if the displayed log doesn't have it yet.
+     */
+    private void loadClogCategory(HiscoreSkill boss)
+    {
+        if (!clogPartial || clogResult == null || currentPlayer == null)
+        {
+            return;
+        }
+        String category = ClogService.bossToCategory(hiscoreName(boss));
+        if (clogResult.getCategoryItems().containsKey(category) || !clogRequested.add(category))
+        {
+            return;
+        }
+
+        final int thisLookup = lookupVersion;
+        String player = currentPlayer;
+        clogService.lookupCategories(player, Collections.singleton(category), RequestScheduler.Priority.INTERACTIVE)
+            .thenAccept(more -> SwingUtilities.invokeLater(() ->
+            {
+                if (thisLookup != lookupVersion || more == null || clogResult == null) return; // stale result
+                clogResult = clogResult.merge(more);
+                executor.execute(() -> lastGoodStore.mergeClog(player, more));
+                compareStore.putClog(player, clogResult);
+                updateTooltip(boss, bossLabels.get(boss));
+                resolveUntradeableNames(clogResult);
+            }))
+            .exceptionally(ex ->
+            {
+                log.debug("Clog category lookup failed", ex);
+                return null;
+            });
+    }
+
     /**
      * Resolve item names missing from the Wiki API (untradeables like pets, jars)
      * by looking them up via ItemManager on the client thread.
@@ -597,76 +1403,69 @@ public class BossLogPanel extends PluginPanel
 
     private void updateBossLabels(HiscoreResult result)
     {
-        Map<String, Integer> bosses = result.getBossKills();
-        BossLogConfig.FourTwentyMode mode = config.fourTwentyMode();
-
         for (Map.Entry<HiscoreSkill, JLabel> entry : bossLabels.entrySet())
         {
-            HiscoreSkill skill = entry.getKey();
-            JLabel label = entry.getValue();
+            updateBossLabel(entry.getKey(), entry.getValue(), result);
+        }
+    }
 
-            // Resolve the boss name used in hiscore data
-            String hiscoreName = NAME_OVERRIDES.getOrDefault(skill.getName(), skill.getName());
-            int kc = bosses.getOrDefault(hiscoreName, -1);
-
-            boolean hasKc = kc > 0;
-
-            // 420 mode logic
-            boolean is420;
-            switch (mode)
-            {
-                case CAP:
-                    is420 = hasKc && kc >= 420;
-                    break;
-                case ON:
-                    is420 = hasKc && kc == 420;
-                    break;
-                default:
-                    is420 = false;
-                    break;
-            }
+    private void updateBossLabel(HiscoreSkill skill, JLabel label, HiscoreResult result)
+    {
+        BossLogConfig.FourTwentyMode mode = config.fourTwentyMode();
 
-            // In CAP mode, display "420" for KC >= 420
-            String kcText;
-            if (mode == BossLogConfig.FourTwentyMode.CAP && hasKc && kc >= 420)
-            {
-                kcText = "420";
-            }
-            else
-            {
-                kcText = kc <= 0 ? "--" : formatKc(kc);
-            }
-            label.setText(pad(kcText));
+        // Resolve the boss name used in hiscore data
+        int kc = result.getKc(hiscoreName(skill));
 
-            if (is420)
-            {
-                label.setForeground(GOLD);
-            }
-            else if (hasKc)
+        boolean hasKc = kc > 0;
+
+        // 420 mode logic
+        boolean is420 = hasKc && mode.is420(kc);
+
+        // In CAP mode, display "420" for KC >= 420
+        String kcText;
+        if (mode == BossLogConfig.FourTwentyMode.CAP && hasKc && kc >= 420)
+        {
+            kcText = "420";
+        }
+        else
+        {
+            kcText = kc <= 0 ? "--" : formatKc(kc);
+        }
+        label.setText(pad(kcText));
+
+        if (is420)
+        {
+            label.setForeground(GOLD);
+        }
+        else if (hasKc)
+        {
+            label.setForeground(Color.WHITE);
+        }
+        else
+        {
+            label.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        }
+
+        // Dim icon for bosses with no KC
+        ImageIcon orig = originalIcons.get(skill);
+        if (orig != null)
+        {
+            if (!hasKc)
             {
-                label.setForeground(Color.WHITE);
+                label.setIcon(new ImageIcon(createDimmedImage(orig)));
             }
             else
             {
-                label.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
-            }
-
-            // Dim icon for bosses with no KC
-            ImageIcon orig = originalIcons.get(skill);
-            if (orig != null)
-            {
-                if (!hasKc)
-                {
-                    label.setIcon(new ImageIcon(createDimmedImage(orig)));
-                }
-                else
-                {
-                    label.setIcon(orig);
-                }
+                label.setIcon(orig);
             }
         }
     }
 
+    private static String hiscoreName(HiscoreSkill skill)
+    {
+        return NAME_OVERRIDES.getOrDefault(skill.getName(), skill.getName());
+    }
+
     /**
      * Create a dimmed version of an icon at ~30% opacity.
      */
@@ -762,156 +1561,164 @@ public class BossLogPanel extends PluginPanel
     {
         for (Map.Entry<HiscoreSkill, JLabel> entry : bossLabels.entrySet())
         {
-            HiscoreSkill skill = entry.getKey();
-            JLabel label = entry.getValue();
+            updateTooltip(entry.getKey(), entry.getValue());
+        }
+    }
 
-            String bossName = skill.getName();
-            String hiscoreName = NAME_OVERRIDES.getOrDefault(bossName, bossName);
+    private void updateTooltip(HiscoreSkill skill, JLabel label)
+    {
+        String bossName = skill.getName();
+        String hiscoreName = hiscoreName(skill);
 
-            // Get KC and rank from hiscore result
-            int kc = -1;
-            int rank = -1;
-            if (hiscoreResult != null)
-            {
-                kc = hiscoreResult.getKc(hiscoreName);
-                rank = hiscoreResult.getRank(hiscoreName);
-            }
+        // Get KC and rank from hiscore result
+        int kc = -1;
+        int rank = -1;
+        if (hiscoreResult != null)
+        {
+            kc = hiscoreResult.getKc(hiscoreName);
+            rank = hiscoreResult.getRank(hiscoreName);
+        }
 
-            // If no clog data or config disabled, show simple tooltip
-            if (clogResult == null || !config.showCollectionLog())
+        // If no clog data or config disabled, show simple tooltip
+        if (clogResult == null || !config.showCollectionLog())
+        {
+            StringBuilder tooltip = new StringBuilder("<html>");
+            tooltip.append(escapeHtml(bossName));
+            tooltip.append(formatRankHtml(rank));
+            if (kc > 0)
             {
-                StringBuilder tooltip = new StringBuilder("<html>");
-                tooltip.append(escapeHtml(bossName));
-                tooltip.append(formatRankHtml(rank));
-                if (kc > 0)
-                {
-                    tooltip.append(" \u2014 ").append(kc).append(" kc");
-                }
-                tooltip.append("</html>");
-                label.setToolTipText(tooltip.toString());
-                continue;
+                tooltip.append(" \u2014 ").append(kc).append(" kc");
             }
+            tooltip.append(formatGainHtml(hiscoreName));
+            tooltip.append(formatSessionHtml(hiscoreName));
+            tooltip.append("</html>");
+            label.setToolTipText(tooltip.toString());
+            return;
+        }
 
-            // Build rich HTML tooltip with collection log items
-            String category = ClogService.bossToCategory(hiscoreName);
+        // Build rich HTML tooltip with collection log items
+        String category = ClogService.bossToCategory(hiscoreName);
 
-            List<ClogResult.ClogItem> obtained = clogResult.getObtainedItems().get(category);
-            List<Integer> allItems = clogResult.getCategoryItems().get(category);
+        List<ClogResult.ClogItem> obtained = clogResult.getObtainedItems().get(category);
+        List<Integer> allItems = clogResult.getCategoryItems().get(category);
 
-            // No clog data for this boss
-            if ((obtained == null || obtained.isEmpty()) && (allItems == null || allItems.isEmpty()))
+        // No clog data for this boss
+        if ((obtained == null || obtained.isEmpty()) && (allItems == null || allItems.isEmpty()))
+        {
+            StringBuilder tooltip = new StringBuilder("<html>");
+            tooltip.append(escapeHtml(bossName));
+            tooltip.append(formatRankHtml(rank));
+            if (kc > 0)
             {
-                StringBuilder tooltip = new StringBuilder("<html>");
-                tooltip.append(escapeHtml(bossName));
-                tooltip.append(formatRankHtml(rank));
-                if (kc > 0)
-                {
-                    tooltip.append(" \u2014 ").append(kc).append(" kc");
-                }
-                tooltip.append("</html>");
-                label.setToolTipText(tooltip.toString());
-                continue;
+                tooltip.append(" \u2014 ").append(kc).append(" kc");
             }
+            tooltip.append(formatGainHtml(hiscoreName));
+            tooltip.append(formatSessionHtml(hiscoreName));
+            tooltip.append("</html>");
+            label.setToolTipText(tooltip.toString());
+            return;
+        }
 
-            // Build obtained ID set for quick lookup
-            Set<Integer> obtainedIds = new HashSet<>();
-            Map<Integer, Integer> obtainedCounts = new LinkedHashMap<>();
-            if (obtained != null)
+        // Build obtained ID set for quick lookup
+        Set<Integer> obtainedIds = new HashSet<>();
+        Map<Integer, Integer> obtainedCounts = new LinkedHashMap<>();
+        if (obtained != null)
+        {
+            for (ClogResult.ClogItem item : obtained)
             {
-                for (ClogResult.ClogItem item : obtained)
-                {
-                    obtainedIds.add(item.getId());
-                    obtainedCounts.put(item.getId(), item.getCount());
-                }
+                obtainedIds.add(item.getId());
+                obtainedCounts.put(item.getId(), item.getCount());
             }
+        }
 
-            int totalItems = allItems != null ? allItems.size() : obtainedIds.size();
-            int obtainedCount = 0;
+        int totalItems = allItems != null ? allItems.size() : obtainedIds.size();
+        int obtainedCount = 0;
 
-            // Count obtained from the full item list
-            if (allItems != null)
+        // Count obtained from the full item list
+        if (allItems != null)
+        {
+            for (int itemId : allItems)
             {
-                for (int itemId : allItems)
+                if (obtainedIds.contains(itemId))
                 {
-                    if (obtainedIds.contains(itemId))
-                    {
-                        obtainedCount++;
-                    }
+                    obtainedCount++;
                 }
             }
-            else
-            {
-                obtainedCount = obtainedIds.size();
-            }
+        }
+        else
+        {
+            obtainedCount = obtainedIds.size();
+        }
 
-            boolean isComplete = totalItems > 0 && obtainedCount == totalItems;
+        boolean isComplete = totalItems > 0 && obtainedCount == totalItems;
 
-            StringBuilder html = new StringBuilder();
-            html.append("<html><body style='padding:4px;'>");
+        StringBuilder html = new StringBuilder();
+        html.append("<html><body style='padding:4px;'>");
 
-            // Header: Boss Name (obtained/total)
-            String headerColor = isComplete ? "#4caf6e" : "#ffffff";
-            html.append("<b style='color:").append(headerColor).append(";'>");
-            html.append(escapeHtml(bossName));
-            html.append(" (").append(obtainedCount).append("/").append(totalItems).append(")");
-            html.append("</b>");
+        // Header: Boss Name (obtained/total)
+        String headerColor = isComplete ? "#4caf6e" : "#ffffff";
+        html.append("<b style='color:").append(headerColor).append(";'>");
+        html.append(escapeHtml(bossName));
+        html.append(" (").append(obtainedCount).append("/").append(totalItems).append(")");
+        html.append("</b>");
 
-            // Rank after boss name
-            html.append(formatRankHtml(rank));
+        // Rank after boss name
+        html.append(formatRankHtml(rank));
 
-            if (kc > 0)
-            {
-                html.append("<span style='color:#a0c8a0;'> \u2014 ").append(kc).append(" kc</span>");
-            }
+        if (kc > 0)
+        {
+            html.append("<span style='color:#a0c8a0;'> \u2014 ").append(kc).append(" kc</span>");
+        }
+        html.append(formatGainHtml(hiscoreName));
+        html.append(formatSessionHtml(hiscoreName));
 
-            html.append("<br>");
+        html.append("<br>");
 
-            // Item list
-            if (allItems != null)
+        // Item list
+        if (allItems != null)
+        {
+            for (int itemId : allItems)
             {
-                for (int itemId : allItems)
-                {
-                    boolean hasItem = obtainedIds.contains(itemId);
-                    String itemName = clogResult.getItemName(itemId);
+                boolean hasItem = obtainedIds.contains(itemId);
+                String itemName = clogResult.getItemName(itemId);
 
-                    if (hasItem)
-                    {
-                        int count = obtainedCounts.getOrDefault(itemId, 1);
-                        html.append("<span style='color:#4caf6e;'>\u2713 ");
-                        html.append(escapeHtml(itemName));
-                        if (count > 1)
-                        {
-                            html.append(" (x").append(count).append(")");
-                        }
-                        html.append("</span><br>");
-                    }
-                    else
-                    {
-                        html.append("<span style='color:#ff6666;'>\u2717 ");
-                        html.append(escapeHtml(itemName));
-                        html.append("</span><br>");
-                    }
-                }
-            }
-            else if (obtained != null)
-            {
-                // No category data, just show obtained items
-                for (ClogResult.ClogItem item : obtained)
+                if (hasItem)
                 {
-                    String itemName = clogResult.getItemName(item.getId());
+                    int count = obtainedCounts.getOrDefault(itemId, 1);
                     html.append("<span style='color:#4caf6e;'>\u2713 ");
                     html.append(escapeHtml(itemName));
-                    if (item.getCount() > 1)
+                    if (count > 1)
                     {
-                        html.append(" (x").append(item.getCount()).append(")");
+                        html.append(" (x").append(count).append(")");
                     }
                     html.append("</span><br>");
                 }
+                else
+                {
+                    html.append("<span style='color:#ff6666;'>\u2717 ");
+                    html.append(escapeHtml(itemName));
+                    html.append("</span><br>");
+                }
             }
-
-            html.append("</body></html>");
-            label.setToolTipText(html.toString());
         }
+        else if (obtained != null)
+        {
+            // No category data, just show obtained items
+            for (ClogResult.ClogItem item : obtained)
+            {
+                String itemName = clogResult.getItemName(item.getId());
+                html.append("<span style='color:#4caf6e;'>\u2713 ");
+                html.append(escapeHtml(itemName));
+                if (item.getCount() > 1)
+                {
+                    html.append(" (x").append(item.getCount()).append(")");
+                }
+                html.append("</span><br>");
+            }
+        }
+
+        html.append("</body></html>");
+        label.setToolTipText(html.toString());
     }
 
     /**
@@ -919,6 +1726,10 @@ public class BossLogPanel extends PluginPanel
      */
     public void shutdown()
     {
+        reconcileTimer.stop();
+        typeAheadTimer.stop();
+        autoRefreshTimer.stop();
+        clanPanel.shutdown();
         ToolTipManager.sharedInstance().setDismissDelay(originalDismissDelay);
     }
 
@@ -2,25 +2,38 @@ package com.bosslog;
 
 import com.google.inject.Provides;
 import java.awt.image.BufferedImage;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
+import net.runelite.api.Friend;
 import net.runelite.api.GameState;
 import net.runelite.api.MenuAction;
 import net.runelite.api.MenuEntry;
 import net.runelite.api.Player;
 import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.ClanChannelChanged;
+import net.runelite.api.events.ClanMemberJoined;
 import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
 import net.runelite.api.events.MenuOpened;
+import net.runelite.api.events.NameableNameChanged;
+import net.runelite.api.events.PlayerDespawned;
+import net.runelite.api.events.PlayerSpawned;
+import net.runelite.api.events.RemovedFriend;
+import net.runelite.api.events.ScriptPreFired;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.party.WSClient;
+import net.runelite.client.party.events.UserJoin;
+import net.runelite.client.party.events.UserPart;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.ClientToolbar;
 import net.runelite.client.ui.NavigationButton;
+import net.runelite.client.ui.overlay.OverlayManager;
 import net.runelite.client.util.ImageUtil;
 import net.runelite.client.util.Text;
 import javax.swing.SwingUtilities;
@@ -33,10 +46,6 @@ import javax.swing.SwingUtilities;
 )
 public class BossLogPlugin extends Plugin
 {
-    private static final Pattern KC_PATTERN = Pattern.compile(
-        "Your (.+) kill count is: (\\d+)"
-    );
-
     @Inject
     private Client client;
 
@@ -49,6 +58,50 @@ public class BossLogPlugin extends Plugin
     @Inject
     private BossLogPanel panel;
 
+    @Inject
+    private ConnectionWarmer connectionWarmer;
+
+    @Inject
+    private KcJournal kcJournal;
+
+    @Inject
+    private SessionStats sessionStats;
+
+    @Inject
+    private OverlayManager overlayManager;
+
+    @Inject
+    private KcOverlay kcOverlay;
+
+    @Inject
+    private LookupCache lookupCache;
+
+    @Inject
+    private NameIndex nameIndex;
+
+    @Inject
+    private NearbyLookupQueue nearbyLookupQueue;
+
+    @Inject
+    private NearbyKcOverlay nearbyKcOverlay;
+
+    @Inject
+    private LocalFeedServer localFeedServer;
+
+    @Inject
+    private PartyKcSync partyKcSync;
+
+    @Inject
+    private ClogCapture clogCapture;
+
+    @Inject
+    private WSClient wsClient;
+
+    @Inject
+    private ClientThread clientThread;
+
+    private final ChatKcDispatcher chatKcDispatcher = new ChatKcDispatcher();
+
     private NavigationButton navButton;
 
     @Provides
@@ -68,6 +121,17 @@ public class BossLogPlugin extends Plugin
             .build();
 
         clientToolbar.addNavigation(navButton);
+        overlayManager.add(kcOverlay);
+        overlayManager.add(nearbyKcOverlay);
+        connectionWarmer.warmUp();
+        kcJournal.open();
+        sessionStats.restore(kcJournal, System.currentTimeMillis());
+        wsClient.registerMessage(PartyKcMessage.class);
+        SwingUtilities.invokeLater(() -> nameIndex.loadHistory());
+        if (config.localFeed())
+        {
+            localFeedServer.start(config.localFeedPort());
+        }
 
         String defaultPlayer = config.defaultPlayer();
         if (!defaultPlayer.isEmpty())
@@ -86,14 +150,73 @@ public class BossLogPlugin extends Plugin
     protected void shutDown()
     {
         clientToolbar.removeNavigation(navButton);
+        overlayManager.remove(kcOverlay);
+        overlayManager.remove(nearbyKcOverlay);
+        nearbyLookupQueue.clearPending();
+        kcOverlay.clear();
         SwingUtilities.invokeLater(() -> panel.shutdown());
+        kcJournal.close();
+        nameIndex.reset();
+        localFeedServer.stop();
+        wsClient.unregisterMessage(PartyKcMessage.class);
+        partyKcSync.reset();
+        clogCapture.reset();
         log.info("420 kc plugin stopped");
     }
 
+    @Subscribe
+    public void onConfigChanged(ConfigChanged event)
+    {
+        if (!"420kc".equals(event.getGroup()))
+        {
+            return;
+        }
+        if ("localFeed".equals(event.getKey()) || "localFeedPort".equals(event.getKey()))
+        {
+            if (config.localFeed())
+            {
+                localFeedServer.start(config.localFeedPort());
+                // Fill the new feed with whatever is on display
+                SwingUtilities.invokeLater(() -> panel.publishFeed());
+            }
+            else
+            {
+                localFeedServer.stop();
+            }
+        }
+        else if ("autoRefresh".equals(event.getKey()) || "autoRefreshInterval".equals(event.getKey()))
+        {
+            SwingUtilities.invokeLater(() -> panel.onAutoRefreshChanged());
+        }
+        else if ("nearbyPlayers".equals(event.getKey()))
+        {
+            if (config.nearbyPlayers() == BossLogConfig.NearbyMode.OFF)
+            {
+                nearbyLookupQueue.clearPending();
+            }
+            else
+            {
+                // Players already in view spawned while it was off
+                clientThread.invoke(() ->
+                {
+                    for (Player player : client.getTopLevelWorldView().players())
+                    {
+                        queueNearby(player);
+                    }
+                });
+            }
+        }
+    }
+
     @Subscribe
     public void onGameStateChanged(GameStateChanged event)
     {
-        if (event.getGameState() == GameState.LOGGED_IN)
+        if (event.getGameState() == GameState.LOGIN_SCREEN)
+        {
+            // Friends and clan belong to the account that logged out
+            nameIndex.reset();
+        }
+        else if (event.getGameState() == GameState.LOGGED_IN)
         {
             if (config.defaultPlayer().isEmpty())
             {
@@ -107,6 +230,110 @@ public class BossLogPlugin extends Plugin
         }
     }
 
+    @Subscribe
+    public void onGameTick(GameTick event)
+    {
+        // The friends list loads a few ticks after login; this is only a size check
+        nameIndex.syncFriends();
+        clogCapture.onGameTick();
+
+        if (config.nearbyPlayers() != BossLogConfig.NearbyMode.OFF)
+        {
+            // Top menu entry is what the mouse is over; look that player up next
+            MenuEntry[] entries = client.getMenu().getMenuEntries();
+            if (entries.length > 0)
+            {
+                Player hovered = entries[entries.length - 1].getPlayer();
+                if (hovered != null && hovered.getName() != null)
+                {
+                    nearbyLookupQueue.prioritize(hovered.getName());
+                }
+            }
+        }
+    }
+
+    @Subscribe
+    public void onScriptPreFired(ScriptPreFired event)
+    {
+        clogCapture.onScriptPreFired(event);
+    }
+
+    @Subscribe
+    public void onPlayerSpawned(PlayerSpawned event)
+    {
+        queueNearby(event.getPlayer());
+    }
+
+    private void queueNearby(Player player)
+    {
+        if (config.nearbyPlayers() != BossLogConfig.NearbyMode.OFF
+            && player != null && player != client.getLocalPlayer() && player.getName() != null
+            && !partyKcSync.hasAllKc(player.getName()))
+        {
+            nearbyLookupQueue.enqueue(player.getName());
+        }
+    }
+
+    @Subscribe
+    public void onPartyKcMessage(PartyKcMessage message)
+    {
+        partyKcSync.onMessage(message);
+    }
+
+    @Subscribe
+    public void onUserJoin(UserJoin event)
+    {
+        partyKcSync.onMemberJoined();
+    }
+
+    @Subscribe
+    public void onUserPart(UserPart event)
+    {
+        partyKcSync.onMemberLeft(event.getMemberId());
+    }
+
+    @Subscribe
+    public void onPlayerDespawned(PlayerDespawned event)
+    {
+        if (event.getPlayer().getName() != null)
+        {
+            nearbyLookupQueue.forget(event.getPlayer().getName());
+        }
+    }
+
+    @Subscribe
+    public void onRemovedFriend(RemovedFriend event)
+    {
+        nameIndex.removeFriend(event.getNameable().getName());
+    }
+
+    @Subscribe
+    public void onNameableNameChanged(NameableNameChanged event)
+    {
+        if (event.getNameable() instanceof Friend)
+        {
+            nameIndex.renameFriend(event.getNameable().getPrevName(), event.getNameable().getName());
+        }
+    }
+
+    @Subscribe
+    public void onClanChannelChanged(ClanChannelChanged event)
+    {
+        if (!event.isGuest())
+        {
+            nameIndex.syncClan();
+        }
+    }
+
+    @Subscribe
+    public void onClanMemberJoined(ClanMemberJoined event)
+    {
+        if (event.getClanChannel() == client.getClanChannel())
+        {
+            nameIndex.addClanMember(event.getClanMember().getName());
+        }
+    }
+
     /**
      * Right-click player menu: "420 kc Lookup"
      */
@@ -134,10 +361,15 @@ public class BossLogPlugin extends Plugin
                 String target = entry.getTarget();
                 if (target != null && !target.isEmpty())
                 {
-                    String playerName = Text.removeTags(target).trim();
+                    // Player targets end with the combat level, e.g. "Zezima  (level-126)"
+                    String playerName = Text.removeTags(target).replaceAll("\\s*\\(level-\\d+\\)$", "").trim();
                     if (!playerName.isEmpty())
                     {
                         addLookupMenuEntry(entries, playerName);
+                        if (config.prefetchOnMenu())
+                        {
+                            lookupCache.prefetch(playerName, config.prefetchClog());
+                        }
                         return;
                     }
                 }
@@ -159,27 +391,38 @@ public class BossLogPlugin extends Plugin
     }
 
     /**
-     * Detect boss KC messages containing "420" and celebrate.
-     * OSRS sends: "Your [boss] kill count is: [number]."
+     * Track boss count messages: update the local player's grid in place,
+     * and celebrate KCs containing "420".
+     * OSRS sends: "Your [boss] kill count is: [number]." and the completion/chest variants.
      */
     @Subscribe
     public void onChatMessage(ChatMessage event)
     {
-        if (!config.chatMessages() || event.getType() != ChatMessageType.GAMEMESSAGE)
+        ChatMessageType type = event.getType();
+        if (type != ChatMessageType.GAMEMESSAGE
+            && type != ChatMessageType.SPAM
+            && type != ChatMessageType.FRIENDSCHATNOTIFICATION)
         {
             return;
         }
 
-        String msg = Text.removeTags(event.getMessage());
-        Matcher matcher = KC_PATTERN.matcher(msg);
-        if (matcher.find())
+        chatKcDispatcher.dispatch(event.getMessage(), client.getTickCount(), kcListener);
+    }
+
+    private final ChatKcDispatcher.Listener kcListener = new ChatKcDispatcher.Listener()
+    {
+        @Override
+        public void onKillCount(String chatName, String bossName, int kc)
         {
-            String bossName = matcher.group(1);
-            String kcStr = matcher.group(2);
+            if (bossName != null)
+            {
+                trackLiveKc(bossName, kc);
+            }
 
-            if (kcStr.contains("420"))
+            String kcStr = Integer.toString(kc);
+            if (config.chatMessages() && kcStr.contains("420"))
             {
-                String blazeMsg = "420 kc: " + bossName + " " + kcStr + " kc — Blaze it!";
+                String blazeMsg = "420 kc: " + chatName + " " + kcStr + " kc — Blaze it!";
                 client.addChatMessage(
                     ChatMessageType.GAMEMESSAGE,
                     "",
@@ -188,6 +431,42 @@ public class BossLogPlugin extends Plugin
                 );
             }
         }
+
+        @Override
+        public void onFightDuration(String bossName, long durationMillis, boolean personalBest)
+        {
+            log.debug("{} kill took {}ms{}", bossName, durationMillis, personalBest ? " (new personal best)" : "");
+            kcJournal.setLastDuration(bossName, durationMillis);
+            sessionStats.recordDuration(bossName, durationMillis);
+
+            Player local = client.getLocalPlayer();
+            if (local != null && local.getName() != null)
+            {
+                String localName = local.getName();
+                SwingUtilities.invokeLater(() -> panel.updateSessionStats(localName, bossName));
+            }
+        }
+    };
+
+    private void trackLiveKc(String bossName, int kc)
+    {
+        Player local = client.getLocalPlayer();
+        if (local == null || local.getName() == null)
+        {
+            return;
+        }
+
+        String localName = local.getName();
+        kcJournal.append(localName, bossName, kc);
+        localFeedServer.publishKc(localName, bossName, kc);
+        partyKcSync.onLocalKc(localName, bossName, kc);
+        sessionStats.recordKill(localName, bossName, kc, System.currentTimeMillis());
+        kcOverlay.update(bossName, kc, sessionStats.getStats(localName, bossName).getKills());
+        SwingUtilities.invokeLater(() ->
+        {
+            panel.applyLiveKc(localName, bossName, kc);
+            panel.updateSessionStats(localName, bossName);
+        });
     }
 
     private BufferedImage getIcon()
@@ -0,0 +1,168 @@
+package com.bosslog;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import net.runelite.client.util.Text;
+
+/**
+ * Parses boss count and fight duration game messages.
+ * Game messages are the most frequent chat type during PvM, so each one is first
+ * screened with plain String checks on the raw message (no tag stripping, no regex,
+ * no allocation); only messages that pass run the precompiled matchers.
+ * A duration and the kill count it belongs to arrive on the same game tick,
+ * in either order, and are paired here.
+ */
+public class ChatKcDispatcher
+{
+    public interface Listener
+    {
+        /**
+         * @param chatName boss name as written in chat
+         * @param bossName hiscore boss name, or null if it isn't a tracked boss
+         */
+        void onKillCount(String chatName, String bossName, int kc);
+
+        /**
+         * @param bossName hiscore boss name of the kill this duration belongs to
+         * @param personalBest true if this kill set a new personal best
+         */
+        void onFightDuration(String bossName, long durationMillis, boolean personalBest);
+    }
+
+    // "Your Vorkath kill count is: 123."
+    private static final Pattern KILL_COUNT = Pattern.compile(
+        "^Your (.+?) kill count is: ([\\d,]+)");
+    // "Your completed Chambers of Xeric count is: 12." / "Your subdued Wintertodt count is: 50."
+    private static final Pattern COMPLETED_COUNT = Pattern.compile(
+        "^Your (?:completed|subdued) (.+?) count is: ([\\d,]+)");
+    // "Your Gauntlet completion count is: 7."
+    private static final Pattern COMPLETION_COUNT = Pattern.compile(
+        "^Your (.+?) completion count is: ([\\d,]+)");
+    // "Your Barrows chest count is: 400." / "Your Lunar Chest count is: 25."
+    private static final Pattern CHEST_COUNT = Pattern.compile(
+        "^Your (.+?) [Cc]hest count is: ([\\d,]+)");
+    private static final Pattern[] COUNT_PATTERNS = {
+        KILL_COUNT, COMPLETED_COUNT, COMPLETION_COUNT, CHEST_COUNT
+    };
+
+    // "Fight duration: 1:23. Personal best: 1:10." / "Fight duration: 1:05 (new personal best)."
+    // Raids: "... Duration: 25:31.40 Personal best: 24:02.20"
+    private static final String TIME = "(\\d+(?::\\d{2}){1,2}(?:\\.\\d{1,2})?)";
+    private static final Pattern DURATION = Pattern.compile(
+        "(?:[Dd]uration|completion time): " + TIME + "(.*)");
+
+    private String lastKcBoss;
+    private int lastKcTick = -1;
+    private long pendingDuration = -1;
+    private boolean pendingPersonalBest;
+    private int pendingTick = -1;
+
+    /**
+     * Parse one game message.
+     *
+     * @param tick the client tick the message arrived on, used to pair kills with durations
+     */
+    public void dispatch(String message, int tick, Listener listener)
+    {
+        if (message.startsWith("Your ") && message.contains(" count is:"))
+        {
+            dispatchCount(Text.removeTags(message), tick, listener);
+        }
+        else if (message.contains("uration:") || message.contains("completion time:"))
+        {
+            dispatchDuration(Text.removeTags(message), tick, listener);
+        }
+    }
+
+    private void dispatchCount(String message, int tick, Listener listener)
+    {
+        for (Pattern pattern : COUNT_PATTERNS)
+        {
+            Matcher matcher = pattern.matcher(message);
+            if (!matcher.find())
+            {
+                continue;
+            }
+
+            int kc;
+            try
+            {
+                kc = Integer.parseInt(matcher.group(2).replace(",", ""));
+            }
+            catch (NumberFormatException e)
+            {
+                return;
+            }
+
+            String chatName = matcher.group(1);
+            String bossName = HiscoreService.resolveBossName(chatName);
+            listener.onKillCount(chatName, bossName, kc);
+
+            lastKcBoss = bossName;
+            lastKcTick = tick;
+            if (bossName != null && pendingTick == tick && pendingDuration >= 0)
+            {
+                listener.onFightDuration(bossName, pendingDuration, pendingPersonalBest);
+            }
+            pendingDuration = -1;
+            return;
+        }
+    }
+
+    private void dispatchDuration(String message, int tick, Listener listener)
+    {
+        Matcher matcher = DURATION.matcher(message);
+        if (!matcher.find())
+        {
+            return;
+        }
+
+        long millis = parseTime(matcher.group(1));
+        if (millis < 0)
+        {
+            return;
+        }
+        boolean personalBest = matcher.group(2).contains("new personal best");
+
+        if (lastKcTick == tick && lastKcBoss != null)
+        {
+            listener.onFightDuration(lastKcBoss, millis, personalBest);
+        }
+        else
+        {
+            // Kill count message hasn't arrived yet this tick
+            pendingDuration = millis;
+            pendingPersonalBest = personalBest;
+            pendingTick = tick;
+        }
+    }
+
+    /**
+     * Parse "m:ss", "h:mm:ss" or either with ".cc" hundredths into milliseconds.
+     */
+    static long parseTime(String time)
+    {
+        try
+        {
+            long millis = 0;
+            int dot = time.indexOf('.');
+            String whole = dot >= 0 ? time.substring(0, dot) : time;
+            if (dot >= 0)
+            {
+                String frac = time.substring(dot + 1);
+                millis = Integer.parseInt(frac) * (frac.length() == 1 ? 100 : 10);
+            }
+
+            long seconds = 0;
+            for (String part : whole.split(":"))
+            {
+                seconds = seconds * 60 + Integer.parseInt(part);
+            }
+            return seconds * 1000 + millis;
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.bosslog;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-host circuit breaker. After repeated 429/5xx/timeouts a host is
+ * considered down and requests fail fast until the cooldown passes;
+ * then a single probe request decides whether to close the circuit again.
+ */
+@Slf4j
+@Singleton
+public class CircuitBreaker
+{
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final long PROBE_TIMEOUT_MS = 30_000;
+
+    private enum State
+    {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final BossLogConfig config;
+    private final Map<String, Circuit> circuits = new HashMap<>();
+
+    @Inject
+    public CircuitBreaker(BossLogConfig config)
+    {
+        this.config = config;
+    }
+
+    /**
+     * @return true if a request to this host may be sent now
+     */
+    public synchronized boolean allowRequest(String host)
+    {
+        Circuit circuit = circuits.get(host);
+        if (circuit == null || circuit.state == State.CLOSED)
+        {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= circuit.openUntil)
+        {
+            // Let exactly one probe through; re-probe if it never reports back
+            circuit.state = State.HALF_OPEN;
+            circuit.openUntil = now + PROBE_TIMEOUT_MS;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void record(String host, FetchOutcome outcome)
+    {
+        Circuit circuit = circuits.computeIfAbsent(host, h -> new Circuit());
+        switch (outcome.getStatus())
+        {
+            case RATE_LIMITED:
+            case SERVER_ERROR:
+            case TIMEOUT:
+            case NETWORK_ERROR:
+                circuit.failures++;
+                if (circuit.state == State.HALF_OPEN || circuit.failures >= FAILURE_THRESHOLD)
+                {
+                    long cooldown = Math.max(config.circuitBreakerCooldown() * 1000L, outcome.getRetryAfterMillis());
+                    circuit.state = State.OPEN;
+                    circuit.openUntil = System.currentTimeMillis() + cooldown;
+                    log.debug("Circuit open for {} for {}ms after {}", host, cooldown, outcome);
+                }
+                break;
+            default:
+                if (circuit.state != State.CLOSED)
+                {
+                    log.debug("Circuit closed for {}", host);
+                }
+                circuit.state = State.CLOSED;
+                circuit.failures = 0;
+                break;
+        }
+    }
+
+    private static class Circuit
+    {
+        private State state = State.CLOSED;
+        private int failures;
+        private long openUntil;
+    }
+}
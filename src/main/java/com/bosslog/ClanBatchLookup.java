@@ -0,0 +1,303 @@
+package com.bosslog;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+import net.runelite.client.util.Text;
+
+/**
+ * Looks up boss KCs for every member of a clan, a couple of players at a time
+ * at background priority, so the per-host rate limit paces the batch.
+ * Each finished member is appended to a per-clan file as one JSON line, so a
+ * batch stopped by a restart resumes with the members it hadn't reached.
+ */
+@Slf4j
+@Singleton
+public class ClanBatchLookup
+{
+    private static final File CLAN_DIR = new File(new File(RuneLite.RUNELITE_DIR, "420kc"), "clans");
+    private static final Gson GSON = new Gson();
+    private static final int CONCURRENCY = 2;
+
+    public interface Listener
+    {
+        /**
+         * A member's KCs arrived. Called on a background thread.
+         */
+        void onRow(Row row);
+
+        /**
+         * The batch finished or was stopped. Called on a background thread.
+         *
+         * @param failed members whose lookup failed; a resume retries them
+         */
+        void onFinished(int done, int failed, int total);
+    }
+
+    /**
+     * One clan member's hiscore boss KCs. {@code kc} is empty if they aren't on the hiscores.
+     */
+    public static class Row
+    {
+        private final String name;
+        private final Map<String, Integer> kc;
+
+        Row(String name, Map<String, Integer> kc)
+        {
+            this.name = name;
+            this.kc = kc;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public int getKc(String bossName)
+        {
+            return kc.getOrDefault(bossName, -1);
+        }
+    }
+
+    private final HiscoreService hiscoreService;
+
+    private final Deque<String> remaining = new ArrayDeque<>();
+    private final List<CompletableFuture<HiscoreResult>> inFlight = new ArrayList<>();
+    private File file;
+    private Listener listener;
+    private int total;
+    private int done;
+    private int failed;
+    private boolean running;
+
+    @Inject
+    public ClanBatchLookup(HiscoreService hiscoreService)
+    {
+        this.hiscoreService = hiscoreService;
+    }
+
+    /**
+     * Load the saved rows of a clan's current members, from earlier runs or an
+     * interrupted one. Rows of members who have since left are skipped.
+     * Blocks on disk I/O; call off the EDT.
+     */
+    public List<Row> loadRows(String clanName, List<String> members)
+    {
+        File clanFile = fileFor(clanName);
+        if (!clanFile.exists())
+        {
+            return new ArrayList<>();
+        }
+
+        Map<String, Row> rows = new LinkedHashMap<>();
+        for (String member : members)
+        {
+            rows.put(Text.standardize(member), null);
+        }
+        try (BufferedReader reader = Files.newBufferedReader(clanFile.toPath(), StandardCharsets.UTF_8))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                try
+                {
+                    Row row = GSON.fromJson(line, Row.class);
+                    if (row != null && row.name != null && row.kc != null
+                        && rows.containsKey(Text.standardize(row.name)))
+                    {
+                        rows.put(Text.standardize(row.name), row);
+                    }
+                }
+                catch (JsonSyntaxException e)
+                {
+                    // A line cut short by a crash; that member is looked up again
+                    log.debug("Skipping bad clan row: {}", e.getMessage());
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to read clan rows", e);
+        }
+
+        List<Row> loaded = new ArrayList<>();
+        for (Row row : rows.values())
+        {
+            if (row != null)
+            {
+                loaded.add(row);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Look up every member who doesn't already have a saved row.
+     *
+     * @param saved the rows from {@link #loadRows}, empty when restarting
+     * @param restart discard saved rows and look everyone up again
+     */
+    public synchronized void start(String clanName, List<String> members, List<Row> saved, boolean restart,
+                                   Listener listener)
+    {
+        stop();
+
+        file = fileFor(clanName);
+        if (restart && file.exists() && !file.delete())
+        {
+            log.warn("Unable to delete {}", file);
+        }
+
+        Map<String, String> todo = new LinkedHashMap<>();
+        for (String member : members)
+        {
+            todo.put(Text.standardize(member), member);
+        }
+        for (Row row : saved)
+        {
+            todo.remove(Text.standardize(row.name));
+        }
+
+        this.listener = listener;
+        remaining.clear();
+        remaining.addAll(todo.values());
+        total = members.size();
+        done = total - remaining.size();
+        failed = 0;
+        running = true;
+        log.debug("Clan batch for {}: {} of {} members left", clanName, remaining.size(), total);
+
+        for (int i = 0; i < CONCURRENCY; i++)
+        {
+            next();
+        }
+    }
+
+    public synchronized void stop()
+    {
+        if (!running)
+        {
+            return;
+        }
+        running = false;
+        remaining.clear();
+        new ArrayList<>(inFlight).forEach(f -> f.cancel(false));
+        inFlight.clear();
+        listener.onFinished(done, failed, total);
+    }
+
+    public synchronized boolean isRunning()
+    {
+        return running;
+    }
+
+    private void next()
+    {
+        if (!running)
+        {
+            return;
+        }
+        if (remaining.isEmpty())
+        {
+            if (inFlight.isEmpty())
+            {
+                running = false;
+                listener.onFinished(done, failed, total);
+            }
+            return;
+        }
+
+        String member = remaining.pollFirst();
+        CompletableFuture<HiscoreResult> future = hiscoreService.lookup(member, RequestScheduler.Priority.BACKGROUND);
+        inFlight.add(future);
+        future.whenComplete((result, ex) ->
+        {
+            File target;
+            synchronized (this)
+            {
+                if (!inFlight.contains(future))
+                {
+                    // Stopped while in flight
+                    return;
+                }
+                target = file;
+            }
+            // Written outside the lock, so a slow disk doesn't hold up the other lookup
+            Row row = ex == null ? new Row(member, result != null ? result.getBossKills() : new HashMap<>()) : null;
+            if (row != null)
+            {
+                save(target, row);
+            }
+
+            synchronized (this)
+            {
+                if (!inFlight.remove(future))
+                {
+                    return;
+                }
+                if (row != null)
+                {
+                    done++;
+                    listener.onRow(row);
+                }
+                else
+                {
+                    // Not saved, so a later resume retries this member
+                    log.debug("Clan lookup failed for {}: {}", member, ex.getMessage());
+                    Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                    if (cause instanceof FetchException
+                        && ((FetchException) cause).getStatus() == FetchOutcome.Status.THROTTLED)
+                    {
+                        // Hiscores are refusing requests; pause rather than fail every member
+                        stop();
+                        return;
+                    }
+                    failed++;
+                }
+                next();
+            }
+        });
+    }
+
+    private static synchronized void save(File target, Row row)
+    {
+        try
+        {
+            Files.createDirectories(CLAN_DIR.toPath());
+            try (BufferedWriter writer = Files.newBufferedWriter(target.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))
+            {
+                writer.write(GSON.toJson(row));
+                writer.newLine();
+            }
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to save clan row", e);
+        }
+    }
+
+    private static File fileFor(String clanName)
+    {
+        return new File(CLAN_DIR, Text.standardize(clanName).replaceAll("[^a-z0-9]+", "_") + ".jsonl");
+    }
+}
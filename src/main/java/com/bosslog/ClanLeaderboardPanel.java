@@ -0,0 +1,253 @@
+package com.bosslog;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.GridLayout;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Inject;
+import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.border.EmptyBorder;
+import net.runelite.api.Client;
+import net.runelite.api.clan.ClanSettings;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+import net.runelite.client.util.Text;
+
+/**
+ * Clan tab: looks up every clan member and ranks them by how close each
+ * boss KC is to 420. Rows stream in as lookups finish.
+ */
+public class ClanLeaderboardPanel extends JPanel
+{
+    private static final Color GREEN = new Color(76, 175, 110);
+    private static final Color TEXT_DIM = new Color(160, 200, 160);
+    private static final int MAX_ROWS = 25;
+
+    private final Client client;
+    private final ClientThread clientThread;
+    private final ClanBatchLookup batchLookup;
+    private final ScheduledExecutorService executor;
+
+    private final JButton startButton = new JButton("Look up clan");
+    private final JButton restartButton = new JButton("Refresh all");
+    private final JLabel progressLabel = new JLabel(" ");
+    private final JComboBox<String> bossSelect = new JComboBox<>();
+    private final JPanel rowsPanel = new JPanel(new GridLayout(0, 1, 0, 2));
+
+    // Standardized name -> latest row; EDT only
+    private final Map<String, ClanBatchLookup.Row> rows = new LinkedHashMap<>();
+    // Bumped per batch, so callbacks from a replaced batch are ignored
+    private int batchVersion;
+
+    @Inject
+    public ClanLeaderboardPanel(Client client, ClientThread clientThread, ClanBatchLookup batchLookup,
+                                ScheduledExecutorService executor)
+    {
+        this.client = client;
+        this.clientThread = clientThread;
+        this.batchLookup = batchLookup;
+        this.executor = executor;
+
+        setLayout(new BorderLayout());
+        setBackground(ColorScheme.DARK_GRAY_COLOR);
+        setBorder(new EmptyBorder(5, 10, 10, 10));
+
+        JPanel controls = new JPanel();
+        controls.setLayout(new BoxLayout(controls, BoxLayout.Y_AXIS));
+        controls.setBackground(ColorScheme.DARK_GRAY_COLOR);
+
+        JPanel buttons = new JPanel(new GridLayout(1, 2, 5, 0));
+        buttons.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        styleButton(startButton);
+        styleButton(restartButton);
+        startButton.addActionListener(e -> onStart(false));
+        restartButton.addActionListener(e -> onStart(true));
+        buttons.add(startButton);
+        buttons.add(restartButton);
+        controls.add(buttons);
+
+        for (String boss : HiscoreService.bossNames())
+        {
+            bossSelect.addItem(boss);
+        }
+        bossSelect.addActionListener(e -> rebuildRows());
+        controls.add(bossSelect);
+
+        progressLabel.setFont(FontManager.getRunescapeSmallFont());
+        progressLabel.setForeground(TEXT_DIM);
+        controls.add(progressLabel);
+
+        rowsPanel.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        add(controls, BorderLayout.NORTH);
+        add(rowsPanel, BorderLayout.CENTER);
+    }
+
+    private static void styleButton(JButton button)
+    {
+        button.setBackground(Color.BLACK);
+        button.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        button.setBorder(BorderFactory.createLineBorder(ColorScheme.MEDIUM_GRAY_COLOR, 2));
+        button.setFocusPainted(false);
+    }
+
+    private void onStart(boolean restart)
+    {
+        if (batchLookup.isRunning() && !restart)
+        {
+            batchLookup.stop();
+            return;
+        }
+
+        // Clan membership lives in the client; read it on the client thread
+        clientThread.invoke(() ->
+        {
+            ClanSettings settings = client.getClanSettings();
+            List<String> members = NameIndex.getClanMembers(client);
+            String name = settings != null ? settings.getName() : null;
+            SwingUtilities.invokeLater(() -> start(name, members, restart));
+        });
+    }
+
+    private void start(String name, List<String> members, boolean restart)
+    {
+        if (name == null || members.isEmpty())
+        {
+            progressLabel.setText("Not in a clan");
+            return;
+        }
+
+        final int thisBatch = ++batchVersion;
+        rows.clear();
+        rebuildRows();
+        startButton.setText("Stop");
+        progressLabel.setText(name + ": loading");
+
+        // Saved rows are read from disk once, off the EDT, and handed to the batch
+        executor.execute(() ->
+        {
+            List<ClanBatchLookup.Row> saved = restart ? new ArrayList<>() : batchLookup.loadRows(name, members);
+            SwingUtilities.invokeLater(() ->
+            {
+                if (thisBatch == batchVersion)
+                {
+                    startBatch(thisBatch, name, members, saved, restart);
+                }
+            });
+        });
+    }
+
+    private void startBatch(int thisBatch, String name, List<String> members, List<ClanBatchLookup.Row> saved,
+                            boolean restart)
+    {
+        for (ClanBatchLookup.Row row : saved)
+        {
+            rows.put(Text.standardize(row.getName()), row);
+        }
+        rebuildRows();
+
+        progressLabel.setText(name + ": " + rows.size() + " / " + members.size());
+        final int memberCount = members.size();
+        batchLookup.start(name, members, saved, restart, new ClanBatchLookup.Listener()
+        {
+            @Override
+            public void onRow(ClanBatchLookup.Row row)
+            {
+                SwingUtilities.invokeLater(() ->
+                {
+                    if (thisBatch != batchVersion)
+                    {
+                        return;
+                    }
+                    rows.put(Text.standardize(row.getName()), row);
+                    progressLabel.setText(name + ": " + rows.size() + " / " + memberCount);
+                    rebuildRows();
+                });
+            }
+
+            @Override
+            public void onFinished(int done, int failed, int total)
+            {
+                SwingUtilities.invokeLater(() ->
+                {
+                    if (thisBatch != batchVersion)
+                    {
+                        return;
+                    }
+                    // Failed members have no saved row, so resuming looks them up again
+                    startButton.setText(failed > 0 ? failed + " failed \u2014 Resume"
+                        : done < total ? "Resume" : "Look up clan");
+                    progressLabel.setText(name + ": " + done + " / " + total
+                        + (done + failed < total ? " (paused)" : ""));
+                });
+            }
+        });
+    }
+
+    /**
+     * Show the members at or closest to 420 KC for the selected boss.
+     */
+    private void rebuildRows()
+    {
+        String boss = (String) bossSelect.getSelectedItem();
+        rowsPanel.removeAll();
+        if (boss != null)
+        {
+            List<ClanBatchLookup.Row> ranked = new ArrayList<>();
+            for (ClanBatchLookup.Row row : rows.values())
+            {
+                if (row.getKc(boss) > 0)
+                {
+                    ranked.add(row);
+                }
+            }
+            ranked.sort(Comparator.<ClanBatchLookup.Row>comparingInt(r -> Math.abs(r.getKc(boss) - 420))
+                .thenComparing(ClanBatchLookup.Row::getName));
+
+            for (int i = 0; i < ranked.size() && i < MAX_ROWS; i++)
+            {
+                rowsPanel.add(makeRow(ranked.get(i), boss));
+            }
+        }
+        rowsPanel.revalidate();
+        rowsPanel.repaint();
+    }
+
+    private static JPanel makeRow(ClanBatchLookup.Row row, String boss)
+    {
+        int kc = row.getKc(boss);
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        panel.setBorder(new EmptyBorder(2, 5, 2, 5));
+
+        JLabel name = new JLabel(row.getName());
+        name.setFont(FontManager.getRunescapeSmallFont());
+        name.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+
+        JLabel count = new JLabel(kc == 420 ? "420 — Blaze it!" : kc + " kc");
+        count.setFont(FontManager.getRunescapeSmallFont());
+        count.setForeground(kc == 420 ? GREEN : TEXT_DIM);
+
+        panel.add(name, BorderLayout.WEST);
+        panel.add(count, BorderLayout.EAST);
+        return panel;
+    }
+
+    public void shutdown()
+    {
+        // A batch still loading its saved rows never starts
+        batchVersion++;
+        batchLookup.stop();
+    }
+}
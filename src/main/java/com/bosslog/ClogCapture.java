@@ -0,0 +1,439 @@
+package com.bosslog;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.Player;
+import net.runelite.api.events.ScriptPreFired;
+import net.runelite.api.widgets.Widget;
+import net.runelite.client.RuneLite;
+import net.runelite.client.util.Text;
+
+/**
+ * The local player's collection log, read from the in-game interface as pages
+ * are opened. Each page is merged into a snapshot on disk under
+ * ~/.runelite/420kc/clog, on top of the last TempleOSRS result, so our own
+ * account's log needs no TempleOSRS sync. Each page remembers when it was last
+ * seen, and only pages seen since the last TempleOSRS fetch override it; those
+ * categories need no download at all. The base keeps only what the player has
+ * obtained; {@link ClogService} fills in the rest of each category on the way out.
+ */
+@Slf4j
+@Singleton
+public class ClogCapture
+{
+    private static final File STORE_DIR = new File(new File(RuneLite.RUNELITE_DIR, "420kc"), "clog");
+    private static final Gson GSON = new Gson();
+
+    // Fired once per item slot while a collection log page is drawn: args are (slot, item id, quantity)
+    private static final int DRAW_ITEM_SCRIPT = 4100;
+    private static final int COLLECTION_LOG_GROUP = 621;
+    private static final int ENTRY_HEADER_CHILD = 19;
+
+    private final Client client;
+    private final BossLogConfig config;
+    private final ScheduledExecutorService executor;
+
+    // Page being drawn (client thread only); item id -> quantity, 0 if not obtained
+    private String pendingTitle;
+    private final Map<Integer, Integer> pendingItems = new LinkedHashMap<>();
+
+    // Standardized name of the player whose snapshot is loaded or loading
+    private String loadedPlayer;
+    private Snapshot snapshot;
+
+    /**
+     * What is stored per player. Pages seen after the base was fetched replace
+     * the same category of the base.
+     */
+    private static class Snapshot
+    {
+        private String player;
+        private ClogResult base;
+        private long baseAt;
+        private Map<String, Map<Integer, Integer>> pages = new LinkedHashMap<>();
+        // Category -> when its page was last seen in-game
+        private Map<String, Long> pageTimes = new LinkedHashMap<>();
+
+        /**
+         * Pages seen after the base was fetched.
+         */
+        Map<String, Map<Integer, Integer>> freshPages()
+        {
+            Map<String, Map<Integer, Integer>> fresh = new LinkedHashMap<>();
+            for (Map.Entry<String, Map<Integer, Integer>> page : pages.entrySet())
+            {
+                if (pageTimes.getOrDefault(page.getKey(), 0L) > baseAt)
+                {
+                    fresh.put(page.getKey(), page.getValue());
+                }
+            }
+            return fresh;
+        }
+    }
+
+    @Inject
+    public ClogCapture(Client client, BossLogConfig config, ScheduledExecutorService executor)
+    {
+        this.client = client;
+        this.config = config;
+        this.executor = executor;
+    }
+
+    /**
+     * Collect an item slot of the page being drawn. Client thread.
+     */
+    public void onScriptPreFired(ScriptPreFired event)
+    {
+        if (event.getScriptId() != DRAW_ITEM_SCRIPT || !config.showCollectionLog())
+        {
+            return;
+        }
+        String title = pageTitle();
+        if (title == null)
+        {
+            // Search results and other views without a single category
+            return;
+        }
+        if (!title.equals(pendingTitle))
+        {
+            flush();
+            pendingTitle = title;
+        }
+
+        Object[] args = event.getScriptEvent().getArguments();
+        if (args.length > 2 && args[1] instanceof Integer && args[2] instanceof Integer)
+        {
+            pendingItems.put((Integer) args[1], (Integer) args[2]);
+        }
+    }
+
+    /**
+     * Store the page drawn this tick, and load the snapshot for whoever is logged in. Client thread.
+     */
+    public void onGameTick()
+    {
+        flush();
+
+        Player local = client.getLocalPlayer();
+        if (local == null || local.getName() == null)
+        {
+            return;
+        }
+        String name = local.getName();
+        synchronized (this)
+        {
+            if (Text.standardize(name).equals(loadedPlayer))
+            {
+                return;
+            }
+            loadedPlayer = Text.standardize(name);
+            snapshot = null;
+        }
+        executor.execute(() ->
+        {
+            Snapshot loaded = load(name);
+            synchronized (this)
+            {
+                // Pages captured while loading go on top of what was on disk
+                if (Text.standardize(name).equals(loadedPlayer))
+                {
+                    snapshot = snapshot != null ? merge(loaded, snapshot) : loaded;
+                }
+            }
+        });
+    }
+
+    /**
+     * The captured log for a player, if every category's page has been seen in-game
+     * since the last TempleOSRS result it is based on; null means fetch from
+     * TempleOSRS instead.
+     */
+    public synchronized ClogResult getIfFresher(String player)
+    {
+        Snapshot s = snapshotFor(player);
+        if (s == null || s.base == null || s.base.getObtainedItems().isEmpty())
+        {
+            return null;
+        }
+        Map<String, Map<Integer, Integer>> fresh = s.freshPages();
+        if (!fresh.keySet().containsAll(s.base.getObtainedItems().keySet()))
+        {
+            return null;
+        }
+        return toResult(s.base, fresh);
+    }
+
+    /**
+     * Categories whose page has been seen in-game since the player's last
+     * TempleOSRS result; {@link #overlay} supplies these, so they needn't be fetched.
+     */
+    public synchronized Set<String> getFreshCategories(String player)
+    {
+        Snapshot s = snapshotFor(player);
+        return s == null ? Collections.emptySet() : new HashSet<>(s.freshPages().keySet());
+    }
+
+    /**
+     * Take a TempleOSRS result as the new base for a player's snapshot.
+     *
+     * @return the result with pages seen since on top, or {@code result} unchanged
+     *         for players with nothing captured
+     */
+    public ClogResult rebase(String player, ClogResult result)
+    {
+        ClogResult merged;
+        Snapshot s;
+        synchronized (this)
+        {
+            s = snapshotFor(player);
+            if (s == null)
+            {
+                return result;
+            }
+            if (result != null)
+            {
+                s.base = result.slim();
+                s.baseAt = System.currentTimeMillis();
+            }
+            Map<String, Map<Integer, Integer>> fresh = s.freshPages();
+            merged = s.base != null || !fresh.isEmpty() ? toResult(s.base, fresh) : null;
+        }
+        if (result != null)
+        {
+            executor.execute(() -> save(s));
+        }
+        return merged;
+    }
+
+    /**
+     * A partial TempleOSRS result with the pages seen since the snapshot's base on
+     * top, without making it the snapshot's base.
+     */
+    public synchronized ClogResult overlay(String player, ClogResult result)
+    {
+        Snapshot s = snapshotFor(player);
+        Map<String, Map<Integer, Integer>> fresh = s != null ? s.freshPages() : Collections.emptyMap();
+        if (fresh.isEmpty())
+        {
+            return result;
+        }
+        return toResult(result, fresh);
+    }
+
+    public synchronized void reset()
+    {
+        pendingTitle = null;
+        pendingItems.clear();
+        loadedPlayer = null;
+        snapshot = null;
+    }
+
+    private String pageTitle()
+    {
+        Widget header = client.getWidget(COLLECTION_LOG_GROUP, ENTRY_HEADER_CHILD);
+        if (header == null || header.isHidden())
+        {
+            return null;
+        }
+        Widget[] children = header.getDynamicChildren();
+        if (children == null || children.length == 0 || children[0].getText() == null)
+        {
+            return null;
+        }
+        String title = Text.removeTags(children[0].getText()).trim();
+        return title.isEmpty() ? null : title;
+    }
+
+    private void flush()
+    {
+        if (pendingTitle == null || pendingItems.isEmpty())
+        {
+            pendingTitle = null;
+            return;
+        }
+        Player local = client.getLocalPlayer();
+        String category = ClogService.pageToCategory(pendingTitle);
+        Map<Integer, Integer> items = new LinkedHashMap<>(pendingItems);
+        pendingTitle = null;
+        pendingItems.clear();
+        if (local == null || local.getName() == null)
+        {
+            return;
+        }
+
+        String name = local.getName();
+        Snapshot s;
+        synchronized (this)
+        {
+            if (!Text.standardize(name).equals(loadedPlayer))
+            {
+                // Logged in this tick; onGameTick loads the snapshot first
+                return;
+            }
+            if (snapshot == null)
+            {
+                snapshot = new Snapshot();
+                snapshot.player = name;
+            }
+            // Seen now even if unchanged: the page is current as of this view
+            if (!items.equals(snapshot.pages.put(category, items)))
+            {
+                log.debug("Captured collection log page {} ({} items)", category, items.size());
+            }
+            snapshot.pageTimes.put(category, System.currentTimeMillis());
+            s = snapshot;
+        }
+        executor.execute(() -> save(s));
+    }
+
+    private Snapshot snapshotFor(String player)
+    {
+        return snapshot != null && Text.standardize(player).equals(loadedPlayer) ? snapshot : null;
+    }
+
+    /**
+     * The base result with each given page replacing its category.
+     */
+    private static ClogResult toResult(ClogResult base, Map<String, Map<Integer, Integer>> pages)
+    {
+        Map<String, List<ClogResult.ClogItem>> obtained = new HashMap<>();
+        Map<String, List<Integer>> categories = new HashMap<>();
+        Map<Integer, String> names = new HashMap<>();
+        if (base != null)
+        {
+            obtained.putAll(base.getObtainedItems());
+            categories.putAll(base.getCategoryItems());
+            names.putAll(base.getItemNames());
+        }
+
+        for (Map.Entry<String, Map<Integer, Integer>> page : pages.entrySet())
+        {
+            List<ClogResult.ClogItem> pageObtained = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> item : page.getValue().entrySet())
+            {
+                if (item.getValue() > 0)
+                {
+                    pageObtained.add(new ClogResult.ClogItem(item.getKey(), item.getValue()));
+                }
+            }
+            obtained.put(page.getKey(), pageObtained);
+            categories.put(page.getKey(), new ArrayList<>(page.getValue().keySet()));
+        }
+        return new ClogResult(obtained, categories, names);
+    }
+
+    /**
+     * The more recently seen of each page, keeping whichever base is more recent.
+     */
+    private static Snapshot merge(Snapshot older, Snapshot newer)
+    {
+        if (older == null)
+        {
+            return newer;
+        }
+        for (Map.Entry<String, Map<Integer, Integer>> page : newer.pages.entrySet())
+        {
+            long seen = newer.pageTimes.getOrDefault(page.getKey(), 0L);
+            if (seen >= older.pageTimes.getOrDefault(page.getKey(), 0L))
+            {
+                older.pages.put(page.getKey(), page.getValue());
+                older.pageTimes.put(page.getKey(), seen);
+            }
+        }
+        if (newer.baseAt > older.baseAt)
+        {
+            older.base = newer.base;
+            older.baseAt = newer.baseAt;
+        }
+        return older;
+    }
+
+    /**
+     * Blocks on disk I/O; call off the client thread and EDT.
+     */
+    private static synchronized Snapshot load(String player)
+    {
+        File file = new File(STORE_DIR, fileName(player));
+        if (!file.exists())
+        {
+            return null;
+        }
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(file)),
+            StandardCharsets.UTF_8))
+        {
+            return GSON.fromJson(reader, Snapshot.class);
+        }
+        catch (IOException | JsonParseException e)
+        {
+            log.debug("Unable to read collection log snapshot for {}: {}", player, e.getMessage());
+            return null;
+        }
+    }
+
+    private void save(Snapshot s)
+    {
+        String json;
+        synchronized (this)
+        {
+            json = GSON.toJson(s);
+        }
+        writeFile(fileName(s.player), json);
+    }
+
+    private static synchronized void writeFile(String name, String json)
+    {
+        File file = new File(STORE_DIR, name);
+        File tmp = new File(STORE_DIR, name + ".tmp");
+        try
+        {
+            if (!STORE_DIR.isDirectory() && !STORE_DIR.mkdirs())
+            {
+                throw new IOException("Could not create " + STORE_DIR);
+            }
+            try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(tmp)),
+                StandardCharsets.UTF_8))
+            {
+                writer.write(json);
+            }
+            // Replace in one step so a crash never leaves a half-written file
+            if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file)))
+            {
+                throw new IOException("Could not replace " + file);
+            }
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to save collection log snapshot", e);
+            tmp.delete();
+        }
+    }
+
+    private static String fileName(String player)
+    {
+        return Text.standardize(player).replaceAll("[^a-z0-9-]+", "_") + ".json.gz";
+    }
+}
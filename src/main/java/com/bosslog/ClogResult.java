@@ -1,11 +1,14 @@
 package com.bosslog;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Parsed collection log data for a player from TempleOSRS.
+ * Parsed collection log data for a player from TempleOSRS, or captured
+ * in-game by {@link ClogCapture}.
  */
 public class ClogResult
 {
@@ -36,6 +39,52 @@ public class ClogResult
         return categoryItems;
     }
 
+    /**
+     * This result with {@code other}'s categories added, replacing any it shares.
+     */
+    ClogResult merge(ClogResult other)
+    {
+        Map<String, List<ClogItem>> obtained = new HashMap<>(obtainedItems);
+        obtained.putAll(other.obtainedItems);
+        Map<String, List<Integer>> categories = new HashMap<>(categoryItems);
+        categories.putAll(other.categoryItems);
+        Map<Integer, String> names = new HashMap<>(itemNames);
+        names.putAll(other.itemNames);
+        return new ClogResult(obtained, categories, names);
+    }
+
+    /**
+     * This result without what {@link ClogService#withReferenceData} can rebuild,
+     * for storing: the item lists of categories and the names of items not obtained.
+     * Every category stays in the obtained items, empty if nothing was obtained.
+     */
+    ClogResult slim()
+    {
+        Map<String, List<ClogItem>> obtained = new HashMap<>(obtainedItems);
+        Map<Integer, String> names = new HashMap<>();
+        for (String category : categoryItems.keySet())
+        {
+            obtained.putIfAbsent(category, Collections.emptyList());
+        }
+        for (List<ClogItem> items : obtainedItems.values())
+        {
+            for (ClogItem item : items)
+            {
+                String name = itemNames.get(item.getId());
+                if (name != null)
+                {
+                    names.put(item.getId(), name);
+                }
+            }
+        }
+        return new ClogResult(obtained, new HashMap<>(), names);
+    }
+
+    Map<Integer, String> getItemNames()
+    {
+        return itemNames;
+    }
+
     public String getItemName(int id)
     {
         return itemNames.getOrDefault(id, "Item #" + id);
@@ -5,29 +5,28 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
-import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
-import okhttp3.ResponseBody;
+import net.runelite.client.util.Text;
 
 /**
  * Fetches collection log data from TempleOSRS and item names from OSRS Wiki.
- * Caches category definitions and item names (loaded once, reused across lookups).
+ * Caches category definitions and item names (loaded once, reused across lookups),
+ * and each player's obtained items per category for a few minutes.
  */
 @Slf4j
 @Singleton
@@ -42,6 +41,10 @@ public class ClogService
 
     private static final Gson GSON = new Gson();
 
+    private static final int CATEGORIES_PER_REQUEST = 10;
+    private static final long CATEGORY_TTL_MS = 5 * 60_000;
+    private static final int MAX_CACHED_CATEGORIES = 2000;
+
     // Boss name -> TempleOSRS category key overrides
     private static final Map<String, String> BOSS_CATEGORY_OVERRIDES = new LinkedHashMap<>();
     static
@@ -80,16 +83,38 @@ public class ClogService
         BOSS_CATEGORY_OVERRIDES.put("Lunar Chests", "moons_of_peril");
     }
 
-    private final OkHttpClient httpClient;
+    private final HttpFetcher httpFetcher;
+    private final ParseExecutor parseExecutor;
+    private final BossLogConfig config;
+    private final ClogCapture clogCapture;
+
+    // Time-to-first-byte of whole-log requests, drives request hedging. Requests for a
+    // few categories answer much faster, so they are tracked apart to keep the percentile honest.
+    private final LatencyTracker playerClogLatency = new LatencyTracker();
+    private final LatencyTracker categoryClogLatency = new LatencyTracker();
 
     // Cached data (loaded once per session)
     private volatile Map<String, List<Integer>> cachedCategories;
     private volatile Map<Integer, String> cachedItemNames;
 
+    // "player|category" -> obtained items, least recently used first
+    private final Map<String, CachedCategory> categoryCache = new LinkedHashMap<String, CachedCategory>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedCategory> eldest)
+        {
+            return size() > MAX_CACHED_CATEGORIES;
+        }
+    };
+
     @Inject
-    public ClogService(OkHttpClient httpClient)
+    public ClogService(HttpFetcher httpFetcher, ParseExecutor parseExecutor, BossLogConfig config,
+                       ClogCapture clogCapture)
     {
-        this.httpClient = httpClient;
+        this.httpFetcher = httpFetcher;
+        this.parseExecutor = parseExecutor;
+        this.config = config;
+        this.clogCapture = clogCapture;
     }
 
     /**
@@ -106,22 +131,75 @@ public class ClogService
         return bossName.toLowerCase().replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
     }
 
+    /**
+     * Collection log categories of the bosses a player has KC in.
+     */
+    public static Set<String> killedCategories(HiscoreResult result)
+    {
+        Set<String> categories = new LinkedHashSet<>();
+        for (String boss : HiscoreService.bossNames())
+        {
+            if (result.getKc(boss) > 0)
+            {
+                categories.add(bossToCategory(boss));
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Convert an in-game collection log page title to its TempleOSRS category key.
+     */
+    public static String pageToCategory(String title)
+    {
+        for (Map.Entry<String, String> override : BOSS_CATEGORY_OVERRIDES.entrySet())
+        {
+            if (override.getKey().equalsIgnoreCase(title))
+            {
+                return override.getValue();
+            }
+        }
+        // TempleOSRS keys drop apostrophes: "Vet'ion and Calvar'ion" -> vetion_and_calvarion
+        return bossToCategory(title.replace("'", ""));
+    }
+
     /**
      * Look up collection log data for a player.
      * Fires 3 requests in parallel: player clog, categories (cached), item names (cached).
+     * The local player's log is served from {@link ClogCapture} when every page has been
+     * opened in-game since the last fetch, and otherwise has pages opened since merged in.
+     * Resolves to null if the player has no synced log; completes exceptionally
+     * with a {@link FetchException} if TempleOSRS could not be reached.
      */
     public CompletableFuture<ClogResult> lookup(String playerName)
     {
+        return lookup(playerName, RequestScheduler.Priority.INTERACTIVE);
+    }
+
+    public CompletableFuture<ClogResult> lookup(String playerName, RequestScheduler.Priority priority)
+    {
+        return lookup(playerName, new RequestScheduler.Ticket(priority));
+    }
+
+    public CompletableFuture<ClogResult> lookup(String playerName, RequestScheduler.Ticket ticket)
+    {
+        ClogResult captured = clogCapture.getIfFresher(playerName);
+        if (captured != null)
+        {
+            return CompletableFuture.completedFuture(withReferenceData(captured));
+        }
+
         String encoded = URLEncoder.encode(playerName, StandardCharsets.UTF_8);
 
         CompletableFuture<Map<String, List<ClogResult.ClogItem>>> playerFuture =
-            fetchPlayerClog(encoded);
+            fetchPlayerClog(encoded, "all", ticket);
         CompletableFuture<Map<String, List<Integer>>> categoriesFuture =
-            fetchCategories();
+            fetchCategories(ticket);
         CompletableFuture<Map<Integer, String>> namesFuture =
-            fetchItemNames();
+            fetchItemNames(ticket);
 
-        return CompletableFuture.allOf(playerFuture, categoriesFuture, namesFuture)
+        // Categories and item names are shared and cached, so only the player fetch is cancelled
+        CompletableFuture<ClogResult> result = CompletableFuture.allOf(playerFuture, categoriesFuture, namesFuture)
             .thenApply(v ->
             {
                 Map<String, List<ClogResult.ClogItem>> obtained = playerFuture.join();
@@ -130,37 +208,199 @@ public class ClogService
 
                 if (obtained == null)
                 {
-                    return null;
+                    return withReferenceData(clogCapture.rebase(playerName, null));
+                }
+                if (categories != null)
+                {
+                    cacheCategories(playerName, categories.keySet(), obtained);
                 }
 
-                return new ClogResult(
+                return withReferenceData(clogCapture.rebase(playerName, new ClogResult(
                     obtained,
                     categories != null ? categories : new HashMap<>(),
                     names != null ? names : new HashMap<>()
-                );
+                )));
             });
+        return HttpFetcher.cancelWith(result, playerFuture);
     }
 
     /**
-     * Fetch player's obtained collection log items from TempleOSRS.
+     * Look up only some collection log categories for a player, for showing a few bosses
+     * rather than the whole log. Categories fetched in the last few minutes are served
+     * from memory; the rest are fetched {@value #CATEGORIES_PER_REQUEST} per request.
+     * For the local player, categories opened in-game since the last fetch aren't
+     * fetched either. The result only has the requested categories (plus any captured
+     * in-game for the local player). Resolves to null if the player has no synced log.
      */
-    private CompletableFuture<Map<String, List<ClogResult.ClogItem>>> fetchPlayerClog(String encodedPlayer)
+    public CompletableFuture<ClogResult> lookupCategories(String playerName, Collection<String> categories,
+                                                          RequestScheduler.Priority priority)
+    {
+        return lookupCategories(playerName, categories, new RequestScheduler.Ticket(priority));
+    }
+
+    public CompletableFuture<ClogResult> lookupCategories(String playerName, Collection<String> categories,
+                                                          RequestScheduler.Ticket ticket)
     {
-        String url = TEMPLE_PLAYER_URL + "?player=" + encodedPlayer + "&categories=all";
-        return httpGetAsync(url).thenApply(json ->
+        Set<String> captured = clogCapture.getFreshCategories(playerName);
+        Map<String, List<ClogResult.ClogItem>> obtained = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (categoryCache)
         {
-            if (json == null)
+            for (String category : categories)
+            {
+                if (captured.contains(category))
+                {
+                    // Supplied by the overlay below
+                    continue;
+                }
+                CachedCategory cached = categoryCache.get(categoryKey(playerName, category));
+                if (cached != null && System.currentTimeMillis() - cached.createdAt <= CATEGORY_TTL_MS)
+                {
+                    obtained.put(category, cached.items);
+                }
+                else
+                {
+                    missing.add(category);
+                }
+            }
+        }
+
+        String encoded = URLEncoder.encode(playerName, StandardCharsets.UTF_8);
+        List<List<String>> batches = new ArrayList<>();
+        List<CompletableFuture<Map<String, List<ClogResult.ClogItem>>>> batchFutures = new ArrayList<>();
+        for (int i = 0; i < missing.size(); i += CATEGORIES_PER_REQUEST)
+        {
+            List<String> batch = missing.subList(i, Math.min(i + CATEGORIES_PER_REQUEST, missing.size()));
+            batches.add(batch);
+            batchFutures.add(fetchPlayerClog(encoded, String.join(",", batch), ticket));
+        }
+        CompletableFuture<Map<String, List<Integer>>> categoriesFuture = fetchCategories(ticket);
+        CompletableFuture<Map<Integer, String>> namesFuture = fetchItemNames(ticket);
+
+        List<CompletableFuture<?>> all = new ArrayList<>(batchFutures);
+        all.add(categoriesFuture);
+        all.add(namesFuture);
+        CompletableFuture<ClogResult> result = CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0]))
+            .thenApply(v ->
+            {
+                for (int i = 0; i < batches.size(); i++)
+                {
+                    Map<String, List<ClogResult.ClogItem>> fetched = batchFutures.get(i).join();
+                    if (fetched == null)
+                    {
+                        return withReferenceData(clogCapture.overlay(playerName, null));
+                    }
+                    cacheCategories(playerName, batches.get(i), fetched);
+                    for (String category : batches.get(i))
+                    {
+                        obtained.put(category, fetched.getOrDefault(category, Collections.emptyList()));
+                    }
+                }
+
+                Map<String, List<Integer>> allCategories = categoriesFuture.join();
+                Map<String, List<Integer>> requested = new HashMap<>();
+                for (String category : categories)
+                {
+                    if (allCategories != null && allCategories.containsKey(category))
+                    {
+                        requested.put(category, allCategories.get(category));
+                    }
+                }
+                Map<Integer, String> names = namesFuture.join();
+                return withReferenceData(clogCapture.overlay(playerName,
+                    new ClogResult(obtained, requested, names != null ? names : new HashMap<>())));
+            });
+        return HttpFetcher.cancelWith(result, batchFutures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * A stored or captured result with the category item lists and item names it
+     * doesn't keep filled in from the cached TempleOSRS categories and Wiki names.
+     * Without cached categories, a category lists only the items obtained in it.
+     */
+    public ClogResult withReferenceData(ClogResult result)
+    {
+        if (result == null)
+        {
+            return null;
+        }
+        Map<String, List<Integer>> allCategories = cachedCategories;
+        Map<String, List<Integer>> categories = new HashMap<>();
+        for (Map.Entry<String, List<ClogResult.ClogItem>> entry : result.getObtainedItems().entrySet())
+        {
+            List<Integer> ids = allCategories != null ? allCategories.get(entry.getKey()) : null;
+            if (ids == null)
+            {
+                ids = new ArrayList<>();
+                for (ClogResult.ClogItem item : entry.getValue())
+                {
+                    ids.add(item.getId());
+                }
+            }
+            categories.put(entry.getKey(), ids);
+        }
+        categories.putAll(result.getCategoryItems());
+
+        Map<Integer, String> allNames = cachedItemNames;
+        Map<Integer, String> names = allNames != null ? new HashMap<>(allNames) : new HashMap<>();
+        names.putAll(result.getItemNames());
+        return new ClogResult(result.getObtainedItems(), categories, names);
+    }
+
+    private void cacheCategories(String playerName, Collection<String> categories,
+                                 Map<String, List<ClogResult.ClogItem>> obtained)
+    {
+        synchronized (categoryCache)
+        {
+            for (String category : categories)
+            {
+                categoryCache.put(categoryKey(playerName, category),
+                    new CachedCategory(obtained.getOrDefault(category, Collections.emptyList())));
+            }
+        }
+    }
+
+    private static String categoryKey(String playerName, String category)
+    {
+        return Text.standardize(playerName) + "|" + category;
+    }
+
+    /**
+     * Fetch player's obtained collection log items from TempleOSRS, for a comma
+     * separated list of category keys or "all".
+     */
+    private CompletableFuture<Map<String, List<ClogResult.ClogItem>>> fetchPlayerClog(
+        String encodedPlayer, String categories, RequestScheduler.Ticket ticket)
+    {
+        String url = TEMPLE_PLAYER_URL + "?player=" + encodedPlayer + "&categories=" + categories;
+        LatencyTracker latency = "all".equals(categories) ? playerClogLatency : categoryClogLatency;
+        // This call has a long tail; optionally race a duplicate when it runs slow
+        CompletableFuture<FetchOutcome> fetch = config.hedgeClogRequests()
+            ? httpFetcher.fetchHedged(url, ticket, latency, config.hedgePercentile())
+            : httpFetcher.fetch(url, ticket, latency);
+        CompletableFuture<Map<String, List<ClogResult.ClogItem>>> parsed = fetch.thenApplyAsync(outcome ->
+        {
+            if (outcome.isNotFound())
             {
                 return null;
             }
+            if (!outcome.isOk())
+            {
+                throw new FetchException("Collection log fetch failed", outcome);
+            }
             try
             {
-                JsonObject root = GSON.fromJson(json, JsonObject.class);
+                JsonObject root = GSON.fromJson(outcome.getBody(), JsonObject.class);
                 JsonObject data = root.getAsJsonObject("data");
-                if (data == null || !data.has("items"))
+                if (data == null)
                 {
                     return null;
                 }
+                if (!data.has("items"))
+                {
+                    // Synced, but nothing obtained in the requested categories
+                    return new HashMap<String, List<ClogResult.ClogItem>>();
+                }
                 JsonObject itemsObj = data.getAsJsonObject("items");
                 Map<String, List<ClogResult.ClogItem>> result = new HashMap<>();
 
@@ -188,20 +428,21 @@ public class ClogService
                 log.debug("Failed to parse player clog: {}", e.getMessage());
                 return null;
             }
-        });
+        }, parseExecutor);
+        return HttpFetcher.cancelWith(parsed, fetch);
     }
 
     /**
      * Fetch all category item IDs from TempleOSRS (cached).
      */
-    private CompletableFuture<Map<String, List<Integer>>> fetchCategories()
+    private CompletableFuture<Map<String, List<Integer>>> fetchCategories(RequestScheduler.Ticket ticket)
     {
         if (cachedCategories != null)
         {
             return CompletableFuture.completedFuture(cachedCategories);
         }
 
-        return httpGetAsync(TEMPLE_CATEGORIES_URL).thenApply(json ->
+        return httpGetAsync(TEMPLE_CATEGORIES_URL, ticket).thenApplyAsync(json ->
         {
             if (json == null)
             {
@@ -225,21 +466,21 @@ public class ClogService
                 log.debug("Failed to parse clog categories: {}", e.getMessage());
                 return null;
             }
-        });
+        }, parseExecutor);
     }
 
     /**
      * Fetch item ID -> name map from OSRS Wiki prices API (cached).
      * Covers all tradeable items; untradeables fall back to "Item #id".
      */
-    private CompletableFuture<Map<Integer, String>> fetchItemNames()
+    private CompletableFuture<Map<Integer, String>> fetchItemNames(RequestScheduler.Ticket ticket)
     {
         if (cachedItemNames != null)
         {
             return CompletableFuture.completedFuture(cachedItemNames);
         }
 
-        return httpGetAsync(WIKI_MAPPING_URL).thenApply(json ->
+        return httpGetAsync(WIKI_MAPPING_URL, ticket).thenApplyAsync(json ->
         {
             if (json == null)
             {
@@ -267,51 +508,33 @@ public class ClogService
                 log.debug("Failed to parse item names: {}", e.getMessage());
                 return null;
             }
-        });
+        }, parseExecutor);
     }
 
     /**
-     * Async HTTP GET using RuneLite's OkHttpClient.
+     * Async HTTP GET for cached reference data: any failure degrades to null.
      */
-    private CompletableFuture<String> httpGetAsync(String url)
+    private CompletableFuture<String> httpGetAsync(String url, RequestScheduler.Ticket ticket)
     {
-        log.debug("HTTP GET: {}", url);
-        CompletableFuture<String> future = new CompletableFuture<>();
-
-        Request request = new Request.Builder()
-            .url(url)
-            .header("User-Agent", "420kc-RuneLite-Plugin/1.0 (https://github.com/420kc/420-kc-plugin)")
-            .build();
-
-        httpClient.newCall(request).enqueue(new Callback()
+        return httpFetcher.fetch(url, ticket).thenApply(outcome ->
         {
-            @Override
-            public void onFailure(Call call, IOException e)
+            if (!outcome.isOk())
             {
-                log.debug("HTTP GET failed for {}: {}", url, e.getMessage());
-                future.complete(null);
-            }
-
-            @Override
-            public void onResponse(Call call, Response response)
-            {
-                try (ResponseBody body = response.body())
-                {
-                    if (!response.isSuccessful() || body == null)
-                    {
-                        future.complete(null);
-                        return;
-                    }
-                    future.complete(body.string());
-                }
-                catch (IOException e)
-                {
-                    log.debug("Failed to read response for {}: {}", url, e.getMessage());
-                    future.complete(null);
-                }
+                log.debug("HTTP GET failed for {}: {}", url, outcome);
+                return null;
             }
+            return outcome.getBody();
         });
+    }
 
-        return future;
+    private static class CachedCategory
+    {
+        private final List<ClogResult.ClogItem> items;
+        private final long createdAt = System.currentTimeMillis();
+
+        CachedCategory(List<ClogResult.ClogItem> items)
+        {
+            this.items = items;
+        }
     }
 }
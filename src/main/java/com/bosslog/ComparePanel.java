@@ -0,0 +1,399 @@
+package com.bosslog;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.GridLayout;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import javax.inject.Inject;
+import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.JToggleButton;
+import javax.swing.SwingUtilities;
+import javax.swing.border.EmptyBorder;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+import net.runelite.client.util.Text;
+
+/**
+ * Compare tab: boss KCs of up to {@value #MAX_SELECTED} players side by side,
+ * each with a rank and a collection log completion sub-row where known,
+ * from the players kept in the {@link CompareStore}. Toggling a stored player
+ * re-renders from memory; only players added here by name are fetched.
+ */
+@Slf4j
+public class ComparePanel extends JPanel
+{
+    private static final Color GREEN = new Color(76, 175, 110);
+    private static final Color TEXT_DIM = new Color(160, 200, 160);
+    // More columns don't fit the side panel
+    private static final int MAX_SELECTED = 3;
+
+    private final CompareStore compareStore;
+    private final LookupCache lookupCache;
+    private final BossLogConfig config;
+
+    private final JTextField playerInput = new JTextField();
+    private final JLabel statusLabel = new JLabel(" ");
+    private final JPanel playersPanel = new JPanel(new GridLayout(0, 2, 3, 3));
+    private final JPanel rowsPanel = new JPanel(new GridLayout(0, 1, 0, 1));
+
+    // Standardized names of the compared players, in the order they were picked
+    private final List<String> selected = new ArrayList<>();
+
+    @Inject
+    public ComparePanel(CompareStore compareStore, LookupCache lookupCache, BossLogConfig config)
+    {
+        this.compareStore = compareStore;
+        this.lookupCache = lookupCache;
+        this.config = config;
+
+        setLayout(new BorderLayout());
+        setBackground(ColorScheme.DARK_GRAY_COLOR);
+        setBorder(new EmptyBorder(5, 10, 10, 10));
+
+        JPanel controls = new JPanel();
+        controls.setLayout(new BoxLayout(controls, BoxLayout.Y_AXIS));
+        controls.setBackground(ColorScheme.DARK_GRAY_COLOR);
+
+        JPanel addRow = new JPanel(new BorderLayout(5, 0));
+        addRow.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        JButton addButton = new JButton("Add");
+        addButton.setBackground(Color.BLACK);
+        addButton.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        addButton.setBorder(BorderFactory.createLineBorder(ColorScheme.MEDIUM_GRAY_COLOR, 2));
+        addButton.setFocusPainted(false);
+        addButton.addActionListener(e -> addPlayer());
+        playerInput.addActionListener(e -> addPlayer());
+        addRow.add(playerInput, BorderLayout.CENTER);
+        addRow.add(addButton, BorderLayout.EAST);
+        controls.add(addRow);
+
+        statusLabel.setFont(FontManager.getRunescapeSmallFont());
+        statusLabel.setForeground(TEXT_DIM);
+        controls.add(statusLabel);
+
+        playersPanel.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        playersPanel.setBorder(new EmptyBorder(0, 0, 5, 0));
+        controls.add(playersPanel);
+
+        rowsPanel.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        add(controls, BorderLayout.NORTH);
+        add(rowsPanel, BorderLayout.CENTER);
+        refresh();
+    }
+
+    /**
+     * Re-render after the stored players or their results changed.
+     */
+    public void refresh()
+    {
+        Set<String> stored = new HashSet<>();
+        playersPanel.removeAll();
+        for (CompareStore.Player entry : compareStore.getPlayers())
+        {
+            String key = Text.standardize(entry.getName());
+            stored.add(key);
+
+            JToggleButton toggle = new JToggleButton(entry.getName(), selected.contains(key));
+            toggle.setFont(FontManager.getRunescapeSmallFont());
+            toggle.setFocusPainted(false);
+            toggle.addActionListener(e -> toggle(key));
+            playersPanel.add(toggle);
+        }
+        // Players evicted from the store can't be compared any more
+        selected.retainAll(stored);
+
+        rebuildRows();
+        revalidate();
+        repaint();
+    }
+
+    private void toggle(String key)
+    {
+        if (!selected.remove(key))
+        {
+            select(key);
+        }
+        refresh();
+    }
+
+    private void select(String key)
+    {
+        if (selected.contains(key))
+        {
+            return;
+        }
+        if (selected.size() >= MAX_SELECTED)
+        {
+            selected.remove(0);
+        }
+        selected.add(key);
+    }
+
+    /**
+     * Compare a player by name, fetching them only if they aren't stored yet.
+     */
+    private void addPlayer()
+    {
+        String player = playerInput.getText().trim();
+        if (player.isEmpty())
+        {
+            return;
+        }
+        String key = Text.standardize(player);
+        playerInput.setText("");
+
+        CompareStore.Player stored = compareStore.get(player);
+        if (stored != null && stored.getHiscores() != null)
+        {
+            select(key);
+            statusLabel.setText(" ");
+            refresh();
+            return;
+        }
+
+        statusLabel.setText("Looking up " + player + "...");
+        // Both fetched in parallel; the log is attached once the player is stored
+        CompletableFuture<ClogResult> clogFuture = config.showCollectionLog()
+            ? lookupCache.getClog(player, RequestScheduler.Priority.INTERACTIVE)
+            : null;
+        lookupCache.getHiscores(player, RequestScheduler.Priority.INTERACTIVE).whenComplete((result, ex) ->
+            SwingUtilities.invokeLater(() ->
+            {
+                if (ex != null || result == null)
+                {
+                    statusLabel.setText(ex != null ? "Lookup failed" : "Player not found");
+                    return;
+                }
+                statusLabel.setText(" ");
+                compareStore.putHiscores(player, result);
+                select(key);
+                refresh();
+                if (clogFuture != null)
+                {
+                    attachClog(player, clogFuture);
+                }
+            }));
+    }
+
+    private void attachClog(String player, CompletableFuture<ClogResult> clogFuture)
+    {
+        clogFuture.whenComplete((result, ex) ->
+        {
+            if (ex != null)
+            {
+                log.debug("Compare clog lookup failed", ex);
+                return;
+            }
+            SwingUtilities.invokeLater(() ->
+            {
+                compareStore.putClog(player, result);
+                refresh();
+            });
+        });
+    }
+
+    private void rebuildRows()
+    {
+        rowsPanel.removeAll();
+
+        // Read without get(), so rendering doesn't reorder the store
+        Map<String, CompareStore.Player> stored = new HashMap<>();
+        for (CompareStore.Player entry : compareStore.getPlayers())
+        {
+            stored.put(Text.standardize(entry.getName()), entry);
+        }
+        List<CompareStore.Player> players = new ArrayList<>();
+        for (String key : selected)
+        {
+            CompareStore.Player entry = stored.get(key);
+            if (entry != null && entry.getHiscores() != null)
+            {
+                players.add(entry);
+            }
+        }
+        if (players.isEmpty())
+        {
+            return;
+        }
+
+        JPanel header = makeRow(players.size());
+        header.add(new JLabel());
+        for (CompareStore.Player entry : players)
+        {
+            JLabel name = makeLabel(entry.getName(), ColorScheme.LIGHT_GRAY_COLOR);
+            name.setToolTipText(entry.getName());
+            header.add(name);
+        }
+        rowsPanel.add(header);
+
+        for (String boss : HiscoreService.bossNames())
+        {
+            int best = 0;
+            int worst = Integer.MAX_VALUE;
+            for (CompareStore.Player entry : players)
+            {
+                int kc = Math.max(entry.getHiscores().getKc(boss), 0);
+                best = Math.max(best, kc);
+                worst = Math.min(worst, kc);
+            }
+            if (best == 0)
+            {
+                continue;
+            }
+
+            JPanel row = makeRow(players.size());
+            JLabel bossLabel = makeLabel(boss, ColorScheme.LIGHT_GRAY_COLOR);
+            bossLabel.setToolTipText(boss);
+            row.add(bossLabel);
+            for (CompareStore.Player entry : players)
+            {
+                int kc = Math.max(entry.getHiscores().getKc(boss), 0);
+                // Highlight the leader only where the players differ
+                Color color = best == worst ? TEXT_DIM : kc == best ? GREEN : ColorScheme.LIGHT_GRAY_COLOR;
+                JLabel cell = makeLabel(kc > 0 ? String.valueOf(kc) : "--", color);
+                cell.setToolTipText(describe(entry, boss));
+                row.add(cell);
+            }
+            rowsPanel.add(row);
+
+            int[] ranks = new int[players.size()];
+            int[] logCounts = new int[players.size()];
+            String[] logTexts = new String[players.size()];
+            String category = ClogService.bossToCategory(boss);
+            for (int i = 0; i < players.size(); i++)
+            {
+                CompareStore.Player entry = players.get(i);
+                ranks[i] = entry.getHiscores().getRank(boss);
+                int[] completion = logCompletion(entry.getClog(), category);
+                logCounts[i] = completion != null ? completion[0] : -1;
+                logTexts[i] = completion != null ? completion[0] + "/" + completion[1] : null;
+            }
+            String[] rankTexts = new String[ranks.length];
+            for (int i = 0; i < ranks.length; i++)
+            {
+                rankTexts[i] = ranks[i] > 0 ? "#" + ranks[i] : null;
+            }
+            addSubRow("  rank", ranks, rankTexts, true);
+            addSubRow("  log", logCounts, logTexts, false);
+        }
+    }
+
+    /**
+     * A dimmer row under a boss, if any player has a value for it. Highlighted like KC:
+     * the best value, only where the players differ. A null text is a missing value,
+     * and values of 0 or less are never the best.
+     */
+    private void addSubRow(String label, int[] values, String[] texts, boolean lowerIsBetter)
+    {
+        int best = -1;
+        boolean differ = false;
+        for (int value : values)
+        {
+            differ |= value != values[0];
+            if (value > 0 && (best < 0 || (lowerIsBetter ? value < best : value > best)))
+            {
+                best = value;
+            }
+        }
+        boolean anyKnown = false;
+        for (String text : texts)
+        {
+            anyKnown |= text != null;
+        }
+        if (!anyKnown)
+        {
+            return;
+        }
+
+        JPanel row = makeRow(values.length);
+        row.add(makeLabel(label, TEXT_DIM));
+        for (int i = 0; i < values.length; i++)
+        {
+            Color color = !differ ? TEXT_DIM : values[i] > 0 && values[i] == best ? GREEN : ColorScheme.LIGHT_GRAY_COLOR;
+            row.add(makeLabel(texts[i] != null ? texts[i] : "--", color));
+        }
+        rowsPanel.add(row);
+    }
+
+    private static JPanel makeRow(int players)
+    {
+        JPanel row = new JPanel(new GridLayout(1, players + 1, 4, 0));
+        row.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        row.setBorder(new EmptyBorder(2, 4, 2, 4));
+        return row;
+    }
+
+    private static JLabel makeLabel(String text, Color color)
+    {
+        JLabel label = new JLabel(text);
+        label.setFont(FontManager.getRunescapeSmallFont());
+        label.setForeground(color);
+        return label;
+    }
+
+    /**
+     * Tooltip for one player's cell: rank, and collection log completion if known.
+     */
+    private static String describe(CompareStore.Player entry, String boss)
+    {
+        StringBuilder text = new StringBuilder(entry.getName());
+        int rank = entry.getHiscores().getRank(boss);
+        if (rank > 0)
+        {
+            text.append(" \u2014 rank ").append(rank);
+        }
+
+        int[] completion = logCompletion(entry.getClog(), ClogService.bossToCategory(boss));
+        if (completion != null)
+        {
+            text.append(" \u2014 log ").append(completion[0]).append('/').append(completion[1]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Items obtained and items in a collection log category, or null if the log or category isn't known.
+     */
+    private static int[] logCompletion(ClogResult clog, String category)
+    {
+        if (clog == null)
+        {
+            return null;
+        }
+        List<Integer> all = clog.getCategoryItems().get(category);
+        if (all == null || all.isEmpty())
+        {
+            return null;
+        }
+        Set<Integer> obtainedIds = new HashSet<>();
+        List<ClogResult.ClogItem> obtained = clog.getObtainedItems().get(category);
+        if (obtained != null)
+        {
+            for (ClogResult.ClogItem item : obtained)
+            {
+                obtainedIds.add(item.getId());
+            }
+        }
+        int count = 0;
+        for (int id : all)
+        {
+            if (obtainedIds.contains(id))
+            {
+                count++;
+            }
+        }
+        return new int[]{count, all.size()};
+    }
+}
@@ -0,0 +1,95 @@
+package com.bosslog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Singleton;
+import net.runelite.client.util.Text;
+
+/**
+ * The last {@value #MAX_PLAYERS} players looked up, with their hiscore and
+ * collection log results, for the compare tab. Least recently used players
+ * are dropped first, so memory stays bounded however many lookups are made.
+ * EDT only.
+ */
+@Singleton
+public class CompareStore
+{
+    static final int MAX_PLAYERS = 10;
+
+    /**
+     * One stored player's results. The collection log is null until it arrives,
+     * or if the player has none.
+     */
+    public static class Player
+    {
+        private final String name;
+        private HiscoreResult hiscores;
+        private ClogResult clog;
+
+        Player(String name)
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public HiscoreResult getHiscores()
+        {
+            return hiscores;
+        }
+
+        public ClogResult getClog()
+        {
+            return clog;
+        }
+    }
+
+    // Standardized name -> player, least recently used first
+    private final Map<String, Player> entries = new LinkedHashMap<String, Player>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Player> eldest)
+        {
+            return size() > MAX_PLAYERS;
+        }
+    };
+
+    public void putHiscores(String player, HiscoreResult result)
+    {
+        entries.computeIfAbsent(Text.standardize(player), k -> new Player(player)).hiscores = result;
+    }
+
+    /**
+     * Attach a collection log to a player already stored. Ignored otherwise, since
+     * a player without hiscores has nothing to compare.
+     */
+    public void putClog(String player, ClogResult result)
+    {
+        Player entry = entries.get(Text.standardize(player));
+        if (entry != null)
+        {
+            entry.clog = result;
+        }
+    }
+
+    public Player get(String player)
+    {
+        return entries.get(Text.standardize(player));
+    }
+
+    /**
+     * Stored players, most recently looked up first.
+     */
+    public List<Player> getPlayers()
+    {
+        List<Player> list = new ArrayList<>(entries.values());
+        Collections.reverse(list);
+        return list;
+    }
+}
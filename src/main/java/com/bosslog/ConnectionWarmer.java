@@ -0,0 +1,91 @@
+package com.bosslog;
+
+import java.io.IOException;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Opens pooled keep-alive connections to the hiscore and TempleOSRS hosts
+ * ahead of the first lookup, so it doesn't pay for DNS and a TLS handshake.
+ * Uses a HEAD request to each host root; any failure is ignored.
+ */
+@Slf4j
+@Singleton
+public class ConnectionWarmer
+{
+    // OkHttp keeps idle connections for 5 minutes; no point warming more often
+    private static final long REWARM_INTERVAL_MS = 4 * 60_000;
+
+    private final OkHttpClient httpClient;
+    private final BossLogConfig config;
+
+    private long lastWarmed;
+
+    @Inject
+    public ConnectionWarmer(OkHttpClient httpClient, BossLogConfig config)
+    {
+        // Shares the connection pool; redirects off so we only touch the hosts we warm
+        this.httpClient = httpClient.newBuilder()
+            .followRedirects(false)
+            .build();
+        this.config = config;
+    }
+
+    /**
+     * Warm connections if enabled in config and not done recently.
+     */
+    public void warmUp()
+    {
+        if (!config.prewarmConnections())
+        {
+            return;
+        }
+
+        synchronized (this)
+        {
+            long now = System.currentTimeMillis();
+            if (now - lastWarmed < REWARM_INTERVAL_MS)
+            {
+                return;
+            }
+            lastWarmed = now;
+        }
+
+        warm(HostRateLimiter.HISCORE_HOST);
+        if (config.showCollectionLog())
+        {
+            warm(HostRateLimiter.TEMPLE_HOST);
+        }
+    }
+
+    private void warm(String host)
+    {
+        Request request = new Request.Builder()
+            .url("https://" + host + "/")
+            .header("User-Agent", HttpFetcher.USER_AGENT)
+            .head()
+            .build();
+
+        httpClient.newCall(request).enqueue(new Callback()
+        {
+            @Override
+            public void onFailure(Call call, IOException e)
+            {
+                log.debug("Connection warm-up to {} failed: {}", host, e.getMessage());
+            }
+
+            @Override
+            public void onResponse(Call call, Response response)
+            {
+                response.close();
+                log.debug("Connection to {} warmed", host);
+            }
+        });
+    }
+}
@@ -0,0 +1,26 @@
+package com.bosslog;
+
+/**
+ * Thrown when a lookup cannot be answered because an endpoint it depends on
+ * failed without giving an authoritative answer (rate limit, 5xx, timeout).
+ */
+public class FetchException extends RuntimeException
+{
+    private final FetchOutcome outcome;
+
+    public FetchException(String message, FetchOutcome outcome)
+    {
+        super(message + ": " + outcome);
+        this.outcome = outcome;
+    }
+
+    public FetchOutcome getOutcome()
+    {
+        return outcome;
+    }
+
+    public FetchOutcome.Status getStatus()
+    {
+        return outcome.getStatus();
+    }
+}
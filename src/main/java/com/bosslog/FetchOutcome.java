@@ -0,0 +1,141 @@
+package com.bosslog;
+
+/**
+ * Typed result of a single HTTP fetch.
+ * Separates authoritative answers (found / not found) from transient
+ * failures, so callers never mistake a network blip for "no such player".
+ */
+public class FetchOutcome
+{
+    public enum Status
+    {
+        OK("OK", true, false),
+        NOT_FOUND("Not found", true, false),
+        RATE_LIMITED("Rate limited", false, true),
+        SERVER_ERROR("Server error", false, true),
+        TIMEOUT("Timed out", false, true),
+        NETWORK_ERROR("Network error", false, true),
+        CLIENT_ERROR("Bad request", false, false),
+        /** Refused locally: the host's circuit breaker is open or the rate limit queue is full. */
+        THROTTLED("Throttled", false, false);
+
+        private final String label;
+        private final boolean authoritative;
+        private final boolean retryable;
+
+        Status(String label, boolean authoritative, boolean retryable)
+        {
+            this.label = label;
+            this.authoritative = authoritative;
+            this.retryable = retryable;
+        }
+
+        public String getLabel()
+        {
+            return label;
+        }
+
+        /**
+         * True if the server gave a definite answer about the resource.
+         */
+        public boolean isAuthoritative()
+        {
+            return authoritative;
+        }
+
+        public boolean isRetryable()
+        {
+            return retryable;
+        }
+    }
+
+    private final Status status;
+    private final int code;
+    private final String body;
+    private final long retryAfterMillis;
+
+    private FetchOutcome(Status status, int code, String body, long retryAfterMillis)
+    {
+        this.status = status;
+        this.code = code;
+        this.body = body;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public static FetchOutcome ok(String body)
+    {
+        return new FetchOutcome(Status.OK, 200, body, 0);
+    }
+
+    public static FetchOutcome failure(Status status, int code, long retryAfterMillis)
+    {
+        return new FetchOutcome(status, code, null, retryAfterMillis);
+    }
+
+    /**
+     * Classify an HTTP status code that was not a success.
+     */
+    public static FetchOutcome fromHttpCode(int code, long retryAfterMillis)
+    {
+        Status status;
+        if (code == 404)
+        {
+            status = Status.NOT_FOUND;
+        }
+        else if (code == 429)
+        {
+            status = Status.RATE_LIMITED;
+        }
+        else if (code >= 500)
+        {
+            status = Status.SERVER_ERROR;
+        }
+        else
+        {
+            status = Status.CLIENT_ERROR;
+        }
+        return new FetchOutcome(status, code, null, retryAfterMillis);
+    }
+
+    public Status getStatus()
+    {
+        return status;
+    }
+
+    public int getCode()
+    {
+        return code;
+    }
+
+    /**
+     * Response body, only present when {@link #isOk()}.
+     */
+    public String getBody()
+    {
+        return body;
+    }
+
+    /**
+     * Server-requested delay from a Retry-After header, or 0 if none was sent.
+     */
+    public long getRetryAfterMillis()
+    {
+        return retryAfterMillis;
+    }
+
+    public boolean isOk()
+    {
+        return status == Status.OK;
+    }
+
+    public boolean isNotFound()
+    {
+        return status == Status.NOT_FOUND;
+    }
+
+    @Override
+    public String toString()
+    {
+        return code > 0 ? status.getLabel() + " (" + code + ")" : status.getLabel();
+    }
+}
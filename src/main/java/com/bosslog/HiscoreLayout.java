@@ -0,0 +1,98 @@
+package com.bosslog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.hiscore.HiscoreSkillType;
+
+/**
+ * Which line of a hiscore CSV body each tracked boss is on. Resolved once from
+ * a list of hiscore entry names and reused, so parsing stays plain array
+ * indexing. A layout only applies to bodies with the line count it was built
+ * for; anything else means Jagex added or removed an entry.
+ */
+final class HiscoreLayout
+{
+    private final String source;
+    private final int skillLines;
+    private final int lineCount;
+    // Boss index in HiscoreService.bossNames() -> CSV line, -1 if not on the hiscores
+    private final int[] bossLines;
+
+    private HiscoreLayout(String source, int skillLines, List<String> activityNames)
+    {
+        this.source = source;
+        this.skillLines = skillLines;
+        this.lineCount = skillLines + activityNames.size();
+        List<String> bosses = HiscoreService.bossNames();
+        bossLines = new int[bosses.size()];
+        Arrays.fill(bossLines, -1);
+        for (int i = 0; i < activityNames.size(); i++)
+        {
+            String boss = HiscoreService.resolveBossName(activityNames.get(i));
+            if (boss != null)
+            {
+                bossLines[bosses.indexOf(boss)] = skillLines + i;
+            }
+        }
+    }
+
+    /**
+     * From entry names in hiscore order: overall and skills, then activities and bosses.
+     */
+    static HiscoreLayout of(String source, int skillLines, List<String> activityNames)
+    {
+        return new HiscoreLayout(source, skillLines, activityNames);
+    }
+
+    /**
+     * From RuneLite's {@link HiscoreSkill}, which lists entries in hiscore order and
+     * is kept current by client updates.
+     */
+    static HiscoreLayout fromHiscoreSkills()
+    {
+        int skillLines = 0;
+        List<String> activities = new ArrayList<>();
+        for (HiscoreSkill skill : HiscoreSkill.values())
+        {
+            if (skill.getType() == HiscoreSkillType.OVERALL || skill.getType() == HiscoreSkillType.SKILL)
+            {
+                skillLines++;
+            }
+            else
+            {
+                activities.add(skill.getName());
+            }
+        }
+        return new HiscoreLayout("RuneLite", skillLines, activities);
+    }
+
+    boolean matches(int lines)
+    {
+        return lines == lineCount;
+    }
+
+    /**
+     * @return the CSV line of a boss by its index in {@link HiscoreService#bossNames()}, or -1
+     */
+    int lineOf(int bossIndex)
+    {
+        return bossLines[bossIndex];
+    }
+
+    /**
+     * The ranking table ("table" parameter) of a boss; activities and bosses are
+     * numbered from the line after the skills. -1 if not on the hiscores.
+     */
+    int rankingTable(int bossIndex)
+    {
+        return bossLines[bossIndex] < 0 ? -1 : bossLines[bossIndex] - skillLines;
+    }
+
+    @Override
+    public String toString()
+    {
+        return source + " (" + lineCount + " lines)";
+    }
+}
@@ -1,6 +1,7 @@
 package com.bosslog;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -13,15 +14,17 @@ public class HiscoreResult
     private final Map<String, Integer> bossRanks;
     private final int totalLevel;
     private final long totalXp;
+    private final long bodyHash;
 
     public HiscoreResult(AccountType accountType, Map<String, Integer> bossKills,
-                         Map<String, Integer> bossRanks, int totalLevel, long totalXp)
+                         Map<String, Integer> bossRanks, int totalLevel, long totalXp, long bodyHash)
     {
         this.accountType = accountType;
         this.bossKills = bossKills;
         this.bossRanks = bossRanks;
         this.totalLevel = totalLevel;
         this.totalXp = totalXp;
+        this.bodyHash = bodyHash;
     }
 
     public AccountType getAccountType()
@@ -49,6 +52,14 @@ public class HiscoreResult
         return totalXp;
     }
 
+    /**
+     * Hash of the raw hiscore responses this result was parsed from.
+     */
+    public long getBodyHash()
+    {
+        return bodyHash;
+    }
+
     public int getKc(String bossName)
     {
         return bossKills.getOrDefault(bossName, -1);
@@ -58,4 +69,22 @@ public class HiscoreResult
     {
         return bossRanks.getOrDefault(bossName, -1);
     }
+
+    /**
+     * A copy with its own KC map, safe to hand to a background thread.
+     */
+    public HiscoreResult copy()
+    {
+        return new HiscoreResult(accountType, new HashMap<>(bossKills), new HashMap<>(bossRanks),
+            totalLevel, totalXp, bodyHash);
+    }
+
+    /**
+     * Apply a newer KC seen in game chat, on the EDT. Only for a {@link #copy} nobody
+     * else holds yet: looked-up results are cached, stored and shown side by side.
+     */
+    public void setKc(String bossName, int kc)
+    {
+        bossKills.put(bossName, kc);
+    }
 }
@@ -1,26 +1,32 @@
 package com.bosslog;
 
-import java.io.IOException;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
-import okhttp3.ResponseBody;
 
 /**
  * Parallelized hiscore lookup with account type detection.
  * Fires all 4 hiscore endpoints simultaneously, then determines
  * account type from the combination of results — same logic as
  * the 420kc.live proxy.js implementation.
+ * Account type is only decided from authoritative answers: a transient
+ * failure on an endpoint that matters fails the lookup instead of guessing.
+ * Boss positions come from a {@link HiscoreLayout} checked against each
+ * body's line count, so a new hiscore entry can't shift KCs onto the wrong bosses.
  */
 @Slf4j
 @Singleton
@@ -28,11 +34,15 @@ public class HiscoreService
 {
     private static final String BASE_URL = "https://secure.runescape.com/m=";
     private static final String SUFFIX = "/index_lite.ws?player=";
+    private static final String JSON_SUFFIX = "/index_lite.json?player=";
 
-    // Boss names in the order they appear in hiscores (after skills + activities)
-    // 25 skills + 20 minigames/activities = bosses start at index 45
+    private static final Gson GSON = new Gson();
+
+    // Layout the plugin was released against, used until a body doesn't fit it:
+    // overall + 24 skills, then 20 minigames/activities, then the bosses below
+    private static final int SKILL_LINES = 25;
     private static final int BOSS_START_INDEX = 45;
-    // Boss names in hiscore CSV order — must match Jagex's exact order (same as proxy.js)
+    // Boss names in hiscore CSV order (same as proxy.js); also the bosses the plugin tracks
     private static final String[] BOSS_NAMES = {
         "Abyssal Sire", "Alchemical Hydra", "Amoxliatl", "Araxxor",
         "Artio", "Barrows Chests", "Brutus", "Bryophyta", "Callisto",
@@ -56,79 +66,245 @@ public class HiscoreService
         "Yama", "Zalcano", "Zulrah"
     };
 
-    private final OkHttpClient httpClient;
+    // Normalized boss name -> hiscore boss name, for names seen in game chat,
+    // RuneLite's HiscoreSkill and the JSON hiscores
+    private static final Map<String, String> CHAT_NAME_LOOKUP = new HashMap<>();
+    static
+    {
+        for (String name : BOSS_NAMES)
+        {
+            CHAT_NAME_LOOKUP.put(normalizeBossName(name), name);
+        }
+        // Chat spellings that don't normalize to the hiscore name
+        CHAT_NAME_LOOKUP.put(normalizeBossName("Calvar'ion"), "Cal'varion");
+        CHAT_NAME_LOOKUP.put(normalizeBossName("The Nightmare"), "Nightmare");
+        CHAT_NAME_LOOKUP.put(normalizeBossName("Lunar"), "Lunar Chests");
+        CHAT_NAME_LOOKUP.put(normalizeBossName("Barrows"), "Barrows Chests");
+    }
+
+    private final HttpFetcher httpFetcher;
+    private final ParseExecutor parseExecutor;
+
+    // Replaced whole when a body stops fitting it
+    private volatile HiscoreLayout layout = builtInLayout();
+    // Layout being fetched from the JSON hiscores, shared by lookups that need it
+    private CompletableFuture<HiscoreLayout> jsonLayout;
 
     @Inject
-    public HiscoreService(OkHttpClient httpClient)
+    public HiscoreService(HttpFetcher httpFetcher, ParseExecutor parseExecutor)
+    {
+        this.httpFetcher = httpFetcher;
+        this.parseExecutor = parseExecutor;
+    }
+
+    /**
+     * Resolve a boss name as written in game chat to its hiscore name.
+     * Matching ignores case, punctuation and a leading "The".
+     *
+     * @return the hiscore boss name, or null if it isn't a tracked boss
+     */
+    public static String resolveBossName(String chatName)
     {
-        this.httpClient = httpClient;
+        return CHAT_NAME_LOOKUP.get(normalizeBossName(chatName));
+    }
+
+    /**
+     * All tracked hiscore boss names, in hiscore order.
+     */
+    public static List<String> bossNames()
+    {
+        return Collections.unmodifiableList(Arrays.asList(BOSS_NAMES));
+    }
+
+    /**
+     * Hiscore endpoint, as used after "m=" in hiscore URLs, that ranks an account type.
+     * De-ironed accounts are only ranked on the main hiscores.
+     */
+    static String endpointFor(AccountType type)
+    {
+        switch (type)
+        {
+            case ULTIMATE_IRONMAN:
+                return "hiscore_oldschool_ultimate";
+            case HARDCORE_IRONMAN:
+                return "hiscore_oldschool_hardcore_ironman";
+            case IRONMAN:
+                return "hiscore_oldschool_ironman";
+            default:
+                return "hiscore_oldschool";
+        }
+    }
+
+    /**
+     * The "table" parameter of a boss's ranking table (activity category), or -1
+     * if the boss isn't tracked or isn't on the hiscores.
+     */
+    int rankingTable(String bossName)
+    {
+        int index = Arrays.asList(BOSS_NAMES).indexOf(bossName);
+        return index < 0 ? -1 : layout.rankingTable(index);
+    }
+
+    /**
+     * Skill lines, then the activity lines before the first boss, then the bosses.
+     */
+    static HiscoreLayout builtInLayout()
+    {
+        List<String> activities = new ArrayList<>(Collections.nCopies(BOSS_START_INDEX - SKILL_LINES, ""));
+        activities.addAll(Arrays.asList(BOSS_NAMES));
+        return HiscoreLayout.of("built-in", SKILL_LINES, activities);
+    }
+
+    private static String normalizeBossName(String name)
+    {
+        return name.toLowerCase().replaceFirst("^the ", "").replaceAll("[^a-z0-9]", "");
     }
 
     /**
      * Look up a player across all 4 hiscore endpoints in parallel.
-     * Returns a CompletableFuture that resolves with the parsed result.
+     * Returns a CompletableFuture that resolves with the parsed result,
+     * or null if the player is not on the hiscores. Completes exceptionally
+     * with a {@link FetchException} if the hiscores could not give an answer.
      */
     public CompletableFuture<HiscoreResult> lookup(String playerName)
+    {
+        return lookup(playerName, RequestScheduler.Priority.INTERACTIVE);
+    }
+
+    public CompletableFuture<HiscoreResult> lookup(String playerName, RequestScheduler.Priority priority)
+    {
+        return lookup(playerName, new RequestScheduler.Ticket(priority), null);
+    }
+
+    /**
+     * Lookup whose requests all ride {@code ticket}, so a caller can
+     * {@link RequestScheduler#promote promote} them while they are still queued.
+     */
+    public CompletableFuture<HiscoreResult> lookup(String playerName, RequestScheduler.Ticket ticket)
+    {
+        return lookup(playerName, ticket, null);
+    }
+
+    /**
+     * Background re-fetch of a player already on display. If the hiscore responses
+     * hash the same as the ones {@code previous} was parsed from, parsing and account
+     * type detection are skipped and {@code previous} itself is returned, so callers
+     * can skip UI updates with an identity check.
+     */
+    public CompletableFuture<HiscoreResult> refresh(String playerName, HiscoreResult previous)
+    {
+        return lookup(playerName, new RequestScheduler.Ticket(RequestScheduler.Priority.BACKGROUND), previous);
+    }
+
+    private CompletableFuture<HiscoreResult> lookup(String playerName, RequestScheduler.Ticket ticket,
+                                                    HiscoreResult previous)
     {
         String encoded = URLEncoder.encode(playerName, StandardCharsets.UTF_8);
 
-        CompletableFuture<String> uimFuture = fetchAsync("hiscore_oldschool_ultimate", encoded);
-        CompletableFuture<String> hcimFuture = fetchAsync("hiscore_oldschool_hardcore_ironman", encoded);
-        CompletableFuture<String> ironFuture = fetchAsync("hiscore_oldschool_ironman", encoded);
-        CompletableFuture<String> regFuture = fetchAsync("hiscore_oldschool", encoded);
+        CompletableFuture<FetchOutcome> uimFuture = fetchAsync("hiscore_oldschool_ultimate", encoded, ticket);
+        CompletableFuture<FetchOutcome> hcimFuture = fetchAsync("hiscore_oldschool_hardcore_ironman", encoded, ticket);
+        CompletableFuture<FetchOutcome> ironFuture = fetchAsync("hiscore_oldschool_ironman", encoded, ticket);
+        CompletableFuture<FetchOutcome> regFuture = fetchAsync("hiscore_oldschool", encoded, ticket);
 
-        return CompletableFuture.allOf(uimFuture, hcimFuture, ironFuture, regFuture)
-            .thenApply(v ->
+        CompletableFuture<HiscoreResult> result = CompletableFuture.allOf(uimFuture, hcimFuture, ironFuture, regFuture)
+            .thenComposeAsync(v ->
             {
-                String uimBody = uimFuture.join();
-                String hcimBody = hcimFuture.join();
-                String ironBody = ironFuture.join();
-                String regBody = regFuture.join();
+                FetchOutcome uim = uimFuture.join();
+                FetchOutcome hcim = hcimFuture.join();
+                FetchOutcome iron = ironFuture.join();
+                FetchOutcome reg = regFuture.join();
+
+                long bodyHash = hashOutcomes(uim, hcim, iron, reg);
+                if (previous != null && previous.getBodyHash() == bodyHash)
+                {
+                    return CompletableFuture.completedFuture(previous);
+                }
+
+                // Every account type appears on the main hiscores
+                if (reg.isNotFound())
+                {
+                    return CompletableFuture.completedFuture(null);
+                }
+                requireAuthoritative(reg);
 
                 // Detect account type using same logic as proxy.js
-                AccountType type = detectAccountType(uimBody, hcimBody, ironBody, regBody);
+                AccountType type = detectAccountType(uim, hcim, iron, reg);
 
                 // Parse boss KC from the best available data
-                String bestBody = pickBestBody(type, uimBody, hcimBody, ironBody, regBody);
+                String bestBody = pickBestBody(type, uim, hcim, iron, reg);
                 if (bestBody == null)
                 {
-                    return null;
+                    return CompletableFuture.completedFuture(null);
                 }
 
-                return parseHiscoreBody(bestBody, type);
-            });
+                String[] lines = bestBody.trim().split("\n");
+                HiscoreLayout current = layout;
+                if (current.matches(lines.length))
+                {
+                    return CompletableFuture.completedFuture(parseHiscoreBody(lines, current, type, bodyHash));
+                }
+                return resolveLayout(lines.length, endpointFor(type), encoded, ticket)
+                    .thenApply(resolved -> parseHiscoreBody(lines, resolved, type, bodyHash));
+            }, parseExecutor);
+        return HttpFetcher.cancelWith(result, uimFuture, hcimFuture, ironFuture, regFuture);
     }
 
     /**
      * Detect account type from parallel hiscore responses.
+     * Only decides once every endpoint that could change the answer has
+     * responded authoritatively; otherwise throws {@link FetchException}.
      */
-    private AccountType detectAccountType(String uimBody, String hcimBody, String ironBody, String regBody)
+    private AccountType detectAccountType(FetchOutcome uim, FetchOutcome hcim, FetchOutcome iron, FetchOutcome reg)
     {
-        long regXp = extractTotalXp(regBody);
-        long uimXp = extractTotalXp(uimBody);
-        long hcimXp = extractTotalXp(hcimBody);
-        long ironXp = extractTotalXp(ironBody);
+        long regXp = extractTotalXp(reg.getBody());
 
-        if (uimBody != null && uimXp == regXp && regXp > 0)
+        if (matchesXp(uim, regXp))
         {
             return AccountType.ULTIMATE_IRONMAN;
         }
-        if (hcimBody != null && hcimXp == regXp && regXp > 0)
+        if (matchesXp(hcim, regXp))
         {
             return AccountType.HARDCORE_IRONMAN;
         }
-        if (ironBody != null && ironXp == regXp && regXp > 0)
+
+        // Every ironman variant is also listed on the ironman hiscores,
+        // so a definite "not found" there means regular whatever the others said
+        if (iron.isNotFound())
+        {
+            return AccountType.REGULAR;
+        }
+
+        // A failed UIM/HCIM fetch could be hiding the real answer
+        requireAuthoritative(iron);
+        requireAuthoritative(uim);
+        requireAuthoritative(hcim);
+
+        if (matchesXp(iron, regXp))
         {
             return AccountType.IRONMAN;
         }
         // De-ironed: appeared on iron hiscores but XP no longer matches
-        if (ironBody != null && regXp > 0 && ironXp > 0 && ironXp != regXp)
+        long ironXp = extractTotalXp(iron.getBody());
+        if (regXp > 0 && ironXp > 0 && ironXp != regXp)
         {
             return AccountType.DE_IRONED;
         }
         return AccountType.REGULAR;
     }
 
+    private boolean matchesXp(FetchOutcome outcome, long regXp)
+    {
+        return outcome.isOk() && regXp > 0 && extractTotalXp(outcome.getBody()) == regXp;
+    }
+
+    private static void requireAuthoritative(FetchOutcome outcome)
+    {
+        if (!outcome.getStatus().isAuthoritative())
+        {
+            throw new FetchException("Hiscore lookup failed", outcome);
+        }
+    }
+
     private long extractTotalXp(String body)
     {
         if (body == null || body.isEmpty())
@@ -147,24 +323,115 @@ public class HiscoreService
         }
     }
 
-    private String pickBestBody(AccountType type, String uim, String hcim, String iron, String reg)
+    private String pickBestBody(AccountType type, FetchOutcome uim, FetchOutcome hcim,
+                                FetchOutcome iron, FetchOutcome reg)
     {
         switch (type)
         {
             case ULTIMATE_IRONMAN:
-                return uim;
+                return uim.getBody();
             case HARDCORE_IRONMAN:
-                return hcim;
+                return hcim.getBody();
             case IRONMAN:
-                return iron;
+                return iron.getBody();
             default:
-                return reg;
+                return reg.getBody();
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over each response's status and body. Cheap next to parsing,
+     * and enough to tell whether anything on the hiscores changed.
+     */
+    static long hashOutcomes(FetchOutcome... outcomes)
+    {
+        long hash = 0xcbf29ce484222325L;
+        for (FetchOutcome outcome : outcomes)
+        {
+            hash = (hash ^ outcome.getStatus().ordinal()) * 0x100000001b3L;
+            String body = outcome.getBody();
+            if (body == null)
+            {
+                continue;
+            }
+            for (int i = 0; i < body.length(); i++)
+            {
+                hash = (hash ^ body.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Find a layout for bodies of a new line count: RuneLite's if the client has been
+     * updated for the change, otherwise the entry names from the JSON hiscores.
+     * Fails rather than guess, so KCs are never shown against the wrong bosses.
+     */
+    private CompletableFuture<HiscoreLayout> resolveLayout(int lineCount, String endpoint, String encodedPlayer,
+                                                           RequestScheduler.Ticket ticket)
+    {
+        HiscoreLayout runelite = HiscoreLayout.fromHiscoreSkills();
+        if (runelite.matches(lineCount))
+        {
+            useLayout(runelite);
+            return CompletableFuture.completedFuture(runelite);
+        }
+
+        CompletableFuture<HiscoreLayout> fetch;
+        synchronized (this)
+        {
+            if (jsonLayout == null || jsonLayout.isCompletedExceptionally()
+                || (jsonLayout.isDone() && !jsonLayout.join().matches(lineCount)))
+            {
+                jsonLayout = fetchJsonLayout(endpoint, encodedPlayer, ticket);
+            }
+            fetch = jsonLayout;
+        }
+        return fetch.thenApply(json ->
+        {
+            if (!json.matches(lineCount))
+            {
+                throw new IllegalStateException("No hiscore layout has " + lineCount + " lines");
+            }
+            useLayout(json);
+            return json;
+        });
+    }
+
+    private void useLayout(HiscoreLayout resolved)
+    {
+        if (layout != resolved)
+        {
+            log.info("Hiscore layout changed; using {}", resolved);
+            layout = resolved;
         }
     }
 
-    private HiscoreResult parseHiscoreBody(String body, AccountType type)
+    /**
+     * The layout described by a player's JSON hiscores, which name every entry.
+     */
+    private CompletableFuture<HiscoreLayout> fetchJsonLayout(String endpoint, String encodedPlayer,
+                                                             RequestScheduler.Ticket ticket)
+    {
+        return httpFetcher.fetch(BASE_URL + endpoint + JSON_SUFFIX + encodedPlayer, ticket).thenApplyAsync(outcome ->
+        {
+            if (!outcome.isOk())
+            {
+                throw new FetchException("Hiscore layout fetch failed", outcome);
+            }
+            JsonObject root = GSON.fromJson(outcome.getBody(), JsonObject.class);
+            List<String> activities = new ArrayList<>();
+            for (JsonElement activity : root.getAsJsonArray("activities"))
+            {
+                activities.add(activity.getAsJsonObject().get("name").getAsString());
+            }
+            JsonArray skills = root.getAsJsonArray("skills");
+            return HiscoreLayout.of("JSON hiscores", skills.size(), activities);
+        }, parseExecutor);
+    }
+
+    private HiscoreResult parseHiscoreBody(String[] lines, HiscoreLayout bodyLayout, AccountType type, long bodyHash)
     {
-        String[] lines = body.trim().split("\n");
         Map<String, Integer> bossKills = new LinkedHashMap<>();
         Map<String, Integer> bossRanks = new LinkedHashMap<>();
 
@@ -179,13 +446,16 @@ public class HiscoreService
         }
         catch (Exception ignored) {}
 
-        // Parse boss KCs and ranks starting at BOSS_START_INDEX
+        // Parse boss KCs and ranks from their lines in the layout
         for (int i = 0; i < BOSS_NAMES.length; i++)
         {
-            int lineIdx = BOSS_START_INDEX + i;
-            if (lineIdx >= lines.length)
+            int lineIdx = bodyLayout.lineOf(i);
+            if (lineIdx < 0)
             {
-                break;
+                // Tracked boss that isn't on the hiscores any more
+                bossKills.put(BOSS_NAMES[i], -1);
+                bossRanks.put(BOSS_NAMES[i], -1);
+                continue;
             }
             try
             {
@@ -202,47 +472,12 @@ public class HiscoreService
             }
         }
 
-        return new HiscoreResult(type, bossKills, bossRanks, totalLevel, totalXp);
+        return new HiscoreResult(type, bossKills, bossRanks, totalLevel, totalXp, bodyHash);
     }
 
-    private CompletableFuture<String> fetchAsync(String hiscoreKey, String encodedPlayer)
+    private CompletableFuture<FetchOutcome> fetchAsync(String hiscoreKey, String encodedPlayer,
+                                                       RequestScheduler.Ticket ticket)
     {
-        CompletableFuture<String> future = new CompletableFuture<>();
-
-        Request request = new Request.Builder()
-            .url(BASE_URL + hiscoreKey + SUFFIX + encodedPlayer)
-            .header("User-Agent", "420kc-RuneLite-Plugin/1.0 (https://github.com/420kc/420-kc-plugin)")
-            .build();
-
-        httpClient.newCall(request).enqueue(new Callback()
-        {
-            @Override
-            public void onFailure(Call call, IOException e)
-            {
-                log.debug("Hiscore fetch failed for {}: {}", hiscoreKey, e.getMessage());
-                future.complete(null);
-            }
-
-            @Override
-            public void onResponse(Call call, Response response)
-            {
-                try (ResponseBody body = response.body())
-                {
-                    if (!response.isSuccessful() || body == null)
-                    {
-                        future.complete(null);
-                        return;
-                    }
-                    future.complete(body.string());
-                }
-                catch (IOException e)
-                {
-                    log.debug("Failed to read hiscore response for {}: {}", hiscoreKey, e.getMessage());
-                    future.complete(null);
-                }
-            }
-        });
-
-        return future;
+        return httpFetcher.fetch(BASE_URL + hiscoreKey + SUFFIX + encodedPlayer, ticket);
     }
 }
@@ -0,0 +1,94 @@
+package com.bosslog;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Per-host token bucket shared by every outgoing request.
+ * Consulted by {@link RequestScheduler} each time it dispatches a queued request.
+ * Limits are read from {@link BossLogConfig} on every call,
+ * so changing them in the config panel applies immediately.
+ */
+@Singleton
+public class HostRateLimiter
+{
+    static final String HISCORE_HOST = "secure.runescape.com";
+    static final String TEMPLE_HOST = "templeosrs.com";
+
+    // A full lookup needs 4 hiscore requests at once, so never burst less than that
+    private static final int MIN_BURST = 4;
+
+    private final BossLogConfig config;
+    private final Map<String, Bucket> buckets = new HashMap<>();
+
+    @Inject
+    public HostRateLimiter(BossLogConfig config)
+    {
+        this.config = config;
+    }
+
+    /**
+     * Take one request slot for a host if one is available right now.
+     *
+     * @return 0 if a slot was taken, otherwise milliseconds until the next slot frees up
+     */
+    public synchronized long tryAcquire(String host)
+    {
+        int perMinute = requestsPerMinute(host);
+        if (perMinute <= 0)
+        {
+            return 0;
+        }
+
+        Bucket bucket = buckets.computeIfAbsent(host, h -> new Bucket());
+        bucket.configure(perMinute);
+        return bucket.tryAcquire(System.currentTimeMillis());
+    }
+
+    private int requestsPerMinute(String host)
+    {
+        if (HISCORE_HOST.equals(host))
+        {
+            return config.hiscoreRequestsPerMinute();
+        }
+        if (TEMPLE_HOST.equals(host))
+        {
+            return config.templeRequestsPerMinute();
+        }
+        return 0;
+    }
+
+    private static class Bucket
+    {
+        private double capacity;
+        private double refillPerMs;
+        private double tokens = -1;
+        private long lastRefill;
+
+        void configure(int perMinute)
+        {
+            capacity = Math.max(MIN_BURST, perMinute / 4.0);
+            refillPerMs = perMinute / 60_000.0;
+            if (tokens < 0)
+            {
+                tokens = capacity;
+                lastRefill = System.currentTimeMillis();
+            }
+        }
+
+        long tryAcquire(long now)
+        {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerMs);
+            lastRefill = now;
+
+            if (tokens >= 1)
+            {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / refillPerMs));
+        }
+    }
+}
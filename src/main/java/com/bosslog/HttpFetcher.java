@@ -0,0 +1,431 @@
+package com.bosslog;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Shared async HTTP GET for the hiscore and TempleOSRS services.
+ * Every call resolves to a typed {@link FetchOutcome} instead of null.
+ * Transient failures get a few retries with jittered exponential backoff,
+ * drawn from a shared retry budget so a struggling host never sees a retry storm.
+ * Every attempt is queued on the {@link RequestScheduler} (which applies the
+ * per-host rate limit) and checked against the per-host {@link CircuitBreaker}.
+ */
+@Slf4j
+@Singleton
+public class HttpFetcher
+{
+    static final String USER_AGENT = "420kc-RuneLite-Plugin/1.0 (https://github.com/420kc/420-kc-plugin)";
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MS = 300;
+    private static final long MAX_BACKOFF_MS = 5000;
+
+    // Retry budget: every request earns a fraction of a retry, every retry spends one.
+    // Caps retries at ~20% extra load once the initial allowance is used up.
+    private static final double RETRY_BUDGET_RATIO = 0.2;
+    private static final double RETRY_BUDGET_MAX = 10;
+
+    private final OkHttpClient httpClient;
+    private final ScheduledExecutorService executor;
+    private final RequestScheduler scheduler;
+    private final CircuitBreaker circuitBreaker;
+
+    private double retryTokens = RETRY_BUDGET_MAX;
+
+    @Inject
+    public HttpFetcher(OkHttpClient httpClient, ScheduledExecutorService executor,
+                       RequestScheduler scheduler, CircuitBreaker circuitBreaker)
+    {
+        this.httpClient = httpClient;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Fetch a URL at interactive priority, retrying transient failures.
+     * Cancelling the returned future drops it from the queue or cancels the call.
+     */
+    public CompletableFuture<FetchOutcome> fetch(String url)
+    {
+        return fetch(url, RequestScheduler.Priority.INTERACTIVE);
+    }
+
+    public CompletableFuture<FetchOutcome> fetch(String url, RequestScheduler.Priority priority)
+    {
+        return fetch(url, new RequestScheduler.Ticket(priority));
+    }
+
+    /**
+     * Fetch as part of a lookup whose priority may be raised with {@link RequestScheduler#promote}.
+     */
+    public CompletableFuture<FetchOutcome> fetch(String url, RequestScheduler.Ticket ticket)
+    {
+        return start(new Exchange(url, ticket, null));
+    }
+
+    /**
+     * Fetch and record the endpoint's time-to-first-byte in {@code tracker}.
+     */
+    public CompletableFuture<FetchOutcome> fetch(String url, RequestScheduler.Ticket ticket,
+                                                 LatencyTracker tracker)
+    {
+        return start(new Exchange(url, ticket, tracker));
+    }
+
+    /**
+     * Fetch with request hedging: if no response headers have arrived by the given
+     * percentile of the endpoint's recent latency, fire a duplicate request.
+     * Whichever authoritative answer arrives first wins and the other is cancelled.
+     * The hedge skips the host's in-flight cap and is never retried, and it doesn't
+     * earn retry budget: it is extra load, not a new request.
+     * Until the tracker has enough samples this behaves like a plain fetch.
+     */
+    public CompletableFuture<FetchOutcome> fetchHedged(String url, RequestScheduler.Priority priority,
+                                                       LatencyTracker tracker, int percentile)
+    {
+        return fetchHedged(url, new RequestScheduler.Ticket(priority), tracker, percentile);
+    }
+
+    public CompletableFuture<FetchOutcome> fetchHedged(String url, RequestScheduler.Ticket ticket,
+                                                       LatencyTracker tracker, int percentile)
+    {
+        long hedgeAfter = tracker.percentile(percentile);
+        Exchange primary = new Exchange(url, ticket, tracker);
+        if (hedgeAfter < 0)
+        {
+            return start(primary);
+        }
+
+        CompletableFuture<FetchOutcome> result = new CompletableFuture<>();
+        List<CompletableFuture<FetchOutcome>> racers = new ArrayList<>(2);
+
+        primary.onSent = () -> executor.schedule(() ->
+        {
+            synchronized (racers)
+            {
+                if (result.isDone() || primary.firstByte || primary.future.isDone())
+                {
+                    return;
+                }
+                log.debug("No response from {} after {}ms, hedging", url, hedgeAfter);
+                Exchange hedge = new Exchange(url, ticket, tracker);
+                hedge.hedge = true;
+                racers.add(race(start(hedge), result, racers));
+            }
+        }, hedgeAfter, TimeUnit.MILLISECONDS);
+
+        synchronized (racers)
+        {
+            racers.add(race(start(primary), result, racers));
+        }
+
+        result.whenComplete((r, ex) ->
+        {
+            synchronized (racers)
+            {
+                // Cancel the loser, or both if the caller cancelled
+                racers.forEach(f -> f.cancel(false));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Cancel {@code sources} when {@code derived} is cancelled, so dropping a
+     * lookup also drops its queued or in-flight requests.
+     */
+    public static <T> CompletableFuture<T> cancelWith(CompletableFuture<T> derived, CompletableFuture<?>... sources)
+    {
+        derived.whenComplete((r, ex) ->
+        {
+            if (derived.isCancelled())
+            {
+                for (CompletableFuture<?> source : sources)
+                {
+                    source.cancel(false);
+                }
+            }
+        });
+        return derived;
+    }
+
+    /**
+     * Feed one racer into the shared result. An authoritative answer wins
+     * immediately; a failure only wins once every racer has failed.
+     */
+    private static CompletableFuture<FetchOutcome> race(CompletableFuture<FetchOutcome> racer,
+                                                        CompletableFuture<FetchOutcome> result,
+                                                        List<CompletableFuture<FetchOutcome>> racers)
+    {
+        racer.whenComplete((outcome, ex) ->
+        {
+            if (outcome == null)
+            {
+                return;
+            }
+            synchronized (racers)
+            {
+                boolean othersDone = racers.stream().allMatch(f -> f == racer || f.isDone());
+                if (outcome.getStatus().isAuthoritative() || othersDone)
+                {
+                    result.complete(outcome);
+                }
+            }
+        });
+        return racer;
+    }
+
+    private CompletableFuture<FetchOutcome> start(Exchange exchange)
+    {
+        if (!exchange.hedge)
+        {
+            depositRetryToken();
+        }
+        attempt(exchange, 1);
+        return exchange.future;
+    }
+
+    private void attempt(Exchange exchange, int attempt)
+    {
+        CompletableFuture<FetchOutcome> future = exchange.future;
+        if (future.isDone())
+        {
+            return;
+        }
+
+        if (!circuitBreaker.allowRequest(exchange.host))
+        {
+            log.debug("Circuit open, failing fast: {}", exchange.url);
+            future.complete(FetchOutcome.failure(FetchOutcome.Status.THROTTLED, 0, 0));
+            return;
+        }
+
+        RequestScheduler.Job job = new RequestScheduler.Job()
+        {
+            @Override
+            public void run(Runnable release)
+            {
+                send(exchange, attempt, release);
+            }
+
+            @Override
+            public void drop()
+            {
+                log.debug("Request queue timed out, dropping: {}", exchange.url);
+                future.complete(FetchOutcome.failure(FetchOutcome.Status.THROTTLED, 0, 0));
+            }
+
+            @Override
+            public boolean isCancelled()
+            {
+                return future.isDone();
+            }
+        };
+        if (exchange.hedge)
+        {
+            scheduler.submitHedge(exchange.host, job);
+        }
+        else
+        {
+            scheduler.submit(exchange.host, exchange.ticket, job);
+        }
+    }
+
+    private void send(Exchange exchange, int attempt, Runnable release)
+    {
+        String url = exchange.url;
+        CompletableFuture<FetchOutcome> future = exchange.future;
+        log.debug("HTTP GET (attempt {}, {}): {}", attempt, exchange.ticket.getPriority(), url);
+
+        Request request = new Request.Builder()
+            .url(url)
+            .header("User-Agent", USER_AGENT)
+            .build();
+
+        Call call = httpClient.newCall(request);
+        future.whenComplete((r, ex) ->
+        {
+            if (future.isCancelled())
+            {
+                call.cancel();
+            }
+        });
+
+        long sentAt = System.nanoTime();
+        call.enqueue(new Callback()
+        {
+            @Override
+            public void onFailure(Call call, IOException e)
+            {
+                release.run();
+                log.debug("HTTP GET failed for {}: {}", url, e.getMessage());
+                onOutcome(exchange, attempt, classify(e));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response)
+            {
+                // Headers are in: this is the first-byte moment hedging cares about
+                exchange.firstByte = true;
+                if (exchange.tracker != null)
+                {
+                    exchange.tracker.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentAt));
+                }
+
+                FetchOutcome outcome;
+                try (ResponseBody body = response.body())
+                {
+                    if (response.isSuccessful() && body != null)
+                    {
+                        outcome = FetchOutcome.ok(body.string());
+                    }
+                    else
+                    {
+                        outcome = FetchOutcome.fromHttpCode(response.code(),
+                            parseRetryAfter(response.header("Retry-After")));
+                    }
+                }
+                catch (IOException e)
+                {
+                    log.debug("Failed to read response for {}: {}", url, e.getMessage());
+                    outcome = classify(e);
+                }
+                release.run();
+                onOutcome(exchange, attempt, outcome);
+            }
+        });
+
+        Runnable onSent = exchange.onSent;
+        if (onSent != null && attempt == 1)
+        {
+            onSent.run();
+        }
+    }
+
+    private void onOutcome(Exchange exchange, int attempt, FetchOutcome outcome)
+    {
+        CompletableFuture<FetchOutcome> future = exchange.future;
+        if (future.isCancelled())
+        {
+            return;
+        }
+        circuitBreaker.record(exchange.host, outcome);
+
+        if (outcome.getStatus().isRetryable() && attempt < MAX_ATTEMPTS && !exchange.hedge && !future.isDone())
+        {
+            long delay = backoffMillis(attempt, outcome.getRetryAfterMillis());
+            if (delay <= MAX_BACKOFF_MS && withdrawRetryToken())
+            {
+                log.debug("Retrying {} in {}ms after {}", exchange.url, delay, outcome);
+                exchange.firstByte = false;
+                executor.schedule(() -> attempt(exchange, attempt + 1), delay, TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+        future.complete(outcome);
+    }
+
+    /**
+     * Exponential backoff jittered over the upper half of the window,
+     * never shorter than a server-supplied Retry-After.
+     */
+    private static long backoffMillis(int attempt, long retryAfterMillis)
+    {
+        long ceiling = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << (attempt - 1));
+        long jittered = ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+        return Math.max(jittered, retryAfterMillis);
+    }
+
+    private synchronized void depositRetryToken()
+    {
+        retryTokens = Math.min(RETRY_BUDGET_MAX, retryTokens + RETRY_BUDGET_RATIO);
+    }
+
+    private synchronized boolean withdrawRetryToken()
+    {
+        if (retryTokens < 1)
+        {
+            return false;
+        }
+        retryTokens -= 1;
+        return true;
+    }
+
+    private static String hostOf(String url)
+    {
+        String host = URI.create(url).getHost();
+        return host != null ? host : "";
+    }
+
+    private static FetchOutcome classify(IOException e)
+    {
+        // SocketTimeoutException and OkHttp's call timeout are both InterruptedIOExceptions
+        FetchOutcome.Status status = e instanceof InterruptedIOException
+            ? FetchOutcome.Status.TIMEOUT
+            : FetchOutcome.Status.NETWORK_ERROR;
+        return FetchOutcome.failure(status, 0, 0);
+    }
+
+    /**
+     * Parse a Retry-After header given in seconds. HTTP-date values are ignored.
+     */
+    static long parseRetryAfter(String header)
+    {
+        if (header == null)
+        {
+            return 0;
+        }
+        try
+        {
+            return Math.max(0, Long.parseLong(header.trim())) * 1000;
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+
+    /**
+     * One logical request across all of its retry attempts.
+     */
+    private static class Exchange
+    {
+        private final String url;
+        private final String host;
+        private final RequestScheduler.Ticket ticket;
+        private final LatencyTracker tracker;
+        private final CompletableFuture<FetchOutcome> future = new CompletableFuture<>();
+
+        // Hook run once when the first attempt is handed to OkHttp (used to arm a hedge)
+        private Runnable onSent;
+        // A duplicate racing another exchange: own scheduler slot, no retries or retry budget
+        private boolean hedge;
+        private volatile boolean firstByte;
+
+        Exchange(String url, RequestScheduler.Ticket ticket, LatencyTracker tracker)
+        {
+            this.url = url;
+            this.host = hostOf(url);
+            this.ticket = ticket;
+            this.tracker = tracker;
+        }
+    }
+}
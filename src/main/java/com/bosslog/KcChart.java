@@ -0,0 +1,137 @@
+package com.bosslog;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.JComponent;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+
+/**
+ * Small line chart of one boss's KC (green) and hiscore rank (grey, better ranks
+ * higher) over the stored snapshots.
+ */
+class KcChart extends JComponent
+{
+    private static final Color KC_COLOR = new Color(76, 175, 110);
+    private static final Color RANK_COLOR = new Color(120, 120, 120);
+    private static final int HEIGHT = 100;
+    private static final int PAD = 6;
+    private static final int TITLE_HEIGHT = 14;
+
+    private String title = "";
+    private List<SnapshotStore.Point> points = Collections.emptyList();
+
+    KcChart()
+    {
+        setPreferredSize(new Dimension(0, HEIGHT));
+        setOpaque(true);
+        setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        setFont(FontManager.getRunescapeSmallFont());
+    }
+
+    void setPoints(String title, List<SnapshotStore.Point> points)
+    {
+        this.title = title;
+        this.points = points;
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try
+        {
+            g2.setColor(getBackground());
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setFont(getFont());
+
+            int left = PAD;
+            int top = PAD + TITLE_HEIGHT;
+            int width = getWidth() - 2 * PAD;
+            int height = getHeight() - top - PAD;
+
+            g2.setColor(ColorScheme.LIGHT_GRAY_COLOR);
+            if (points.isEmpty())
+            {
+                g2.drawString(title + ": no history yet", left, PAD + 10);
+                return;
+            }
+
+            SnapshotStore.Point first = points.get(0);
+            SnapshotStore.Point last = points.get(points.size() - 1);
+            g2.drawString(title + ": " + Math.max(first.getKc(), 0) + " \u2192 " + Math.max(last.getKc(), 0)
+                + " kc", left, PAD + 10);
+
+            long minTime = first.getTimestamp();
+            long timeSpan = Math.max(1, last.getTimestamp() - minTime);
+            int minKc = Integer.MAX_VALUE;
+            int maxKc = Integer.MIN_VALUE;
+            int minRank = Integer.MAX_VALUE;
+            int maxRank = Integer.MIN_VALUE;
+            for (SnapshotStore.Point p : points)
+            {
+                minKc = Math.min(minKc, Math.max(p.getKc(), 0));
+                maxKc = Math.max(maxKc, Math.max(p.getKc(), 0));
+                if (p.getRank() > 0)
+                {
+                    minRank = Math.min(minRank, p.getRank());
+                    maxRank = Math.max(maxRank, p.getRank());
+                }
+            }
+
+            g2.setStroke(new BasicStroke(1.5f));
+            if (minRank <= maxRank)
+            {
+                g2.setColor(RANK_COLOR);
+                drawSeries(g2, left, top, width, height, minTime, timeSpan, minRank, maxRank, true);
+            }
+            g2.setColor(KC_COLOR);
+            drawSeries(g2, left, top, width, height, minTime, timeSpan, minKc, maxKc, false);
+        }
+        finally
+        {
+            g2.dispose();
+        }
+    }
+
+    private void drawSeries(Graphics2D g2, int left, int top, int width, int height,
+                            long minTime, long timeSpan, int min, int max, boolean rank)
+    {
+        int span = Math.max(1, max - min);
+        int prevX = -1;
+        int prevY = -1;
+        for (SnapshotStore.Point p : points)
+        {
+            int value = rank ? p.getRank() : Math.max(p.getKc(), 0);
+            if (rank && value <= 0)
+            {
+                // Off the hiscores for this snapshot; break the line
+                prevX = -1;
+                continue;
+            }
+
+            // Rank 1 at the top, so both lines rise as the player improves
+            double fraction = (double) (value - min) / span;
+            int x = left + (int) ((p.getTimestamp() - minTime) * width / timeSpan);
+            int y = top + (int) (rank ? fraction * height : (1 - fraction) * height);
+            if (prevX >= 0)
+            {
+                g2.drawLine(prevX, prevY, x, y);
+            }
+            else
+            {
+                g2.fillOval(x - 2, y - 2, 4, 4);
+            }
+            prevX = x;
+            prevY = y;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.bosslog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+import net.runelite.client.util.Text;
+
+/**
+ * Append-only journal of boss kills seen in game chat, stored under
+ * ~/.runelite/420kc as fixed-width binary records in a memory-mapped file.
+ * Appending a kill is a handful of buffer writes; the OS flushes pages to disk.
+ * The journal is replayed on open, so the latest KC per player and boss
+ * is known at startup without any network.
+ *
+ * Record layout (24 bytes, big-endian):
+ * long timestamp millis, int player ID, int boss ID, int KC, int duration millis (0 if unknown).
+ * IDs are {@link String#hashCode()} of the standardized player name and the hiscore boss name.
+ * The timestamp is written last, so a torn record reads as zero and ends the journal.
+ *
+ * Only one client writes the journal: it holds an exclusive lock on the file, and
+ * any other client open at the same time maps it read-only and keeps its kills in memory.
+ */
+@Slf4j
+@Singleton
+public class KcJournal
+{
+    /**
+     * Receives journal records in the order they were written.
+     */
+    public interface Visitor
+    {
+        void visit(long timestamp, int playerId, String bossName, int kc, int durationMillis);
+    }
+
+    private static final File JOURNAL_FILE = new File(new File(RuneLite.RUNELITE_DIR, "420kc"), "kc-journal.bin");
+    private static final int RECORD_SIZE = 24;
+    // The file grows by this many records at a time; unused tail records are all zero
+    private static final int GROW_RECORDS = 4096;
+
+    private static final Map<Integer, String> BOSS_IDS = new HashMap<>();
+    static
+    {
+        for (String name : HiscoreService.bossNames())
+        {
+            BOSS_IDS.put(name.hashCode(), name);
+        }
+    }
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private int lastRecord = -1;
+    // Another client holds the lock; replay what is on disk but don't write
+    private boolean readOnly;
+
+    // Player ID -> hiscore boss name -> latest journaled KC
+    private final Map<Integer, Map<String, Integer>> latestKc = new HashMap<>();
+
+    /**
+     * Lock and map the journal file and replay it. If another client holds the lock,
+     * the journal is opened read-only. Failures are logged and leave the journal disabled.
+     */
+    public synchronized void open()
+    {
+        if (channel != null)
+        {
+            return;
+        }
+
+        try
+        {
+            File dir = JOURNAL_FILE.getParentFile();
+            if (!dir.isDirectory() && !dir.mkdirs())
+            {
+                throw new IOException("Could not create " + dir);
+            }
+
+            channel = new RandomAccessFile(JOURNAL_FILE, "rw").getChannel();
+            readOnly = !tryLock();
+            if (readOnly)
+            {
+                log.info("KC journal is in use by another client; opening it read-only");
+                long size = channel.size() - channel.size() % RECORD_SIZE;
+                if (size > 0)
+                {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                }
+            }
+            else
+            {
+                long size = Math.max(channel.size(), (long) GROW_RECORDS * RECORD_SIZE);
+                map(size - size % RECORD_SIZE);
+            }
+
+            position = 0;
+            latestKc.clear();
+            replay((timestamp, playerId, bossName, kc, durationMillis) ->
+                latestKc.computeIfAbsent(playerId, k -> new HashMap<>()).merge(bossName, kc, Math::max));
+            log.debug("Replayed {} journaled kills", position / RECORD_SIZE);
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to open KC journal", e);
+            close();
+        }
+    }
+
+    public synchronized void close()
+    {
+        if (buffer != null)
+        {
+            if (!readOnly)
+            {
+                buffer.force();
+            }
+            buffer = null;
+        }
+        if (channel != null)
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                log.debug("Failed to close KC journal", e);
+            }
+            channel = null;
+        }
+        lastRecord = -1;
+        readOnly = false;
+    }
+
+    /**
+     * Replay every record in the journal. Records for bosses no longer tracked are skipped.
+     */
+    public synchronized void replay(Visitor visitor)
+    {
+        if (buffer == null)
+        {
+            return;
+        }
+
+        int limit = buffer.capacity() - RECORD_SIZE;
+        int offset = 0;
+        for (; offset <= limit; offset += RECORD_SIZE)
+        {
+            long timestamp = buffer.getLong(offset);
+            if (timestamp == 0)
+            {
+                break;
+            }
+            String bossName = BOSS_IDS.get(buffer.getInt(offset + 12));
+            if (bossName != null)
+            {
+                visitor.visit(timestamp, buffer.getInt(offset + 8), bossName,
+                    buffer.getInt(offset + 16), buffer.getInt(offset + 20));
+            }
+        }
+        position = Math.max(position, offset);
+    }
+
+    /**
+     * Append a kill. The duration can be filled in afterwards with {@link #setLastDuration}.
+     */
+    public synchronized void append(String player, String bossName, int kc)
+    {
+        int playerId = playerId(player);
+        if (channel == null)
+        {
+            return;
+        }
+        if (readOnly)
+        {
+            latestKc.computeIfAbsent(playerId, k -> new HashMap<>()).merge(bossName, kc, Math::max);
+            return;
+        }
+
+        try
+        {
+            if (position + RECORD_SIZE > buffer.capacity())
+            {
+                map((long) buffer.capacity() + (long) GROW_RECORDS * RECORD_SIZE);
+            }
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to grow KC journal", e);
+            return;
+        }
+
+        buffer.putInt(position + 8, playerId);
+        buffer.putInt(position + 12, bossName.hashCode());
+        buffer.putInt(position + 16, kc);
+        buffer.putInt(position + 20, 0);
+        buffer.putLong(position, System.currentTimeMillis());
+        lastRecord = position;
+        position += RECORD_SIZE;
+
+        latestKc.computeIfAbsent(playerId, k -> new HashMap<>()).merge(bossName, kc, Math::max);
+    }
+
+    /**
+     * Fill in the fight duration of the most recently appended kill, if it was for this boss.
+     */
+    public synchronized void setLastDuration(String bossName, long durationMillis)
+    {
+        if (buffer == null || readOnly || lastRecord < 0 || buffer.getInt(lastRecord + 12) != bossName.hashCode())
+        {
+            return;
+        }
+        buffer.putInt(lastRecord + 20, (int) Math.min(Integer.MAX_VALUE, durationMillis));
+    }
+
+    /**
+     * @return hiscore boss name -> latest journaled KC for the player, empty if none
+     */
+    public synchronized Map<String, Integer> getLatestKc(String player)
+    {
+        Map<String, Integer> kcs = latestKc.get(playerId(player));
+        return kcs == null ? Collections.emptyMap() : new HashMap<>(kcs);
+    }
+
+    public static int playerId(String player)
+    {
+        return Text.standardize(player).hashCode();
+    }
+
+    /**
+     * @return true if this client now holds the journal's write lock
+     */
+    private boolean tryLock() throws IOException
+    {
+        try
+        {
+            // Released when the channel is closed
+            FileLock lock = channel.tryLock();
+            return lock != null;
+        }
+        catch (OverlappingFileLockException e)
+        {
+            // Already locked by this JVM, e.g. a second plugin instance
+            return false;
+        }
+    }
+
+    private void map(long size) throws IOException
+    {
+        if (buffer != null)
+        {
+            buffer.force();
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+}
@@ -0,0 +1,128 @@
+package com.bosslog;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.font.TextLayout;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+
+/**
+ * Small in-game box for the boss the local player is currently killing:
+ * KC, kills to the next 420 KC, and kills this session.
+ * Values are pushed from the chat KC stream; render() only draws cached
+ * text layouts, which are rebuilt when a value changes rather than every frame.
+ */
+@Singleton
+public class KcOverlay extends Overlay
+{
+    private static final Color BACKGROUND = new Color(0, 0, 0, 150);
+    private static final Color GREEN = new Color(76, 175, 110);
+    private static final int PADDING = 4;
+    private static final int LINE_GAP = 2;
+
+    private final BossLogConfig config;
+    private final Dimension size = new Dimension();
+
+    // Written and read on the client thread
+    private String bossName;
+    private int kc;
+    private int sessionKills;
+    private boolean dirty;
+
+    private TextLayout[] lines = new TextLayout[0];
+    private Color[] lineColors = new Color[0];
+
+    @Inject
+    public KcOverlay(BossLogConfig config)
+    {
+        this.config = config;
+        setPosition(OverlayPosition.TOP_LEFT);
+        setLayer(OverlayLayer.ABOVE_WIDGETS);
+    }
+
+    /**
+     * Show a new kill. Must be called on the client thread.
+     */
+    public void update(String bossName, int kc, int sessionKills)
+    {
+        if (kc == this.kc && sessionKills == this.sessionKills && bossName.equals(this.bossName))
+        {
+            return;
+        }
+        this.bossName = bossName;
+        this.kc = kc;
+        this.sessionKills = sessionKills;
+        dirty = true;
+    }
+
+    public void clear()
+    {
+        bossName = null;
+        dirty = true;
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics)
+    {
+        if (!config.showOverlay() || bossName == null)
+        {
+            return null;
+        }
+
+        if (dirty)
+        {
+            layout(graphics);
+            dirty = false;
+        }
+
+        graphics.setColor(BACKGROUND);
+        graphics.fillRect(0, 0, size.width, size.height);
+
+        float y = PADDING;
+        for (int i = 0; i < lines.length; i++)
+        {
+            TextLayout line = lines[i];
+            y += line.getAscent();
+            graphics.setColor(lineColors[i]);
+            line.draw(graphics, PADDING, y);
+            y += line.getDescent() + LINE_GAP;
+        }
+        return size;
+    }
+
+    private void layout(Graphics2D graphics)
+    {
+        Font bold = FontManager.getRunescapeBoldFont();
+        Font font = FontManager.getRunescapeFont();
+
+        int next = SessionStats.next420(kc);
+        String[] text = {
+            bossName,
+            "KC: " + kc,
+            String.valueOf(kc).contains("420")
+                ? "Blaze it!"
+                : (next - kc) + " to " + next,
+            "Session: " + sessionKills
+        };
+
+        lines = new TextLayout[text.length];
+        lineColors = new Color[text.length];
+        float width = 0;
+        float height = 0;
+        for (int i = 0; i < text.length; i++)
+        {
+            lines[i] = new TextLayout(text[i], i == 0 ? bold : font, graphics.getFontRenderContext());
+            lineColors[i] = i == 0 || i == 2 ? GREEN : ColorScheme.LIGHT_GRAY_COLOR;
+            width = Math.max(width, lines[i].getAdvance());
+            height += lines[i].getAscent() + lines[i].getDescent() + LINE_GAP;
+        }
+        size.setSize(Math.ceil(width) + PADDING * 2, Math.ceil(height - LINE_GAP) + PADDING * 2);
+    }
+}
@@ -0,0 +1,226 @@
+package com.bosslog;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+import net.runelite.client.util.Text;
+
+/**
+ * The most recent successful hiscore and collection log result per player,
+ * kept on disk as gzipped JSON under ~/.runelite/420kc/lastgood so the panel
+ * has something to show while the hiscores or TempleOSRS are down.
+ * The directory is capped at {@value #MAX_BYTES} bytes; the least recently
+ * saved or served files are deleted first.
+ */
+@Slf4j
+@Singleton
+public class LastGoodStore
+{
+    private static final File STORE_DIR = new File(new File(RuneLite.RUNELITE_DIR, "420kc"), "lastgood");
+    private static final Gson GSON = new Gson();
+    private static final long MAX_BYTES = 4 * 1024 * 1024;
+
+    private static final String HISCORES = ".hs.gz";
+    private static final String CLOG = ".clog.gz";
+    private static final Type HISCORES_TYPE = new TypeToken<Saved<HiscoreResult>>(){}.getType();
+    private static final Type CLOG_TYPE = new TypeToken<Saved<ClogResult>>(){}.getType();
+
+    /**
+     * A stored result and when it was fetched.
+     */
+    public static class Saved<T>
+    {
+        private final T result;
+        private final long savedAt;
+
+        Saved(T result, long savedAt)
+        {
+            this.result = result;
+            this.savedAt = savedAt;
+        }
+
+        public T getResult()
+        {
+            return result;
+        }
+
+        public long getSavedAt()
+        {
+            return savedAt;
+        }
+    }
+
+    // File name -> size, least recently used first; loaded from the directory on first use
+    private Map<String, Long> files;
+    private long totalBytes;
+
+    /**
+     * Save a fresh hiscore result. Blocks on disk I/O; call off the EDT with a result
+     * nothing else is mutating.
+     */
+    public void saveHiscores(String player, HiscoreResult result)
+    {
+        save(fileName(player, HISCORES), new Saved<>(result, System.currentTimeMillis()));
+    }
+
+    /**
+     * Save a collection log without the category lists and item names it shares with
+     * every other player; {@link ClogService#withReferenceData} restores them on load.
+     */
+    public void saveClog(String player, ClogResult result)
+    {
+        save(fileName(player, CLOG), new Saved<>(result.slim(), System.currentTimeMillis()));
+    }
+
+    /**
+     * Save some categories of a player's log into the stored copy, replacing the
+     * stored categories they share and keeping the rest. For per-boss lookups,
+     * which would otherwise wipe every category they didn't fetch.
+     */
+    public synchronized void mergeClog(String player, ClogResult categories)
+    {
+        Saved<ClogResult> stored = loadClog(player);
+        saveClog(player, stored != null ? stored.result.merge(categories) : categories);
+    }
+
+    /**
+     * @return the last saved hiscore result, or null if there is none
+     */
+    public Saved<HiscoreResult> loadHiscores(String player)
+    {
+        Saved<HiscoreResult> saved = load(fileName(player, HISCORES), HISCORES_TYPE);
+        return saved != null && saved.result != null ? saved : null;
+    }
+
+    public Saved<ClogResult> loadClog(String player)
+    {
+        Saved<ClogResult> saved = load(fileName(player, CLOG), CLOG_TYPE);
+        return saved != null && saved.result != null ? saved : null;
+    }
+
+    private synchronized void save(String name, Saved<?> saved)
+    {
+        File file = new File(STORE_DIR, name);
+        File tmp = new File(STORE_DIR, name + ".tmp");
+        try
+        {
+            index();
+            if (!STORE_DIR.isDirectory() && !STORE_DIR.mkdirs())
+            {
+                throw new IOException("Could not create " + STORE_DIR);
+            }
+            try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(tmp)),
+                StandardCharsets.UTF_8))
+            {
+                GSON.toJson(saved, writer);
+            }
+            // Replace in one step so a crash never leaves a half-written file
+            if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file)))
+            {
+                throw new IOException("Could not replace " + file);
+            }
+
+            Long previous = files.remove(name);
+            totalBytes += file.length() - (previous != null ? previous : 0);
+            files.put(name, file.length());
+            evict();
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to save last good result", e);
+            tmp.delete();
+        }
+    }
+
+    private synchronized <T> Saved<T> load(String name, Type type)
+    {
+        File file = new File(STORE_DIR, name);
+        if (!file.exists())
+        {
+            return null;
+        }
+
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(file)),
+            StandardCharsets.UTF_8))
+        {
+            Saved<T> saved = GSON.fromJson(reader, type);
+            // Served: move to the back of the eviction order
+            index();
+            file.setLastModified(System.currentTimeMillis());
+            Long size = files.remove(name);
+            if (size != null)
+            {
+                files.put(name, size);
+            }
+            return saved;
+        }
+        catch (IOException | JsonParseException e)
+        {
+            log.debug("Unable to read last good result {}: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private void index()
+    {
+        if (files != null)
+        {
+            return;
+        }
+
+        files = new LinkedHashMap<>();
+        totalBytes = 0;
+        File[] existing = STORE_DIR.listFiles((dir, name) -> name.endsWith(".gz"));
+        if (existing == null)
+        {
+            return;
+        }
+        Arrays.sort(existing, Comparator.comparingLong(File::lastModified));
+        for (File file : existing)
+        {
+            files.put(file.getName(), file.length());
+            totalBytes += file.length();
+        }
+        evict();
+    }
+
+    private void evict()
+    {
+        Iterator<Map.Entry<String, Long>> it = files.entrySet().iterator();
+        while (totalBytes > MAX_BYTES && it.hasNext())
+        {
+            Map.Entry<String, Long> oldest = it.next();
+            File file = new File(STORE_DIR, oldest.getKey());
+            if (file.delete() || !file.exists())
+            {
+                totalBytes -= oldest.getValue();
+                it.remove();
+            }
+        }
+    }
+
+    private static String fileName(String player, String suffix)
+    {
+        return Text.standardize(player).replaceAll("[^a-z0-9-]+", "_") + suffix;
+    }
+}
@@ -0,0 +1,44 @@
+package com.bosslog;
+
+import java.util.Arrays;
+
+/**
+ * Rolling window of recent time-to-first-byte samples for one kind of request.
+ * Used to decide when a request is slow enough to be worth hedging.
+ */
+public class LatencyTracker
+{
+    private static final int WINDOW = 64;
+    // Too few samples and the percentile is noise; don't hedge until we have these
+    private static final int MIN_SAMPLES = 8;
+
+    private final long[] samples = new long[WINDOW];
+    private int count;
+    private int next;
+
+    public synchronized void record(long millis)
+    {
+        samples[next] = millis;
+        next = (next + 1) % WINDOW;
+        if (count < WINDOW)
+        {
+            count++;
+        }
+    }
+
+    /**
+     * @param percentile 1-99
+     * @return the latency at that percentile in ms, or -1 if there are not enough samples yet
+     */
+    public synchronized long percentile(int percentile)
+    {
+        if (count < MIN_SAMPLES)
+        {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, idx))];
+    }
+}
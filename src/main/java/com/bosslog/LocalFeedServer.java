@@ -0,0 +1,397 @@
+package com.bosslog;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Opt-in HTTP server on localhost for stream overlays. Serves the panel's
+ * current results as JSON from {@code /results} and pushes live KCs as
+ * server-sent events from {@code /events}, so overlays don't have to hit the
+ * hiscores or 420kc.live themselves.
+ *
+ * The JSON is serialized once per change and the same bytes are served to
+ * every poll, with an ETag so unchanged polls get an empty 304.
+ *
+ * Events are queued per stream client and written by writer threads, never by
+ * the publishing thread or under this server's lock; a client that stops
+ * reading is dropped once its queue fills, so it can't stall the others.
+ */
+@Slf4j
+@Singleton
+public class LocalFeedServer
+{
+    private static final Gson GSON = new Gson();
+    private static final int MAX_EVENT_CLIENTS = 16;
+    // Events queued for a client before it is considered stalled and dropped
+    private static final int MAX_PENDING_EVENTS = 32;
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final byte[] EMPTY_RESULTS = "{}".getBytes(StandardCharsets.UTF_8);
+
+    private final ScheduledExecutorService executor;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private ExecutorService writerThreads;
+    private ScheduledFuture<?> heartbeat;
+
+    // Current /results body and its ETag, replaced whole on each change
+    private byte[] results = EMPTY_RESULTS;
+    private String etag = "\"0\"";
+    private int resultsVersion;
+
+    private final List<EventClient> eventClients = new ArrayList<>();
+
+    /**
+     * An open event stream. Its writer thread sends the headers and then drains
+     * {@code pending}; only one writer runs per client at a time.
+     */
+    private static class EventClient
+    {
+        private final HttpExchange exchange;
+        private final Deque<byte[]> pending = new ArrayDeque<>();
+        private boolean writing;
+        private boolean headersSent;
+
+        EventClient(HttpExchange exchange)
+        {
+            this.exchange = exchange;
+        }
+    }
+
+    @Inject
+    public LocalFeedServer(ScheduledExecutorService executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * Start serving on 127.0.0.1, or restart if already running.
+     */
+    public synchronized void start(int port)
+    {
+        stop();
+        try
+        {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to start local feed on port {}", port, e);
+            server = null;
+            return;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        serverThreads = Executors.newFixedThreadPool(2, r ->
+        {
+            Thread t = new Thread(r, "420kc-feed-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        writerThreads = Executors.newCachedThreadPool(r ->
+        {
+            Thread t = new Thread(r, "420kc-feed-writer-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(serverThreads);
+        server.createContext("/results", this::handleResults);
+        server.createContext("/events", this::handleEvents);
+        server.start();
+        heartbeat = executor.scheduleWithFixedDelay(() -> broadcast(": ping\n\n"),
+            HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        log.debug("Local feed listening on 127.0.0.1:{}", port);
+    }
+
+    public synchronized void stop()
+    {
+        if (server == null)
+        {
+            return;
+        }
+        heartbeat.cancel(false);
+        // Stopping the server closes the connections, which ends any write in progress
+        eventClients.clear();
+        server.stop(0);
+        serverThreads.shutdownNow();
+        writerThreads.shutdownNow();
+        server = null;
+    }
+
+    public synchronized boolean isRunning()
+    {
+        return server != null;
+    }
+
+    /**
+     * Publish the panel's current results. Serialized off the caller's thread;
+     * pass copies nothing else will mutate. Does nothing while stopped.
+     */
+    public void publishResults(String player, HiscoreResult hiscores, ClogResult clog)
+    {
+        final int version;
+        synchronized (this)
+        {
+            if (server == null)
+            {
+                return;
+            }
+            version = ++resultsVersion;
+        }
+
+        executor.execute(() ->
+        {
+            byte[] body = GSON.toJson(toJson(player, hiscores, clog)).getBytes(StandardCharsets.UTF_8);
+            synchronized (this)
+            {
+                // A newer publish may have finished first
+                if (version != resultsVersion)
+                {
+                    return;
+                }
+                results = body;
+                etag = "\"" + version + "\"";
+            }
+            broadcast("event: results\ndata: {\"version\":" + version + "}\n\n");
+        });
+    }
+
+    /**
+     * Push a KC from game chat to event stream clients. Returns at once; the
+     * event is built and queued on the executor.
+     */
+    public void publishKc(String player, String bossName, int kc)
+    {
+        if (!isRunning())
+        {
+            return;
+        }
+        executor.execute(() ->
+        {
+            JsonObject event = new JsonObject();
+            event.addProperty("player", player);
+            event.addProperty("boss", bossName);
+            event.addProperty("kc", kc);
+            broadcast("event: kc\ndata: " + GSON.toJson(event) + "\n\n");
+        });
+    }
+
+    private static JsonObject toJson(String player, HiscoreResult hiscores, ClogResult clog)
+    {
+        JsonObject json = new JsonObject();
+        json.addProperty("player", player);
+        json.addProperty("updatedAt", System.currentTimeMillis());
+        if (hiscores != null)
+        {
+            json.addProperty("accountType", hiscores.getAccountType().name());
+            json.addProperty("totalLevel", hiscores.getTotalLevel());
+
+            JsonObject bosses = new JsonObject();
+            for (String boss : HiscoreService.bossNames())
+            {
+                int kc = hiscores.getKc(boss);
+                if (kc > 0)
+                {
+                    JsonObject entry = new JsonObject();
+                    entry.addProperty("kc", kc);
+                    entry.addProperty("rank", hiscores.getRank(boss));
+                    bosses.add(boss, entry);
+                }
+            }
+            json.add("bosses", bosses);
+        }
+        if (clog != null)
+        {
+            // Per category: [obtained, total]
+            JsonObject categories = new JsonObject();
+            for (Map.Entry<String, List<Integer>> category : clog.getCategoryItems().entrySet())
+            {
+                List<ClogResult.ClogItem> obtained = clog.getObtainedItems().get(category.getKey());
+                JsonArray counts = new JsonArray();
+                counts.add(obtained != null ? obtained.size() : 0);
+                counts.add(category.getValue().size());
+                categories.add(category.getKey(), counts);
+            }
+            json.add("collectionLog", categories);
+        }
+        return json;
+    }
+
+    private void handleResults(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            if (!"GET".equals(exchange.getRequestMethod()))
+            {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body;
+            String tag;
+            synchronized (this)
+            {
+                body = results;
+                tag = etag;
+            }
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().set("ETag", tag);
+            if (tag.equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+            {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Register the exchange for broadcasts and keep its response open. The handler
+     * returns at once, so open streams don't hold server threads; the headers are
+     * sent by the client's writer.
+     */
+    private void handleEvents(HttpExchange exchange) throws IOException
+    {
+        if (!"GET".equals(exchange.getRequestMethod()))
+        {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+
+        synchronized (this)
+        {
+            if (server != null && eventClients.size() < MAX_EVENT_CLIENTS)
+            {
+                EventClient client = new EventClient(exchange);
+                eventClients.add(client);
+                enqueue(client, "retry: 5000\n\n".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        exchange.sendResponseHeaders(503, -1);
+        exchange.close();
+    }
+
+    /**
+     * Queue an event for every stream client.
+     */
+    private synchronized void broadcast(String event)
+    {
+        if (server == null || eventClients.isEmpty())
+        {
+            return;
+        }
+        byte[] bytes = event.getBytes(StandardCharsets.UTF_8);
+        for (EventClient client : new ArrayList<>(eventClients))
+        {
+            enqueue(client, bytes);
+        }
+    }
+
+    /**
+     * Queue bytes for a client and start its writer if it isn't running. Caller holds the lock.
+     */
+    private void enqueue(EventClient client, byte[] bytes)
+    {
+        if (client.pending.size() >= MAX_PENDING_EVENTS)
+        {
+            log.debug("Dropping event stream client that stopped reading");
+            drop(client);
+            return;
+        }
+        client.pending.addLast(bytes);
+        if (!client.writing)
+        {
+            client.writing = true;
+            writerThreads.execute(() -> write(client));
+        }
+    }
+
+    /**
+     * Drain a client's queue to its socket. Runs on a writer thread, outside the lock.
+     */
+    private void write(EventClient client)
+    {
+        while (true)
+        {
+            byte[] bytes;
+            synchronized (this)
+            {
+                bytes = client.pending.pollFirst();
+                if (bytes == null || !eventClients.contains(client))
+                {
+                    client.writing = false;
+                    return;
+                }
+            }
+
+            try
+            {
+                if (!client.headersSent)
+                {
+                    client.exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+                    client.exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                    client.exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+                    client.exchange.sendResponseHeaders(200, 0);
+                    client.headersSent = true;
+                }
+                OutputStream out = client.exchange.getResponseBody();
+                out.write(bytes);
+                out.flush();
+            }
+            catch (IOException e)
+            {
+                synchronized (this)
+                {
+                    client.writing = false;
+                    drop(client);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forget a client and close its stream on a writer thread, since closing can
+     * block on a client that stopped reading. Caller holds the lock.
+     */
+    private void drop(EventClient client)
+    {
+        if (!eventClients.remove(client))
+        {
+            return;
+        }
+        client.pending.clear();
+        writerThreads.execute(client.exchange::close);
+    }
+}
@@ -0,0 +1,256 @@
+package com.bosslog;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.util.Text;
+
+/**
+ * Short-lived cache of hiscore and collection log lookups, in flight or done.
+ * Lets a lookup started speculatively (on right-click, or while typing) be
+ * picked up by the real lookup instead of fetching the same player twice.
+ * A speculative lookup that is never claimed is cancelled as soon as another
+ * player is prefetched, so abandoned menus don't keep requests queued.
+ * An interactive lookup never waits on a background one: the requests of a
+ * background lookup still pending when it is claimed are promoted to the
+ * interactive queue, so it can't be dropped while the user waits on it, and
+ * nothing already sent is fetched again. Only a lookup that was dropped anyway
+ * is reissued, since a failed lookup is never reused.
+ * The per-boss collection log lookup shares its player's hiscore lookup, which
+ * says which bosses' categories to fetch.
+ */
+@Slf4j
+@Singleton
+public class LookupCache
+{
+    private static final long TTL_MS = 30_000;
+
+    private final HiscoreService hiscoreService;
+    private final ClogService clogService;
+    private final RequestScheduler scheduler;
+    private final BossLogConfig config;
+    private final LocalFeedServer localFeedServer;
+
+    private final Map<String, Entry<HiscoreResult>> hiscores = new HashMap<>();
+    private final Map<String, Entry<ClogResult>> clogs = new HashMap<>();
+    // Collection logs with only the categories of bosses the player has KC in
+    private final Map<String, Entry<ClogResult>> killedClogs = new HashMap<>();
+
+    // Standardized name of the player with unclaimed speculative lookups, if any
+    private String speculativePlayer;
+
+    @Inject
+    public LookupCache(HiscoreService hiscoreService, ClogService clogService, RequestScheduler scheduler,
+                       BossLogConfig config, LocalFeedServer localFeedServer)
+    {
+        this.hiscoreService = hiscoreService;
+        this.clogService = clogService;
+        this.scheduler = scheduler;
+        this.config = config;
+        this.localFeedServer = localFeedServer;
+    }
+
+    /**
+     * Whether collection logs are fetched per boss with {@link #getKilledBossesClog}
+     * rather than whole. The local feed publishes every category, so it needs the whole log.
+     */
+    public boolean isClogPerBoss()
+    {
+        return config.clogPerBoss() && !localFeedServer.isRunning();
+    }
+
+    /**
+     * Hiscores for a player, reusing a recent or in-flight lookup if there is one.
+     */
+    public synchronized CompletableFuture<HiscoreResult> getHiscores(String player, RequestScheduler.Priority priority)
+    {
+        claim(player);
+        return get(hiscores, player, priority, t -> hiscoreService.lookup(player, t));
+    }
+
+    /**
+     * Collection log for a player, reusing a recent or in-flight lookup if there is one.
+     */
+    public synchronized CompletableFuture<ClogResult> getClog(String player, RequestScheduler.Priority priority)
+    {
+        claim(player);
+        return get(clogs, player, priority, t -> clogService.lookup(player, t));
+    }
+
+    /**
+     * Collection log categories of the bosses a player has KC in, fetched as soon as
+     * their hiscores arrive. Reuses a recent or in-flight lookup, and the hiscore lookup.
+     */
+    public synchronized CompletableFuture<ClogResult> getKilledBossesClog(String player,
+                                                                          RequestScheduler.Priority priority)
+    {
+        claim(player);
+        if (priority == RequestScheduler.Priority.INTERACTIVE)
+        {
+            // The categories wait on this player's hiscores, which may be queued under another lookup
+            promote(hiscores.get(Text.standardize(player)));
+        }
+        return get(killedClogs, player, priority, t -> lookupKilledBossesClog(player, t));
+    }
+
+    /**
+     * Start background-priority lookups for a player the user may be about to look up.
+     * Unclaimed lookups for the previously prefetched player are cancelled.
+     */
+    public synchronized void prefetch(String player, boolean includeClog)
+    {
+        String key = Text.standardize(player);
+        if (key.isEmpty() || key.equals(speculativePlayer))
+        {
+            return;
+        }
+        cancelSpeculative();
+
+        // One ticket for everything prefetched, so claiming any of it promotes all of it
+        RequestScheduler.Ticket ticket = new RequestScheduler.Ticket(RequestScheduler.Priority.BACKGROUND);
+        boolean started = false;
+        if (!isFresh(hiscores.get(key)))
+        {
+            hiscores.put(key, new Entry<>(hiscoreService.lookup(player, ticket), ticket));
+            started = true;
+        }
+        if (includeClog && config.showCollectionLog())
+        {
+            // The same lookup the panel will make, so it can be claimed
+            boolean perBoss = isClogPerBoss();
+            Map<String, Entry<ClogResult>> cache = perBoss ? killedClogs : clogs;
+            if (!isFresh(cache.get(key)))
+            {
+                cache.put(key, new Entry<>(perBoss
+                    ? lookupKilledBossesClog(player, ticket)
+                    : clogService.lookup(player, ticket), ticket));
+                started = true;
+            }
+        }
+        if (started)
+        {
+            log.debug("Prefetching {}", player);
+            speculativePlayer = key;
+        }
+    }
+
+    /**
+     * Cancel any unclaimed speculative lookups.
+     */
+    public synchronized void cancelSpeculative()
+    {
+        if (speculativePlayer == null)
+        {
+            return;
+        }
+        cancel(hiscores, speculativePlayer);
+        cancel(clogs, speculativePlayer);
+        cancel(killedClogs, speculativePlayer);
+        speculativePlayer = null;
+    }
+
+    /**
+     * Caller holds the lock. Cancelling the result doesn't cancel category fetches
+     * already started; they still finish into ClogService's category cache.
+     */
+    private CompletableFuture<ClogResult> lookupKilledBossesClog(String player, RequestScheduler.Ticket ticket)
+    {
+        return get(hiscores, player, ticket, t -> hiscoreService.lookup(player, t))
+            .thenCompose(result -> result != null
+                ? clogService.lookupCategories(player, ClogService.killedCategories(result), ticket)
+                : CompletableFuture.completedFuture(null));
+    }
+
+    private void claim(String player)
+    {
+        if (Text.standardize(player).equals(speculativePlayer))
+        {
+            speculativePlayer = null;
+        }
+    }
+
+    private <T> CompletableFuture<T> get(Map<String, Entry<T>> cache, String player,
+                                         RequestScheduler.Priority priority,
+                                         Function<RequestScheduler.Ticket, CompletableFuture<T>> lookup)
+    {
+        return get(cache, player, new RequestScheduler.Ticket(priority), lookup);
+    }
+
+    /**
+     * Reuse a fresh entry, promoting it if {@code ticket} outranks it, or start
+     * a lookup on {@code ticket}. A claimed lookup is never cancelled: others may
+     * hold its future, and work already sent would only be fetched again.
+     */
+    private <T> CompletableFuture<T> get(Map<String, Entry<T>> cache, String player,
+                                         RequestScheduler.Ticket ticket,
+                                         Function<RequestScheduler.Ticket, CompletableFuture<T>> lookup)
+    {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(e -> now - e.createdAt > TTL_MS);
+
+        String key = Text.standardize(player);
+        Entry<T> entry = cache.get(key);
+        if (isFresh(entry))
+        {
+            if (ticket.getPriority() == RequestScheduler.Priority.INTERACTIVE)
+            {
+                promote(entry);
+            }
+            return entry.future;
+        }
+
+        entry = new Entry<>(lookup.apply(ticket), ticket);
+        cache.put(key, entry);
+        return entry.future;
+    }
+
+    /**
+     * Move a pending lookup's queued requests, and any it makes later, to the interactive queue.
+     */
+    private void promote(Entry<?> entry)
+    {
+        if (entry != null && !entry.future.isDone()
+            && entry.ticket.getPriority() != RequestScheduler.Priority.INTERACTIVE)
+        {
+            log.debug("Promoting background lookup to interactive");
+            scheduler.promote(entry.ticket);
+        }
+    }
+
+    private static <T> void cancel(Map<String, Entry<T>> cache, String key)
+    {
+        Entry<T> entry = cache.get(key);
+        if (entry != null && !entry.future.isDone())
+        {
+            entry.future.cancel(false);
+            cache.remove(key);
+        }
+    }
+
+    /**
+     * Usable if recent and not failed. Failures are never cached.
+     */
+    private static boolean isFresh(Entry<?> entry)
+    {
+        return entry != null
+            && System.currentTimeMillis() - entry.createdAt <= TTL_MS
+            && !entry.future.isCompletedExceptionally();
+    }
+
+    private static class Entry<T>
+    {
+        private final CompletableFuture<T> future;
+        private final RequestScheduler.Ticket ticket;
+        private final long createdAt = System.currentTimeMillis();
+
+        Entry(CompletableFuture<T> future, RequestScheduler.Ticket ticket)
+        {
+            this.future = future;
+            this.ticket = ticket;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.bosslog;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.api.Client;
+import net.runelite.api.Friend;
+import net.runelite.api.NameableContainer;
+import net.runelite.api.clan.ClanChannel;
+import net.runelite.api.clan.ClanChannelMember;
+import net.runelite.api.clan.ClanMember;
+import net.runelite.api.clan.ClanSettings;
+import net.runelite.client.config.ConfigManager;
+import net.runelite.client.util.Text;
+
+/**
+ * Known player names for search autocomplete: lookup history (persisted in
+ * config), the friends list and clan members. Friends and clan are read from
+ * the client on the client thread and applied to the {@link NameTrie} as they
+ * change; suggestions are read from the EDT.
+ */
+@Singleton
+public class NameIndex
+{
+    private static final int HISTORY_SIZE = 100;
+
+    private final Client client;
+    private final BossLogConfig config;
+    private final ConfigManager configManager;
+    private final NameTrie trie = new NameTrie();
+
+    // Most recent first; EDT only
+    private final LinkedList<String> history = new LinkedList<>();
+
+    // Friend count at the last sync; client thread only
+    private int friendCount = -1;
+
+    @Inject
+    public NameIndex(Client client, BossLogConfig config, ConfigManager configManager)
+    {
+        this.client = client;
+        this.config = config;
+        this.configManager = configManager;
+    }
+
+    public void loadHistory()
+    {
+        history.clear();
+        trie.clear(NameTrie.HISTORY);
+        for (String name : config.lookupHistory().split(","))
+        {
+            if (!name.isEmpty() && history.size() < HISTORY_SIZE)
+            {
+                history.add(name);
+                trie.add(name, NameTrie.HISTORY);
+            }
+        }
+    }
+
+    /**
+     * Remember a player that was looked up. Must be called on the EDT.
+     */
+    public void addToHistory(String name)
+    {
+        String key = Text.standardize(name);
+        history.removeIf(n -> Text.standardize(n).equals(key));
+        history.addFirst(name);
+        while (history.size() > HISTORY_SIZE)
+        {
+            trie.remove(history.removeLast(), NameTrie.HISTORY);
+        }
+        trie.add(name, NameTrie.HISTORY);
+        configManager.setConfiguration("420kc", "lookupHistory", String.join(",", history));
+    }
+
+    /**
+     * Re-read the friends list if its size changed. Cheap enough to call every tick.
+     * Must be called on the client thread.
+     */
+    public void syncFriends()
+    {
+        NameableContainer<Friend> friends = client.getFriendContainer();
+        if (friends == null || friends.getCount() == friendCount)
+        {
+            return;
+        }
+
+        trie.clear(NameTrie.FRIEND);
+        for (Friend friend : friends.getMembers())
+        {
+            if (friend != null && friend.getName() != null)
+            {
+                trie.add(friend.getName(), NameTrie.FRIEND);
+            }
+        }
+        friendCount = friends.getCount();
+    }
+
+    public void removeFriend(String name)
+    {
+        trie.remove(name, NameTrie.FRIEND);
+        friendCount--;
+    }
+
+    public void renameFriend(String previousName, String name)
+    {
+        if (previousName != null)
+        {
+            trie.remove(previousName, NameTrie.FRIEND);
+        }
+        trie.add(name, NameTrie.FRIEND);
+    }
+
+    /**
+     * Re-read the clan. Uses the full member list when available, otherwise
+     * the members currently in the clan channel. Must be called on the client thread.
+     */
+    public void syncClan()
+    {
+        trie.clear(NameTrie.CLAN);
+        for (String name : getClanMembers(client))
+        {
+            trie.add(name, NameTrie.CLAN);
+        }
+    }
+
+    public void addClanMember(String name)
+    {
+        trie.add(name, NameTrie.CLAN);
+    }
+
+    public void reset()
+    {
+        trie.clear(NameTrie.FRIEND);
+        trie.clear(NameTrie.CLAN);
+        friendCount = -1;
+    }
+
+    public List<String> suggest(String prefix, int limit)
+    {
+        return trie.complete(prefix, limit);
+    }
+
+    /**
+     * Names of the local player's clan members, empty if not in a clan.
+     * Must be called on the client thread.
+     */
+    static List<String> getClanMembers(Client client)
+    {
+        List<String> names = new ArrayList<>();
+        ClanSettings settings = client.getClanSettings();
+        if (settings != null)
+        {
+            for (ClanMember member : settings.getMembers())
+            {
+                if (member != null && member.getName() != null)
+                {
+                    names.add(member.getName());
+                }
+            }
+            return names;
+        }
+
+        ClanChannel channel = client.getClanChannel();
+        if (channel != null)
+        {
+            for (ClanChannelMember member : channel.getMembers())
+            {
+                if (member != null && member.getName() != null)
+                {
+                    names.add(member.getName());
+                }
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,249 @@
+package com.bosslog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import net.runelite.client.util.Text;
+
+/**
+ * Prefix index of player names for search autocomplete.
+ * Keys are standardized names, so case and space/underscore/hyphen differences
+ * don't matter. Each name remembers which sources it came from, so one source
+ * can be updated without disturbing the others.
+ * Every node knows which ranks occur below it, so a completion walks the
+ * prefix's subtree once per rank, only down branches holding that rank, and
+ * shortest names first; it stops as soon as it has enough names, so it stays
+ * fast with thousands of names indexed.
+ */
+public class NameTrie
+{
+    public static final int HISTORY = 1;
+    public static final int FRIEND = 2;
+    public static final int CLAN = 4;
+
+    // history, friend, clan
+    private static final int RANKS = 3;
+
+    private final Node root = new Node();
+    private int size;
+
+    public synchronized void add(String name, int source)
+    {
+        String key = Text.standardize(name);
+        if (key.isEmpty())
+        {
+            return;
+        }
+
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++)
+        {
+            path[i + 1] = path[i].child(key.charAt(i), true);
+        }
+        Node node = path[key.length()];
+        if (node.sources == 0)
+        {
+            size++;
+        }
+        node.sources |= source;
+        node.name = name;
+        updateRanks(path);
+    }
+
+    public synchronized void remove(String name, int source)
+    {
+        String key = Text.standardize(name);
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++)
+        {
+            path[i + 1] = path[i].child(key.charAt(i), false);
+            if (path[i + 1] == null)
+            {
+                return;
+            }
+        }
+        Node node = path[key.length()];
+        if ((node.sources & source) == 0)
+        {
+            return;
+        }
+        node.sources &= ~source;
+        if (node.sources == 0)
+        {
+            node.name = null;
+            size--;
+        }
+        updateRanks(path);
+    }
+
+    /**
+     * Drop a source from every name, e.g. before re-reading a changed clan.
+     */
+    public synchronized void clear(int source)
+    {
+        size -= clear(root, source);
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * Names starting with {@code prefix}, best first: lookup history, then
+     * friends, then clan, then shortest. The exact name typed is not suggested.
+     */
+    public synchronized List<String> complete(String prefix, int limit)
+    {
+        String key = Text.standardize(prefix);
+        if (key.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++)
+        {
+            node = node.child(key.charAt(i), false);
+        }
+
+        List<String> names = new ArrayList<>();
+        for (int rank = 0; rank < RANKS && node != null && names.size() < limit; rank++)
+        {
+            collect(node, rank, limit, names);
+        }
+        return names;
+    }
+
+    /**
+     * Add names of one rank below {@code start} to {@code names} until it holds
+     * {@code limit}, level by level so shorter names come first.
+     */
+    private static void collect(Node start, int rank, int limit, List<String> names)
+    {
+        int bit = 1 << rank;
+        List<Node> level = new ArrayList<>();
+        level.add(start);
+        while (!level.isEmpty() && names.size() < limit)
+        {
+            List<Node> found = new ArrayList<>();
+            List<Node> next = new ArrayList<>();
+            for (Node node : level)
+            {
+                if (node != start && node.sources != 0 && rank(node.sources) == rank)
+                {
+                    found.add(node);
+                }
+                for (int i = 0; i < node.childCount; i++)
+                {
+                    if ((node.children[i].ranks & bit) != 0)
+                    {
+                        next.add(node.children[i]);
+                    }
+                }
+            }
+            found.sort(Comparator.<Node>comparingInt(n -> n.name.length()).thenComparing(n -> n.name));
+            for (int i = 0; i < found.size() && names.size() < limit; i++)
+            {
+                names.add(found.get(i).name);
+            }
+            level = next;
+        }
+    }
+
+    /**
+     * Recompute subtree ranks from a node back up to the root after its sources changed.
+     */
+    private static void updateRanks(Node[] path)
+    {
+        for (int i = path.length - 1; i >= 0; i--)
+        {
+            path[i].updateRanks();
+        }
+    }
+
+    private static int clear(Node node, int source)
+    {
+        int removed = 0;
+        if ((node.sources & source) != 0)
+        {
+            node.sources &= ~source;
+            if (node.sources == 0)
+            {
+                node.name = null;
+                removed++;
+            }
+        }
+        for (int i = 0; i < node.childCount; i++)
+        {
+            removed += clear(node.children[i], source);
+        }
+        node.updateRanks();
+        return removed;
+    }
+
+    private static int rank(int sources)
+    {
+        if ((sources & HISTORY) != 0)
+        {
+            return 0;
+        }
+        return (sources & FRIEND) != 0 ? 1 : 2;
+    }
+
+    /**
+     * Children are kept in small parallel arrays sorted by character:
+     * names only use a few dozen characters and most nodes have one child.
+     */
+    private static class Node
+    {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+        private int sources;
+        private String name;
+        // Bit per rank of the names at and below this node
+        private int ranks;
+
+        void updateRanks()
+        {
+            int r = sources == 0 ? 0 : 1 << rank(sources);
+            for (int i = 0; i < childCount; i++)
+            {
+                r |= children[i].ranks;
+            }
+            ranks = r;
+        }
+
+        Node child(char c, boolean create)
+        {
+            int idx = Arrays.binarySearch(keys, 0, childCount, c);
+            if (idx >= 0)
+            {
+                return children[idx];
+            }
+            if (!create)
+            {
+                return null;
+            }
+
+            int insert = -idx - 1;
+            if (childCount == keys.length)
+            {
+                int capacity = Math.max(2, childCount * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, insert, keys, insert + 1, childCount - insert);
+            System.arraycopy(children, insert, children, insert + 1, childCount - insert);
+            Node node = new Node();
+            keys[insert] = c;
+            children[insert] = node;
+            childCount++;
+            return node;
+        }
+    }
+}
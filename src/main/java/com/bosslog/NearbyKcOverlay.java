@@ -0,0 +1,144 @@
+package com.bosslog;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.util.HashMap;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.api.Client;
+import net.runelite.api.Player;
+import net.runelite.api.Point;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.OverlayUtil;
+
+/**
+ * Shows a KC or a 420 badge above nearby players whose hiscores have been
+ * fetched by the {@link NearbyLookupQueue}, or shared over the party by
+ * {@link PartyKcSync}. The boss shown is the one the local
+ * player last killed. Labels are cached per player and only rebuilt when a new
+ * result arrives or that boss changes.
+ */
+@Singleton
+public class NearbyKcOverlay extends Overlay
+{
+    private static final Color GREEN = new Color(76, 175, 110);
+    private static final int Z_OFFSET = 40;
+
+    private final Client client;
+    private final BossLogConfig config;
+    private final NearbyLookupQueue lookupQueue;
+    private final SessionStats sessionStats;
+    private final PartyKcSync partyKcSync;
+
+    // Player name -> label, "" for players with nothing to show
+    private final Map<String, String> labels = new HashMap<>();
+    private int labelsVersion = -1;
+    private int labelsPartyVersion = -1;
+    private String labelsBoss;
+    private BossLogConfig.NearbyMode labelsMode;
+    private BossLogConfig.FourTwentyMode labelsFourTwenty;
+
+    @Inject
+    public NearbyKcOverlay(Client client, BossLogConfig config, NearbyLookupQueue lookupQueue,
+                           SessionStats sessionStats, PartyKcSync partyKcSync)
+    {
+        this.client = client;
+        this.config = config;
+        this.lookupQueue = lookupQueue;
+        this.sessionStats = sessionStats;
+        this.partyKcSync = partyKcSync;
+        setPosition(OverlayPosition.DYNAMIC);
+        setLayer(OverlayLayer.ABOVE_SCENE);
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics)
+    {
+        BossLogConfig.NearbyMode mode = config.nearbyPlayers();
+        if (mode == BossLogConfig.NearbyMode.OFF)
+        {
+            return null;
+        }
+
+        BossLogConfig.FourTwentyMode fourTwenty = config.fourTwentyMode();
+        String boss = sessionStats.getLastBoss();
+        int version = lookupQueue.getVersion();
+        int partyVersion = partyKcSync.getVersion();
+        if (version != labelsVersion || partyVersion != labelsPartyVersion || mode != labelsMode
+            || fourTwenty != labelsFourTwenty || (boss != null && !boss.equals(labelsBoss)))
+        {
+            labels.clear();
+            labelsVersion = version;
+            labelsPartyVersion = partyVersion;
+            labelsMode = mode;
+            labelsFourTwenty = fourTwenty;
+            labelsBoss = boss;
+        }
+
+        Player local = client.getLocalPlayer();
+        for (Player player : client.getTopLevelWorldView().players())
+        {
+            if (player == null || player == local || player.getName() == null)
+            {
+                continue;
+            }
+
+            String label = labels.computeIfAbsent(player.getName(), name -> buildLabel(name, mode, fourTwenty, boss));
+            if (label.isEmpty())
+            {
+                continue;
+            }
+
+            Point location = player.getCanvasTextLocation(graphics, label, player.getLogicalHeight() + Z_OFFSET);
+            if (location != null)
+            {
+                OverlayUtil.renderTextLocation(graphics, location, label, GREEN);
+            }
+        }
+        return null;
+    }
+
+    private String buildLabel(String name, BossLogConfig.NearbyMode mode, BossLogConfig.FourTwentyMode fourTwenty,
+                              String boss)
+    {
+        // Party members' own KCs are fresher than their last hiscore lookup, which
+        // fills in the bosses they have shared no KC for
+        HiscoreResult shared = partyKcSync.getResult(name);
+        HiscoreResult looked = lookupQueue.getResult(name);
+        if (shared == null && looked == null)
+        {
+            return "";
+        }
+
+        if (mode == BossLogConfig.NearbyMode.KC && boss != null)
+        {
+            int kc = kcOf(shared, looked, boss);
+            return kc > 0 ? kc + " kc" : "";
+        }
+
+        // Badge: 420 KC on the current boss, or on any boss if none yet this session,
+        // by the same 420 mode as the panel's grid
+        if (boss != null)
+        {
+            return fourTwenty.is420(kcOf(shared, looked, boss)) ? "420" : "";
+        }
+        for (String bossName : HiscoreService.bossNames())
+        {
+            if (fourTwenty.is420(kcOf(shared, looked, bossName)))
+            {
+                return "420";
+            }
+        }
+        return "";
+    }
+
+    private static int kcOf(HiscoreResult shared, HiscoreResult looked, String boss)
+    {
+        int kc = shared != null ? shared.getKc(boss) : -1;
+        return kc >= 0 || looked == null ? kc : looked.getKc(boss);
+    }
+}
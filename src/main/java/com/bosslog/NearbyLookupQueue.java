@@ -0,0 +1,216 @@
+package com.bosslog;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.util.Text;
+
+/**
+ * Background hiscore lookups for players near the local player.
+ * Names are deduplicated and queued as players spawn; hovered players jump
+ * the queue. Lookups run one at a time at background priority and are capped
+ * by a hard lookups-per-minute budget on top of the per-host rate limit.
+ * Results, including "not on the hiscores", are cached so a player who
+ * walks in and out of view isn't looked up again.
+ */
+@Slf4j
+@Singleton
+public class NearbyLookupQueue
+{
+    private static final int MAX_PENDING = 50;
+    private static final int CACHE_SIZE = 500;
+    private static final long CACHE_TTL_MS = 30 * 60_000;
+    private static final long BUDGET_WINDOW_MS = 60_000;
+
+    private final HiscoreService hiscoreService;
+    private final ScheduledExecutorService executor;
+    private final BossLogConfig config;
+
+    // Standardized names waiting for a lookup, oldest first
+    private final LinkedHashSet<String> pending = new LinkedHashSet<>();
+    // Reused by prioritize, which runs every tick while a player is hovered
+    private final List<String> reorderBuffer = new ArrayList<>(MAX_PENDING);
+    // Standardized name -> name as shown in game, for pending players
+    private final Map<String, String> displayNames = new HashMap<>();
+    private final Map<String, CachedResult> cache = new LinkedHashMap<String, CachedResult>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest)
+        {
+            return size() > CACHE_SIZE;
+        }
+    };
+    // Start times of lookups in the current budget window
+    private final Deque<Long> recentLookups = new ArrayDeque<>();
+
+    private String inFlight;
+    private boolean pumpScheduled;
+    private int version;
+
+    @Inject
+    public NearbyLookupQueue(HiscoreService hiscoreService, ScheduledExecutorService executor, BossLogConfig config)
+    {
+        this.hiscoreService = hiscoreService;
+        this.executor = executor;
+        this.config = config;
+    }
+
+    /**
+     * Queue a player for lookup unless cached, queued or in flight.
+     */
+    public synchronized void enqueue(String name)
+    {
+        String key = Text.standardize(name);
+        if (key.isEmpty() || key.equals(inFlight) || pending.contains(key) || isCached(key))
+        {
+            return;
+        }
+        if (pending.size() >= MAX_PENDING)
+        {
+            // Crowded: the players who arrived first are the likeliest to have left
+            Iterator<String> oldest = pending.iterator();
+            displayNames.remove(oldest.next());
+            oldest.remove();
+        }
+        pending.add(key);
+        displayNames.put(key, name);
+        pump();
+    }
+
+    /**
+     * Move a hovered player to the front of the queue.
+     */
+    public synchronized void prioritize(String name)
+    {
+        String key = Text.standardize(name);
+        if (key.equals(inFlight) || isCached(key) || (!pending.isEmpty() && pending.iterator().next().equals(key)))
+        {
+            return;
+        }
+
+        reorderBuffer.addAll(pending);
+        pending.clear();
+        pending.add(key);
+        pending.addAll(reorderBuffer);
+        reorderBuffer.clear();
+        displayNames.put(key, name);
+        pump();
+    }
+
+    /**
+     * Drop a player who left view before their lookup started.
+     */
+    public synchronized void forget(String name)
+    {
+        String key = Text.standardize(name);
+        pending.remove(key);
+        displayNames.remove(key);
+    }
+
+    public synchronized void clearPending()
+    {
+        pending.clear();
+        displayNames.clear();
+    }
+
+    /**
+     * @return the cached result, or null if not looked up yet or not on the hiscores
+     */
+    public synchronized HiscoreResult getResult(String name)
+    {
+        CachedResult entry = cache.get(Text.standardize(name));
+        return entry != null ? entry.result : null;
+    }
+
+    /**
+     * Incremented whenever a result is added, so renderers know when to rebuild labels.
+     */
+    public synchronized int getVersion()
+    {
+        return version;
+    }
+
+    private boolean isCached(String key)
+    {
+        CachedResult entry = cache.get(key);
+        return entry != null && System.currentTimeMillis() - entry.fetchedAt < CACHE_TTL_MS;
+    }
+
+    private void pump()
+    {
+        if (inFlight != null || pending.isEmpty())
+        {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        while (!recentLookups.isEmpty() && now - recentLookups.peekFirst() >= BUDGET_WINDOW_MS)
+        {
+            recentLookups.pollFirst();
+        }
+        if (recentLookups.size() >= config.nearbyLookupsPerMinute())
+        {
+            if (!pumpScheduled)
+            {
+                pumpScheduled = true;
+                long wait = BUDGET_WINDOW_MS - (now - recentLookups.peekFirst());
+                executor.schedule(this::scheduledPump, wait, TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+
+        Iterator<String> next = pending.iterator();
+        String key = next.next();
+        next.remove();
+        String name = displayNames.remove(key);
+        inFlight = key;
+        recentLookups.addLast(now);
+
+        hiscoreService.lookup(name, RequestScheduler.Priority.BACKGROUND).whenComplete((result, ex) ->
+        {
+            synchronized (this)
+            {
+                if (ex == null)
+                {
+                    cache.put(key, new CachedResult(result, System.currentTimeMillis()));
+                    version++;
+                }
+                else
+                {
+                    log.debug("Nearby lookup failed for {}: {}", name, ex.getMessage());
+                }
+                inFlight = null;
+                pump();
+            }
+        });
+    }
+
+    private synchronized void scheduledPump()
+    {
+        pumpScheduled = false;
+        pump();
+    }
+
+    private static class CachedResult
+    {
+        private final HiscoreResult result;
+        private final long fetchedAt;
+
+        CachedResult(HiscoreResult result, long fetchedAt)
+        {
+            this.result = result;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.bosslog;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Singleton;
+
+/**
+ * Small bounded pool for parsing hiscore CSV and TempleOSRS JSON,
+ * so response parsing never runs on OkHttp's callback threads.
+ * Threads are daemons and time out when idle.
+ */
+@Singleton
+public class ParseExecutor implements Executor
+{
+    private static final int THREADS = 2;
+    private static final int QUEUE_SIZE = 64;
+
+    private final ThreadPoolExecutor pool;
+
+    public ParseExecutor()
+    {
+        AtomicInteger threadCount = new AtomicInteger();
+        pool = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_SIZE),
+            r ->
+            {
+                Thread t = new Thread(r, "420kc-parse-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            // Backpressure: if parsing falls this far behind, parse on the caller
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable command)
+    {
+        pool.execute(command);
+    }
+}
@@ -0,0 +1,218 @@
+package com.bosslog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Compact encoding of a player's boss KCs for party messages.
+ *
+ * A payload is base64 of: format version, a hash of the boss list (so plugin
+ * versions tracking different bosses ignore each other), flags, account type,
+ * sequence number, the sequence it applies on top of (deltas only), then the
+ * changed bosses as varint index gaps and zigzag varint KC deltas. A full
+ * update is a delta from "no KC anywhere".
+ */
+final class PartyKcCodec
+{
+    private static final int VERSION = 1;
+    private static final int FULL = 1;
+    private static final int HAS_420 = 2;
+
+    static final int BOSS_COUNT = HiscoreService.bossNames().size();
+    private static final int SCHEMA = HiscoreService.bossNames().hashCode();
+
+    /**
+     * A decoded update, applied with {@link #apply}. A delta only applies on top of
+     * the sender's state at {@code baseSeq}.
+     */
+    static class Update
+    {
+        boolean full;
+        boolean has420;
+        AccountType accountType;
+        int seq;
+        int baseSeq;
+        // Boss index -> change; only indices in changed[0..changedCount) are meaningful
+        int[] changed = new int[BOSS_COUNT];
+        int[] delta = new int[BOSS_COUNT];
+        int changedCount;
+    }
+
+    private PartyKcCodec()
+    {
+    }
+
+    /**
+     * Encode the change from {@code previous} to {@code current}, or a full update
+     * if {@code previous} is null. KCs are -1 where unknown.
+     */
+    static String encode(int[] previous, int[] current, AccountType accountType, int seq, int baseSeq)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+        boolean full = previous == null;
+        boolean has420 = false;
+        for (int kc : current)
+        {
+            has420 |= kc == 420;
+        }
+
+        out.write(VERSION);
+        writeInt(out, SCHEMA);
+        out.write((full ? FULL : 0) | (has420 ? HAS_420 : 0));
+        out.write(accountType != null ? accountType.ordinal() + 1 : 0);
+        writeVarint(out, seq);
+        if (!full)
+        {
+            writeVarint(out, baseSeq);
+        }
+
+        int count = 0;
+        for (int i = 0; i < current.length; i++)
+        {
+            if (current[i] != (full ? -1 : previous[i]))
+            {
+                count++;
+            }
+        }
+        writeVarint(out, count);
+        int last = -1;
+        for (int i = 0; i < current.length; i++)
+        {
+            int before = full ? -1 : previous[i];
+            if (current[i] != before)
+            {
+                writeVarint(out, i - last - 1);
+                writeVarint(out, zigzag(current[i] - before));
+                last = i;
+            }
+        }
+        return Base64.getEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    /**
+     * @return the update, or null if it is malformed or from a plugin tracking other bosses
+     */
+    static Update decode(String payload)
+    {
+        try
+        {
+            ByteArrayInputStream in = new ByteArrayInputStream(Base64.getDecoder().decode(payload));
+            if (in.read() != VERSION || readInt(in) != SCHEMA)
+            {
+                return null;
+            }
+
+            Update update = new Update();
+            int flags = in.read();
+            update.full = (flags & FULL) != 0;
+            update.has420 = (flags & HAS_420) != 0;
+            int type = in.read();
+            AccountType[] types = AccountType.values();
+            update.accountType = type > 0 && type <= types.length ? types[type - 1] : null;
+            update.seq = readVarint(in);
+            update.baseSeq = update.full ? 0 : readVarint(in);
+
+            update.changedCount = readVarint(in);
+            if (update.changedCount > BOSS_COUNT)
+            {
+                return null;
+            }
+            int index = -1;
+            for (int i = 0; i < update.changedCount; i++)
+            {
+                index += readVarint(in) + 1;
+                if (index >= BOSS_COUNT)
+                {
+                    return null;
+                }
+                update.changed[i] = index;
+                update.delta[i] = unzigzag(readVarint(in));
+            }
+            return update;
+        }
+        catch (IllegalArgumentException e)
+        {
+            // Not base64, or a varint ran off the end
+            return null;
+        }
+    }
+
+    /**
+     * Apply an update's changes to a KC array (all -1 for a full update).
+     */
+    static void apply(Update update, int[] kc)
+    {
+        if (update.full)
+        {
+            Arrays.fill(kc, -1);
+        }
+        for (int i = 0; i < update.changedCount; i++)
+        {
+            kc[update.changed[i]] += update.delta[i];
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value)
+    {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static int readInt(ByteArrayInputStream in)
+    {
+        int value = 0;
+        for (int i = 0; i < 4; i++)
+        {
+            int b = in.read();
+            if (b < 0)
+            {
+                throw new IllegalArgumentException("Truncated payload");
+            }
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteArrayInputStream in)
+    {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7)
+        {
+            int b = in.read();
+            if (b < 0)
+            {
+                throw new IllegalArgumentException("Truncated payload");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static int zigzag(int value)
+    {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,21 @@
+package com.bosslog;
+
+import net.runelite.client.party.messages.PartyMemberMessage;
+
+/**
+ * A party member's boss KCs, as a {@link PartyKcCodec} payload.
+ */
+public class PartyKcMessage extends PartyMemberMessage
+{
+    private final String kc;
+
+    public PartyKcMessage(String kc)
+    {
+        this.kc = kc;
+    }
+
+    public String getKc()
+    {
+        return kc;
+    }
+}
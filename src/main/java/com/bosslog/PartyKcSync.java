@@ -0,0 +1,460 @@
+package com.bosslog;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.party.PartyMember;
+import net.runelite.client.party.PartyService;
+import net.runelite.client.util.Text;
+
+/**
+ * Shares the local player's boss KCs with their RuneLite party and keeps the
+ * KCs other members share, so teammates are shown without hiscore lookups.
+ *
+ * The local state starts from the last saved hiscores and the kill journal,
+ * or from a background hiscore lookup if none are saved, and is sent in full
+ * when someone joins. Each chat KC after that sends only
+ * what changed since the previous message. A delta names the sequence number
+ * it builds on; a peer that missed that message ignores deltas until the next
+ * full update, which is sent every {@value #FULL_EVERY} messages.
+ */
+@Slf4j
+@Singleton
+public class PartyKcSync
+{
+    private static final int FULL_EVERY = 10;
+
+    private final Party party;
+    private final KcJournal kcJournal;
+    private final LastGoodStore lastGoodStore;
+    private final HiscoreService hiscoreService;
+    private final ScheduledExecutorService executor;
+    private final BossLogConfig config;
+
+    private String localName;
+    private String loadingName;
+    private AccountType localType;
+    private final int[] localKc = new int[PartyKcCodec.BOSS_COUNT];
+    // KCs as of the last message sent; null before the first full update
+    private int[] lastSent;
+    private int seq;
+    private int sinceFull;
+
+    private final Map<Long, Peer> peers = new HashMap<>();
+    private int version;
+
+    /**
+     * The parts of RuneLite's party used here, so tests can pass messages between instances.
+     */
+    interface Party
+    {
+        boolean isInParty();
+
+        long getLocalMemberId();
+
+        /**
+         * @return the local member's display name, or null if not in a party or not known yet
+         */
+        String getLocalName();
+
+        /**
+         * @return a member's display name, or null if not a member or not known yet
+         */
+        String getMemberName(long memberId);
+
+        void send(PartyKcMessage message);
+    }
+
+    @Inject
+    public PartyKcSync(PartyService partyService, KcJournal kcJournal, LastGoodStore lastGoodStore,
+                       HiscoreService hiscoreService, ScheduledExecutorService executor, BossLogConfig config)
+    {
+        this(new RuneLiteParty(partyService), kcJournal, lastGoodStore, hiscoreService, executor, config);
+    }
+
+    PartyKcSync(Party party, KcJournal kcJournal, LastGoodStore lastGoodStore, HiscoreService hiscoreService,
+                ScheduledExecutorService executor, BossLogConfig config)
+    {
+        this.party = party;
+        this.kcJournal = kcJournal;
+        this.lastGoodStore = lastGoodStore;
+        this.hiscoreService = hiscoreService;
+        this.executor = executor;
+        this.config = config;
+        Arrays.fill(localKc, -1);
+    }
+
+    /**
+     * Someone joined the party, possibly us: send our full state so they have a base.
+     */
+    public void onMemberJoined()
+    {
+        String name = party.getLocalName();
+        if (name == null)
+        {
+            return;
+        }
+        synchronized (this)
+        {
+            if (localName != null && Text.standardize(name).equals(Text.standardize(localName)))
+            {
+                lastSent = null;
+                send();
+                return;
+            }
+        }
+        loadLocal(name);
+    }
+
+    public synchronized void onMemberLeft(long memberId)
+    {
+        if (peers.remove(memberId) != null)
+        {
+            version++;
+        }
+    }
+
+    /**
+     * A KC from the local player's game chat.
+     */
+    public void onLocalKc(String player, String bossName, int kc)
+    {
+        int index = HiscoreService.bossNames().indexOf(bossName);
+        if (index < 0)
+        {
+            return;
+        }
+        synchronized (this)
+        {
+            if (localName != null && Text.standardize(player).equals(Text.standardize(localName)))
+            {
+                if (kc > localKc[index])
+                {
+                    localKc[index] = kc;
+                    send();
+                }
+                return;
+            }
+        }
+        // First kill since logging in on this account; the journal already has it
+        loadLocal(player);
+    }
+
+    /**
+     * A member's KCs. Ignored while sharing is off, which also forgets what was shared before.
+     */
+    public synchronized void onMessage(PartyKcMessage message)
+    {
+        if (!config.partyShare())
+        {
+            if (!peers.isEmpty())
+            {
+                peers.clear();
+                version++;
+            }
+            return;
+        }
+        if (message.getMemberId() == party.getLocalMemberId())
+        {
+            return;
+        }
+        PartyKcCodec.Update update = PartyKcCodec.decode(message.getKc());
+        if (update == null)
+        {
+            return;
+        }
+
+        Peer peer = peers.get(message.getMemberId());
+        if (peer == null)
+        {
+            String name = party.getMemberName(message.getMemberId());
+            if (!update.full || name == null)
+            {
+                // A delta needs a base; wait for the next full update
+                return;
+            }
+            peer = new Peer(name);
+            peers.put(message.getMemberId(), peer);
+        }
+        if (peer.apply(update))
+        {
+            version++;
+        }
+    }
+
+    /**
+     * A party member's shared KCs as a hiscore result without ranks, or null if
+     * they aren't in the party or haven't shared.
+     */
+    public synchronized HiscoreResult getResult(String name)
+    {
+        Peer peer = findPeer(name);
+        if (peer == null)
+        {
+            return null;
+        }
+        if (peer.result == null)
+        {
+            Map<String, Integer> kills = new LinkedHashMap<>();
+            List<String> bosses = HiscoreService.bossNames();
+            for (int i = 0; i < bosses.size(); i++)
+            {
+                kills.put(bosses.get(i), peer.kc[i]);
+            }
+            AccountType type = peer.accountType != null ? peer.accountType : AccountType.REGULAR;
+            peer.result = new HiscoreResult(type, kills, new HashMap<>(), 0, 0, 0);
+        }
+        return peer.result;
+    }
+
+    /**
+     * Whether a member has shared a KC for every boss. Members share -1 for bosses
+     * they have no KC for on the hiscores, so most still need a lookup for those.
+     */
+    public synchronized boolean hasAllKc(String name)
+    {
+        Peer peer = findPeer(name);
+        if (peer == null)
+        {
+            return false;
+        }
+        for (int kc : peer.kc)
+        {
+            if (kc < 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Incremented whenever a member's shared KCs change, so renderers know to rebuild.
+     */
+    public synchronized int getVersion()
+    {
+        return version;
+    }
+
+    public synchronized void reset()
+    {
+        peers.clear();
+        localName = null;
+        localType = null;
+        Arrays.fill(localKc, -1);
+        lastSent = null;
+        version++;
+    }
+
+    private Peer findPeer(String name)
+    {
+        String key = Text.standardize(name);
+        for (Peer peer : peers.values())
+        {
+            if (Text.standardize(peer.name).equals(key))
+            {
+                return peer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Seed the local state from disk off the calling thread, then send it in full.
+     * With no saved hiscores the journal alone would leave almost every boss at -1,
+     * so the hiscores are looked up in the background and sent once they arrive.
+     */
+    private void loadLocal(String name)
+    {
+        synchronized (this)
+        {
+            if (name.equals(loadingName))
+            {
+                return;
+            }
+            loadingName = name;
+        }
+        executor.execute(() ->
+        {
+            LastGoodStore.Saved<HiscoreResult> saved = lastGoodStore.loadHiscores(name);
+            seedLocal(name, saved != null ? saved.getResult() : null, kcJournal.getLatestKc(name));
+            if (saved != null)
+            {
+                return;
+            }
+            hiscoreService.lookup(name, RequestScheduler.Priority.BACKGROUND).thenAccept(result ->
+            {
+                if (result != null)
+                {
+                    mergeLookedUp(name, result);
+                }
+            }).exceptionally(ex ->
+            {
+                log.debug("Hiscore lookup to seed party KCs failed", ex);
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Start the local state for {@code name} from its hiscores, if any, and journaled KCs,
+     * and send it in full.
+     */
+    synchronized void seedLocal(String name, HiscoreResult hiscores, Map<String, Integer> journaled)
+    {
+        if (name.equals(loadingName))
+        {
+            loadingName = null;
+        }
+        localName = name;
+        localType = null;
+        Arrays.fill(localKc, -1);
+        merge(hiscores, journaled);
+        lastSent = null;
+        send();
+    }
+
+    /**
+     * Add the local player's looked-up hiscores to the state, unless they have
+     * switched accounts since, and send what changed.
+     */
+    synchronized void mergeLookedUp(String name, HiscoreResult hiscores)
+    {
+        if (localName == null || !Text.standardize(name).equals(Text.standardize(localName)))
+        {
+            return;
+        }
+        merge(hiscores, Collections.emptyMap());
+        send();
+    }
+
+    private void merge(HiscoreResult hiscores, Map<String, Integer> journaled)
+    {
+        if (hiscores != null)
+        {
+            localType = hiscores.getAccountType();
+        }
+        List<String> bosses = HiscoreService.bossNames();
+        for (int i = 0; i < bosses.size(); i++)
+        {
+            int kc = hiscores != null ? hiscores.getKc(bosses.get(i)) : -1;
+            localKc[i] = Math.max(localKc[i], Math.max(kc, journaled.getOrDefault(bosses.get(i), -1)));
+        }
+    }
+
+    private void send()
+    {
+        if (!config.partyShare() || !party.isInParty() || localName == null)
+        {
+            return;
+        }
+
+        boolean full = lastSent == null || sinceFull >= FULL_EVERY;
+        if (!full && Arrays.equals(lastSent, localKc))
+        {
+            return;
+        }
+        int baseSeq = seq;
+        seq++;
+        String payload = PartyKcCodec.encode(full ? null : lastSent, localKc, localType, seq, baseSeq);
+        sinceFull = full ? 0 : sinceFull + 1;
+        lastSent = localKc.clone();
+        party.send(new PartyKcMessage(payload));
+    }
+
+    private static class RuneLiteParty implements Party
+    {
+        private final PartyService partyService;
+
+        RuneLiteParty(PartyService partyService)
+        {
+            this.partyService = partyService;
+        }
+
+        @Override
+        public boolean isInParty()
+        {
+            return partyService.isInParty();
+        }
+
+        @Override
+        public long getLocalMemberId()
+        {
+            return partyService.getLocalMemberId();
+        }
+
+        @Override
+        public String getLocalName()
+        {
+            PartyMember local = partyService.getLocalMember();
+            return local != null ? local.getDisplayName() : null;
+        }
+
+        @Override
+        public String getMemberName(long memberId)
+        {
+            PartyMember member = partyService.getMemberById(memberId);
+            return member != null ? member.getDisplayName() : null;
+        }
+
+        @Override
+        public void send(PartyKcMessage message)
+        {
+            partyService.send(message);
+        }
+    }
+
+    /**
+     * What a party member has shared.
+     */
+    static class Peer
+    {
+        private final String name;
+        private final int[] kc = new int[PartyKcCodec.BOSS_COUNT];
+        private AccountType accountType;
+        private int seq;
+        private HiscoreResult result;
+
+        Peer(String name)
+        {
+            this.name = name;
+            Arrays.fill(kc, -1);
+        }
+
+        /**
+         * Apply an update if it builds on what we have.
+         *
+         * @return false for a delta on top of a message we missed; it is
+         *         ignored until the next full update
+         */
+        boolean apply(PartyKcCodec.Update update)
+        {
+            if (!update.full && seq != update.baseSeq)
+            {
+                return false;
+            }
+            PartyKcCodec.apply(update, kc);
+            seq = update.seq;
+            accountType = update.accountType;
+            result = null;
+            return true;
+        }
+
+        int getKc(int bossIndex)
+        {
+            return kc[bossIndex];
+        }
+
+        AccountType getAccountType()
+        {
+            return accountType;
+        }
+    }
+}
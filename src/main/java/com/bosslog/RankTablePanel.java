@@ -0,0 +1,160 @@
+package com.bosslog;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.GridLayout;
+import java.util.List;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.border.EmptyBorder;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+import net.runelite.client.util.Text;
+
+/**
+ * The page of a boss's hiscore ranking table around the displayed player,
+ * with buttons to page up and down. Pages come from the {@link RankTableService}
+ * cache, which keeps the neighbouring pages fetched ahead. EDT only.
+ */
+class RankTablePanel extends JPanel
+{
+    private static final Color GREEN = new Color(76, 175, 110);
+    private static final Color TEXT_DIM = new Color(160, 200, 160);
+
+    private final RankTableService rankTableService;
+
+    private final JButton upButton = new JButton("\u25b2");
+    private final JButton downButton = new JButton("\u25bc");
+    private final JLabel titleLabel = new JLabel(" ", SwingConstants.CENTER);
+    private final JPanel rowsPanel = new JPanel(new GridLayout(0, 1));
+
+    private AccountType accountType;
+    private String bossName;
+    private String player;
+    private int page;
+    // Bumped per page shown, so a slow page doesn't replace a newer one
+    private int pageVersion;
+
+    RankTablePanel(RankTableService rankTableService)
+    {
+        this.rankTableService = rankTableService;
+
+        setLayout(new BorderLayout());
+        setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        setBorder(new EmptyBorder(3, 5, 3, 5));
+
+        JPanel header = new JPanel(new BorderLayout());
+        header.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        styleButton(upButton);
+        styleButton(downButton);
+        upButton.addActionListener(e -> showPage(page - 1));
+        downButton.addActionListener(e -> showPage(page + 1));
+        titleLabel.setFont(FontManager.getRunescapeSmallFont());
+        titleLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        header.add(upButton, BorderLayout.WEST);
+        header.add(titleLabel, BorderLayout.CENTER);
+        header.add(downButton, BorderLayout.EAST);
+
+        rowsPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        add(header, BorderLayout.NORTH);
+        add(rowsPanel, BorderLayout.CENTER);
+    }
+
+    private static void styleButton(JButton button)
+    {
+        button.setBackground(Color.BLACK);
+        button.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        button.setBorder(BorderFactory.createLineBorder(ColorScheme.MEDIUM_GRAY_COLOR, 1));
+        button.setFocusPainted(false);
+    }
+
+    /**
+     * Show the page a player's rank is on, on the ranking table for their account type.
+     */
+    void show(AccountType accountType, String bossName, String player, int rank)
+    {
+        this.accountType = accountType;
+        this.bossName = bossName;
+        this.player = player;
+        rowsPanel.removeAll();
+        showPage(RankTableService.pageFor(rank));
+    }
+
+    private void showPage(int newPage)
+    {
+        if (newPage < 1)
+        {
+            return;
+        }
+        page = newPage;
+        final int thisPage = ++pageVersion;
+        titleLabel.setText(bossName + " \u2014 page " + page);
+        upButton.setEnabled(page > 1);
+
+        rankTableService.getPage(accountType, bossName, page).whenComplete((rows, ex) ->
+            SwingUtilities.invokeLater(() ->
+            {
+                if (thisPage != pageVersion) return; // stale result
+                if (ex != null)
+                {
+                    showMessage(BossLogPanel.describeFailure("Ranking unavailable", ex));
+                    return;
+                }
+                showRows(rows);
+            }));
+
+        // Cached pages complete at once; only show a placeholder while waiting
+        if (thisPage == pageVersion && rowsPanel.getComponentCount() == 0)
+        {
+            showMessage("Loading...");
+        }
+    }
+
+    private void showRows(List<RankTableService.Row> rows)
+    {
+        rowsPanel.removeAll();
+        downButton.setEnabled(rows.size() >= RankTableService.PAGE_SIZE);
+        if (rows.isEmpty())
+        {
+            showMessage("No players on this page");
+            return;
+        }
+
+        String self = Text.standardize(player);
+        for (RankTableService.Row row : rows)
+        {
+            boolean isPlayer = Text.standardize(row.getName()).equals(self);
+            JPanel line = new JPanel(new BorderLayout());
+            line.setBackground(isPlayer ? ColorScheme.MEDIUM_GRAY_COLOR : ColorScheme.DARKER_GRAY_COLOR);
+
+            JLabel name = new JLabel(row.getRank() + ". " + row.getName());
+            name.setFont(FontManager.getRunescapeSmallFont());
+            name.setForeground(isPlayer ? GREEN : ColorScheme.LIGHT_GRAY_COLOR);
+
+            JLabel kc = new JLabel(String.valueOf(row.getKc()));
+            kc.setFont(FontManager.getRunescapeSmallFont());
+            kc.setForeground(row.getKc() == 420 ? GREEN : TEXT_DIM);
+
+            line.add(name, BorderLayout.WEST);
+            line.add(kc, BorderLayout.EAST);
+            rowsPanel.add(line);
+        }
+        revalidate();
+        repaint();
+    }
+
+    private void showMessage(String text)
+    {
+        rowsPanel.removeAll();
+        JLabel label = new JLabel(text);
+        label.setFont(FontManager.getRunescapeSmallFont());
+        label.setForeground(TEXT_DIM);
+        rowsPanel.add(label);
+        revalidate();
+        repaint();
+    }
+}
@@ -0,0 +1,189 @@
+package com.bosslog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pages of a boss's Jagex hiscore ranking table, 25 players a page.
+ * Pages are cached for a few minutes, in flight or done, and the pages
+ * either side of each one requested are fetched in the background, so
+ * paging up or down usually doesn't wait on the network.
+ */
+@Slf4j
+@Singleton
+public class RankTableService
+{
+    static final int PAGE_SIZE = 25;
+
+    private static final String BASE_URL = "https://secure.runescape.com/m=";
+    private static final long TTL_MS = 5 * 60_000;
+    private static final int MAX_PAGES = 40;
+
+    private static final Pattern ROW = Pattern.compile(
+        "<tr class=\"personal-hiscores__row\">(.*?)</tr>", Pattern.DOTALL);
+    private static final Pattern CELL = Pattern.compile("<td[^>]*>(.*?)</td>", Pattern.DOTALL);
+    private static final Pattern TAG = Pattern.compile("<[^>]+>");
+
+    /**
+     * One row of a ranking table.
+     */
+    public static class Row
+    {
+        private final int rank;
+        private final String name;
+        private final int kc;
+
+        Row(int rank, String name, int kc)
+        {
+            this.rank = rank;
+            this.name = name;
+            this.kc = kc;
+        }
+
+        public int getRank()
+        {
+            return rank;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public int getKc()
+        {
+            return kc;
+        }
+    }
+
+    private final HttpFetcher httpFetcher;
+    private final ParseExecutor parseExecutor;
+    private final HiscoreService hiscoreService;
+
+    // Endpoint|table|page -> page, least recently used first
+    private final Map<String, CachedPage> pages = new LinkedHashMap<String, CachedPage>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest)
+        {
+            return size() > MAX_PAGES;
+        }
+    };
+
+    @Inject
+    public RankTableService(HttpFetcher httpFetcher, ParseExecutor parseExecutor, HiscoreService hiscoreService)
+    {
+        this.httpFetcher = httpFetcher;
+        this.parseExecutor = parseExecutor;
+        this.hiscoreService = hiscoreService;
+    }
+
+    /**
+     * The 1-based page a rank is on.
+     */
+    static int pageFor(int rank)
+    {
+        return (rank - 1) / PAGE_SIZE + 1;
+    }
+
+    /**
+     * A page of a boss's ranking table for an account type, and a background
+     * fetch of the pages either side. Resolves to an empty list past the end of
+     * the table; completes exceptionally with a {@link FetchException} if the
+     * hiscores didn't answer.
+     */
+    public synchronized CompletableFuture<List<Row>> getPage(AccountType type, String bossName, int page)
+    {
+        int table = hiscoreService.rankingTable(bossName);
+        if (table < 0 || page < 1)
+        {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        String endpoint = HiscoreService.endpointFor(type);
+        CompletableFuture<List<Row>> future = get(endpoint, table, page, RequestScheduler.Priority.INTERACTIVE);
+        if (page > 1)
+        {
+            get(endpoint, table, page - 1, RequestScheduler.Priority.BACKGROUND);
+        }
+        get(endpoint, table, page + 1, RequestScheduler.Priority.BACKGROUND);
+        return future;
+    }
+
+    private CompletableFuture<List<Row>> get(String endpoint, int table, int page, RequestScheduler.Priority priority)
+    {
+        String key = endpoint + "|" + table + "|" + page;
+        CachedPage entry = pages.get(key);
+        if (entry != null
+            && System.currentTimeMillis() - entry.createdAt <= TTL_MS
+            && !entry.future.isCompletedExceptionally())
+        {
+            return entry.future;
+        }
+
+        String url = BASE_URL + endpoint + "/overall?category_type=1&table=" + table + "&page=" + page;
+        CompletableFuture<FetchOutcome> fetch = httpFetcher.fetch(url, priority);
+        CompletableFuture<List<Row>> future = HttpFetcher.cancelWith(fetch.thenApplyAsync(outcome ->
+        {
+            if (!outcome.isOk())
+            {
+                throw new FetchException("Ranking table fetch failed", outcome);
+            }
+            return parsePage(outcome.getBody());
+        }, parseExecutor), fetch);
+        pages.put(key, new CachedPage(future));
+        return future;
+    }
+
+    static List<Row> parsePage(String html)
+    {
+        List<Row> rows = new ArrayList<>(PAGE_SIZE);
+        Matcher row = ROW.matcher(html);
+        while (row.find())
+        {
+            // Rank, name, then score (bosses) or level and XP (skills); the score is last
+            List<String> cells = new ArrayList<>(4);
+            Matcher cell = CELL.matcher(row.group(1));
+            while (cell.find())
+            {
+                String text = TAG.matcher(cell.group(1)).replaceAll("");
+                cells.add(text.replace("&nbsp;", " ").replace('\u00a0', ' ').trim());
+            }
+            if (cells.size() < 3)
+            {
+                continue;
+            }
+            try
+            {
+                int rank = Integer.parseInt(cells.get(0).replace(",", ""));
+                int kc = Integer.parseInt(cells.get(cells.size() - 1).replace(",", ""));
+                rows.add(new Row(rank, cells.get(1), kc));
+            }
+            catch (NumberFormatException e)
+            {
+                log.debug("Skipping ranking row {}", cells);
+            }
+        }
+        return rows;
+    }
+
+    private static class CachedPage
+    {
+        private final CompletableFuture<List<Row>> future;
+        private final long createdAt = System.currentTimeMillis();
+
+        CachedPage(CompletableFuture<List<Row>> future)
+        {
+            this.future = future;
+        }
+    }
+}
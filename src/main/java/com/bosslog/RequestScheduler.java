@@ -0,0 +1,345 @@
+package com.bosslog;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-host request queue in front of the HTTP layer.
+ * Interactive requests (the lookup the user just asked for) always dispatch
+ * before background work such as prefetches and refreshes. Each host has a
+ * bounded number of requests in flight, and nothing dispatches without a
+ * {@link HostRateLimiter} slot. Hedges go first and have their own in-flight
+ * slot, so a hedge never queues behind the slow request it is racing.
+ * Requests share a {@link Ticket} per lookup, so a background lookup the user
+ * is now waiting on can be promoted without resending anything already sent.
+ */
+@Slf4j
+@Singleton
+public class RequestScheduler
+{
+    public enum Priority
+    {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    /**
+     * The priority of one lookup's requests, raised for all of them at once by
+     * {@link #promote}. Requests it submits after a promotion are interactive too.
+     */
+    public static final class Ticket
+    {
+        private volatile Priority priority;
+
+        public Ticket(Priority priority)
+        {
+            this.priority = priority;
+        }
+
+        public Priority getPriority()
+        {
+            return priority;
+        }
+    }
+
+    /**
+     * A unit of queued work. {@link #run} must call {@code release} exactly once
+     * when its request has finished, successfully or not.
+     */
+    public interface Job
+    {
+        void run(Runnable release);
+
+        /**
+         * Called instead of {@link #run} if the job waited too long or the queue was full.
+         */
+        void drop();
+
+        boolean isCancelled();
+    }
+
+    // A full hiscore lookup is 4 parallel requests
+    private static final int HISCORE_MAX_IN_FLIGHT = 4;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 2;
+    private static final int MAX_HEDGES_IN_FLIGHT = 1;
+    private static final int MAX_QUEUED_PER_HOST = 64;
+    private static final long MAX_QUEUE_WAIT_MS = 30_000;
+
+    private final HostRateLimiter rateLimiter;
+    private final ScheduledExecutorService executor;
+    private final Map<String, HostQueue> queues = new HashMap<>();
+
+    @Inject
+    public RequestScheduler(HostRateLimiter rateLimiter, ScheduledExecutorService executor)
+    {
+        this.rateLimiter = rateLimiter;
+        this.executor = executor;
+    }
+
+    public void submit(String host, Ticket ticket, Job job)
+    {
+        submit(host, null, ticket, job);
+    }
+
+    /**
+     * Queue a hedge: a duplicate of a request that is already in flight. Dispatched
+     * ahead of everything else on a slot of its own, still within the rate limit.
+     */
+    public void submitHedge(String host, Job job)
+    {
+        submit(host, Lane.HEDGE, null, job);
+    }
+
+    /**
+     * Move a ticket's queued requests to the interactive queue. Requests already sent
+     * are left alone, and requests already dropped stay dropped.
+     */
+    public void promote(Ticket ticket)
+    {
+        List<HostQueue> promoted = new ArrayList<>();
+        synchronized (this)
+        {
+            if (ticket.priority == Priority.INTERACTIVE)
+            {
+                return;
+            }
+            ticket.priority = Priority.INTERACTIVE;
+
+            long now = System.currentTimeMillis();
+            for (HostQueue queue : queues.values())
+            {
+                boolean moved = false;
+                for (Iterator<Entry> it = queue.background.iterator(); it.hasNext(); )
+                {
+                    Entry entry = it.next();
+                    if (entry.ticket == ticket)
+                    {
+                        it.remove();
+                        // The user is waiting on it from now on
+                        queue.interactive.addLast(new Entry(entry.job, ticket, now));
+                        moved = true;
+                    }
+                }
+                if (moved)
+                {
+                    promoted.add(queue);
+                }
+            }
+        }
+        promoted.forEach(this::drain);
+    }
+
+    private void submit(String host, Lane hedgeLane, Ticket ticket, Job job)
+    {
+        HostQueue queue;
+        boolean accepted;
+        Lane lane;
+        synchronized (this)
+        {
+            lane = hedgeLane != null ? hedgeLane
+                : ticket.priority == Priority.INTERACTIVE ? Lane.INTERACTIVE : Lane.BACKGROUND;
+            queue = queues.computeIfAbsent(host, HostQueue::new);
+            accepted = queue.size() < MAX_QUEUED_PER_HOST;
+            if (accepted)
+            {
+                Entry entry = new Entry(job, ticket, System.currentTimeMillis());
+                switch (lane)
+                {
+                    case HEDGE:
+                        queue.hedges.addLast(entry);
+                        break;
+                    case INTERACTIVE:
+                        queue.interactive.addLast(entry);
+                        break;
+                    default:
+                        queue.background.addLast(entry);
+                        break;
+                }
+            }
+        }
+
+        if (!accepted)
+        {
+            log.debug("Request queue full for {}, dropping {} job", host, lane);
+            job.drop();
+            return;
+        }
+        drain(queue);
+    }
+
+    private void drain(HostQueue queue)
+    {
+        List<Runnable> toRun = new ArrayList<>();
+        synchronized (this)
+        {
+            long now = System.currentTimeMillis();
+            while (queue.hedgesInFlight < MAX_HEDGES_IN_FLIGHT && !queue.hedges.isEmpty())
+            {
+                Entry next = queue.hedges.peekFirst();
+                if (next.job.isCancelled())
+                {
+                    queue.hedges.pollFirst();
+                    continue;
+                }
+                long wait = rateLimiter.tryAcquire(queue.host);
+                if (wait > 0)
+                {
+                    scheduleDrain(queue, wait);
+                    break;
+                }
+                queue.hedges.pollFirst();
+                queue.hedgesInFlight++;
+                Runnable release = releaser(queue, true);
+                toRun.add(() -> next.job.run(release));
+            }
+
+            while (queue.inFlight < queue.maxInFlight)
+            {
+                Entry next = queue.peek();
+                if (next == null)
+                {
+                    break;
+                }
+                if (next.job.isCancelled())
+                {
+                    queue.poll();
+                    continue;
+                }
+                if (now - next.enqueuedAt > MAX_QUEUE_WAIT_MS)
+                {
+                    queue.poll();
+                    toRun.add(next.job::drop);
+                    continue;
+                }
+
+                long wait = rateLimiter.tryAcquire(queue.host);
+                if (wait > 0)
+                {
+                    scheduleDrain(queue, wait);
+                    break;
+                }
+
+                queue.poll();
+                queue.inFlight++;
+                Runnable release = releaser(queue, false);
+                toRun.add(() -> next.job.run(release));
+            }
+        }
+
+        for (Runnable r : toRun)
+        {
+            r.run();
+        }
+    }
+
+    private void scheduleDrain(HostQueue queue, long delayMillis)
+    {
+        if (queue.drainScheduled)
+        {
+            return;
+        }
+        queue.drainScheduled = true;
+        executor.schedule(() ->
+        {
+            synchronized (this)
+            {
+                queue.drainScheduled = false;
+            }
+            drain(queue);
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private Runnable releaser(HostQueue queue, boolean hedge)
+    {
+        AtomicBoolean released = new AtomicBoolean();
+        return () ->
+        {
+            if (!released.compareAndSet(false, true))
+            {
+                return;
+            }
+            synchronized (this)
+            {
+                if (hedge)
+                {
+                    queue.hedgesInFlight--;
+                }
+                else
+                {
+                    queue.inFlight--;
+                }
+            }
+            drain(queue);
+        };
+    }
+
+    private enum Lane
+    {
+        HEDGE,
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    private static class Entry
+    {
+        private final Job job;
+        // Null for hedges
+        private final Ticket ticket;
+        private final long enqueuedAt;
+
+        Entry(Job job, Ticket ticket, long enqueuedAt)
+        {
+            this.job = job;
+            this.ticket = ticket;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private static class HostQueue
+    {
+        private final String host;
+        private final int maxInFlight;
+        private final Deque<Entry> interactive = new ArrayDeque<>();
+        private final Deque<Entry> background = new ArrayDeque<>();
+        private final Deque<Entry> hedges = new ArrayDeque<>();
+        private int inFlight;
+        private int hedgesInFlight;
+        private boolean drainScheduled;
+
+        HostQueue(String host)
+        {
+            this.host = host;
+            this.maxInFlight = HostRateLimiter.HISCORE_HOST.equals(host)
+                ? HISCORE_MAX_IN_FLIGHT
+                : DEFAULT_MAX_IN_FLIGHT;
+        }
+
+        Entry peek()
+        {
+            Entry entry = interactive.peekFirst();
+            return entry != null ? entry : background.peekFirst();
+        }
+
+        Entry poll()
+        {
+            Entry entry = interactive.pollFirst();
+            return entry != null ? entry : background.pollFirst();
+        }
+
+        int size()
+        {
+            return interactive.size() + background.size() + hedges.size();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.bosslog;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.inject.Singleton;
+
+/**
+ * Per-boss kill stats for the local player's current session.
+ * Everything is a streaming aggregate updated in O(1) per kill: running counts
+ * and sums, and an exponentially weighted kill interval for kills/hour.
+ * No per-kill history is kept, so a long session costs constant memory.
+ * On startup the session is rebuilt from the {@link KcJournal}, so a client restart
+ * mid-trip keeps its streaks and milestone estimates.
+ */
+@Singleton
+public class SessionStats
+{
+    // Weight of the newest kill interval; higher reacts faster to a change of pace
+    private static final double EWMA_ALPHA = 0.3;
+    // Gaps longer than this are breaks (banking, AFK), not part of the kill rate
+    private static final long BREAK_MILLIS = 20 * 60_000;
+
+    // KcJournal.playerId of the session's player, valid while stats isn't empty
+    private int playerId;
+    private String lastBoss;
+    private long lastKillAt;
+    private final Map<String, BossStats> stats = new HashMap<>();
+
+    /**
+     * Record a kill. Kills for a different player than the current session start a new session.
+     */
+    public synchronized void recordKill(String playerName, String bossName, int kc, long timestamp)
+    {
+        record(KcJournal.playerId(playerName), bossName, kc, timestamp);
+    }
+
+    /**
+     * Rebuild the session from the journal: the last run of kills by one player with
+     * no break between them, if the last of them was no longer than a break ago.
+     */
+    public synchronized void restore(KcJournal journal, long now)
+    {
+        clear();
+        journal.replay((timestamp, id, bossName, kc, durationMillis) ->
+        {
+            if (timestamp - lastKillAt >= BREAK_MILLIS)
+            {
+                clear();
+            }
+            record(id, bossName, kc, timestamp);
+            if (durationMillis > 0)
+            {
+                stats.get(bossName).recordDuration(durationMillis);
+            }
+        });
+        if (now - lastKillAt >= BREAK_MILLIS)
+        {
+            clear();
+        }
+    }
+
+    private void record(int id, String bossName, int kc, long timestamp)
+    {
+        if (id != playerId)
+        {
+            playerId = id;
+            stats.clear();
+        }
+
+        stats.computeIfAbsent(bossName, k -> new BossStats()).recordKill(kc, timestamp);
+        lastBoss = bossName;
+        lastKillAt = timestamp;
+    }
+
+    private void clear()
+    {
+        stats.clear();
+        lastBoss = null;
+        lastKillAt = 0;
+    }
+
+    public synchronized void recordDuration(String bossName, long durationMillis)
+    {
+        BossStats boss = stats.get(bossName);
+        if (boss != null)
+        {
+            boss.recordDuration(durationMillis);
+        }
+    }
+
+    /**
+     * @return a snapshot of the boss's stats this session, or null if the player hasn't killed it
+     */
+    public synchronized BossStats getStats(String playerName, String bossName)
+    {
+        if (stats.isEmpty() || playerId != KcJournal.playerId(playerName))
+        {
+            return null;
+        }
+        BossStats boss = stats.get(bossName);
+        return boss == null ? null : boss.copy();
+    }
+
+    /**
+     * @return the boss most recently killed this session, or null
+     */
+    public synchronized String getLastBoss()
+    {
+        return lastBoss;
+    }
+
+    /**
+     * Smallest KC above {@code kc} that contains "420".
+     * Checks each digit position the "420" could start at, so it's constant time.
+     */
+    static int next420(int kc)
+    {
+        long best = Long.MAX_VALUE;
+        for (long scale = 1; scale <= 1_000_000_000L; scale *= 10)
+        {
+            long block = 1000 * scale;
+            long base = kc / block * block + 420 * scale;
+            long candidate;
+            if (base > kc)
+            {
+                candidate = base;
+            }
+            else if (base + scale - 1 > kc)
+            {
+                // Already inside a 420 block at this position; the next KC still contains it
+                candidate = kc + 1;
+            }
+            else
+            {
+                candidate = base + block;
+            }
+            best = Math.min(best, candidate);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, best);
+    }
+
+    public static class BossStats
+    {
+        private int kills;
+        private int lastKc;
+        private long lastKillAt;
+        private double ewmaIntervalMillis = -1;
+        private long durationSum;
+        private int durationCount;
+        private long bestDurationMillis = -1;
+
+        private void recordKill(int kc, long timestamp)
+        {
+            if (lastKillAt > 0)
+            {
+                long interval = timestamp - lastKillAt;
+                if (interval > 0 && interval < BREAK_MILLIS)
+                {
+                    ewmaIntervalMillis = ewmaIntervalMillis < 0
+                        ? interval
+                        : EWMA_ALPHA * interval + (1 - EWMA_ALPHA) * ewmaIntervalMillis;
+                }
+            }
+            kills++;
+            lastKc = kc;
+            lastKillAt = timestamp;
+        }
+
+        private void recordDuration(long durationMillis)
+        {
+            durationSum += durationMillis;
+            durationCount++;
+            if (bestDurationMillis < 0 || durationMillis < bestDurationMillis)
+            {
+                bestDurationMillis = durationMillis;
+            }
+        }
+
+        private BossStats copy()
+        {
+            BossStats copy = new BossStats();
+            copy.kills = kills;
+            copy.lastKc = lastKc;
+            copy.lastKillAt = lastKillAt;
+            copy.ewmaIntervalMillis = ewmaIntervalMillis;
+            copy.durationSum = durationSum;
+            copy.durationCount = durationCount;
+            copy.bestDurationMillis = bestDurationMillis;
+            return copy;
+        }
+
+        public int getKills()
+        {
+            return kills;
+        }
+
+        public int getLastKc()
+        {
+            return lastKc;
+        }
+
+        /**
+         * @return recent kills per hour, or -1 until there are two kills to measure
+         */
+        public double getKillsPerHour()
+        {
+            return ewmaIntervalMillis > 0 ? 3_600_000 / ewmaIntervalMillis : -1;
+        }
+
+        /**
+         * @return mean fight duration in ms, or -1 if no durations were seen
+         */
+        public long getAverageDurationMillis()
+        {
+            return durationCount > 0 ? durationSum / durationCount : -1;
+        }
+
+        public long getBestDurationMillis()
+        {
+            return bestDurationMillis;
+        }
+
+        public int getNextMilestone()
+        {
+            return next420(lastKc);
+        }
+
+        /**
+         * @return estimated time to the next 420 KC at the current pace, or -1 if unknown
+         */
+        public long getMillisToNextMilestone()
+        {
+            if (ewmaIntervalMillis <= 0)
+            {
+                return -1;
+            }
+            return (long) ((getNextMilestone() - lastKc) * ewmaIntervalMillis);
+        }
+    }
+}
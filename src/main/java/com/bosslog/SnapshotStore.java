@@ -0,0 +1,641 @@
+package com.bosslog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+import net.runelite.client.util.Text;
+
+/**
+ * On-disk history of hiscore boss KC and rank snapshots, one pair of files per player
+ * under ~/.runelite/420kc/history.
+ *
+ * The .snap file starts with a header naming the boss columns, followed by records.
+ * A keyframe record stores every column: all KCs, then all ranks. Other records
+ * store only the columns that changed since the previous snapshot, as zigzag varint
+ * deltas. Identical snapshots aren't stored at all, so a player who hasn't played
+ * costs nothing. Every {@value #KEYFRAME_INTERVAL} records a new keyframe is written
+ * and its timestamp and offset appended to the .idx file (16 bytes each), so a range
+ * query binary-searches the index and decodes from the nearest keyframe only.
+ *
+ * If the tracked boss list changes, the old files are set aside and a new pair started.
+ * A record cut short by a crash is cut off the file before the next append.
+ */
+@Slf4j
+@Singleton
+public class SnapshotStore
+{
+    private static final File HISTORY_DIR = new File(new File(RuneLite.RUNELITE_DIR, "420kc"), "history");
+    private static final byte[] MAGIC = {'4', '2', '0', 'S'};
+    private static final int VERSION = 1;
+    private static final int KEYFRAME_INTERVAL = 32;
+    private static final int INDEX_ENTRY = 16;
+
+    private static final int DELTA = 0;
+    private static final int KEYFRAME = 1;
+
+    /**
+     * One boss's KC and rank at a point in time.
+     */
+    public static class Point
+    {
+        private final long timestamp;
+        private final int kc;
+        private final int rank;
+
+        Point(long timestamp, int kc, int rank)
+        {
+            this.timestamp = timestamp;
+            this.kc = kc;
+            this.rank = rank;
+        }
+
+        public long getTimestamp()
+        {
+            return timestamp;
+        }
+
+        public int getKc()
+        {
+            return kc;
+        }
+
+        public int getRank()
+        {
+            return rank;
+        }
+    }
+
+    /**
+     * Every boss's KC and rank at a point in time.
+     */
+    public static class Snapshot
+    {
+        private final long timestamp;
+        private final Map<String, Integer> columns;
+        private final int[] kc;
+        private final int[] rank;
+
+        Snapshot(long timestamp, Map<String, Integer> columns, int[] kc, int[] rank)
+        {
+            this.timestamp = timestamp;
+            this.columns = columns;
+            this.kc = kc;
+            this.rank = rank;
+        }
+
+        public long getTimestamp()
+        {
+            return timestamp;
+        }
+
+        public int getKc(String bossName)
+        {
+            Integer col = columns.get(bossName);
+            return col != null ? kc[col] : -1;
+        }
+
+        public int getRank(String bossName)
+        {
+            Integer col = columns.get(bossName);
+            return col != null ? rank[col] : -1;
+        }
+    }
+
+    private final File dir;
+
+    // Standardized player name -> last record written, so appends don't re-read the file
+    private final Map<String, Tail> tails = new HashMap<>();
+
+    @Inject
+    public SnapshotStore()
+    {
+        this(HISTORY_DIR);
+    }
+
+    SnapshotStore(File dir)
+    {
+        this.dir = dir;
+    }
+
+    /**
+     * Append a snapshot of a player's hiscore boss KCs and ranks. Does nothing if nothing changed.
+     */
+    public synchronized void record(String player, Map<String, Integer> bossKills, Map<String, Integer> bossRanks,
+                                    long timestamp)
+    {
+        List<String> bosses = HiscoreService.bossNames();
+        int[] kc = new int[bosses.size()];
+        int[] rank = new int[bosses.size()];
+        for (int i = 0; i < kc.length; i++)
+        {
+            kc[i] = bossKills.getOrDefault(bosses.get(i), -1);
+            rank[i] = bossRanks.getOrDefault(bosses.get(i), -1);
+        }
+
+        String key = Text.standardize(player);
+        try
+        {
+            Tail tail = tails.get(key);
+            if (tail == null)
+            {
+                tail = loadTail(key, bosses);
+                tails.put(key, tail);
+            }
+            if (tail.timestamp >= 0 && timestamp <= tail.timestamp)
+            {
+                return;
+            }
+            append(key, tail, timestamp, kc, rank);
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to record hiscore snapshot", e);
+            tails.remove(key);
+        }
+    }
+
+    /**
+     * A boss's KC and rank for every snapshot in [from, to], oldest first.
+     */
+    public synchronized List<Point> history(String player, String bossName, long from, long to)
+    {
+        List<Point> points = new ArrayList<>();
+        decode(Text.standardize(player), from, (timestamp, columns, kc, rank) ->
+        {
+            if (timestamp > to)
+            {
+                return false;
+            }
+            Integer col = columns.get(bossName);
+            if (timestamp >= from && col != null)
+            {
+                points.add(new Point(timestamp, kc[col], rank[col]));
+            }
+            return true;
+        });
+        return points;
+    }
+
+    /**
+     * The latest snapshot taken at or before {@code time}, or null if there is none.
+     */
+    public synchronized Snapshot at(String player, long time)
+    {
+        Snapshot[] found = new Snapshot[1];
+        decode(Text.standardize(player), time, (timestamp, columns, kc, rank) ->
+        {
+            if (timestamp > time)
+            {
+                return false;
+            }
+            found[0] = new Snapshot(timestamp, columns, kc.clone(), rank.clone());
+            return true;
+        });
+        return found[0];
+    }
+
+    private interface RecordVisitor
+    {
+        /**
+         * @return false to stop decoding
+         */
+        boolean visit(long timestamp, Map<String, Integer> columns, int[] kc, int[] rank);
+    }
+
+    /**
+     * Decode records starting from the last keyframe at or before {@code from}.
+     */
+    private void decode(String key, long from, RecordVisitor visitor)
+    {
+        File snap = snapFile(key);
+        if (!snap.exists())
+        {
+            return;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(snap, "r"))
+        {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(file.getChannel())));
+            List<String> columns = readHeader(in);
+            if (columns == null)
+            {
+                return;
+            }
+            Map<String, Integer> columnIndex = new HashMap<>();
+            for (int i = 0; i < columns.size(); i++)
+            {
+                columnIndex.put(columns.get(i), i);
+            }
+
+            long offset = findKeyframe(key, from);
+            if (offset > 0)
+            {
+                file.seek(offset);
+                in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(file.getChannel())));
+            }
+
+            Tail state = new Tail(columns.size());
+            while (readRecord(in, state))
+            {
+                if (!visitor.visit(state.timestamp, columnIndex, state.kc, state.rank))
+                {
+                    return;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to read hiscore history", e);
+        }
+    }
+
+    /**
+     * Offset of the last keyframe at or before {@code time}, or 0 to start after the header.
+     */
+    private long findKeyframe(String key, long time) throws IOException
+    {
+        File idx = idxFile(key);
+        if (!idx.exists())
+        {
+            return 0;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(idx, "r"))
+        {
+            long lo = 0;
+            long hi = file.length() / INDEX_ENTRY - 1;
+            long offset = 0;
+            while (lo <= hi)
+            {
+                long mid = (lo + hi) >>> 1;
+                file.seek(mid * INDEX_ENTRY);
+                long timestamp = file.readLong();
+                if (timestamp <= time)
+                {
+                    offset = file.readLong();
+                    lo = mid + 1;
+                }
+                else
+                {
+                    hi = mid - 1;
+                }
+            }
+            return offset;
+        }
+    }
+
+    private Tail loadTail(String key, List<String> bosses) throws IOException
+    {
+        File snap = snapFile(key);
+        if (snap.exists())
+        {
+            List<String> columns;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snap))))
+            {
+                columns = readHeader(in);
+            }
+
+            if (bosses.equals(columns))
+            {
+                return readTail(key, snap, bosses.size());
+            }
+
+            // Boss list changed: keep the old history aside and start over
+            String archived = key + "-" + System.currentTimeMillis();
+            log.debug("Boss list changed, archiving history as {}", archived);
+            snap.renameTo(snapFile(archived));
+            idxFile(key).renameTo(idxFile(archived));
+        }
+
+        if (!dir.isDirectory() && !dir.mkdirs())
+        {
+            throw new IOException("Could not create " + dir);
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(snap)))
+        {
+            out.write(MAGIC);
+            out.write(VERSION);
+            writeVarint(out, bosses.size());
+            for (String boss : bosses)
+            {
+                byte[] name = boss.getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, name.length);
+                out.write(name);
+            }
+        }
+        Tail tail = new Tail(bosses.size());
+        tail.offset = snap.length();
+        tail.sinceKeyframe = KEYFRAME_INTERVAL;
+        return tail;
+    }
+
+    /**
+     * Decode from the last keyframe to the last complete record. Anything after it,
+     * a record cut short by a crash, is truncated along with index entries pointing
+     * into it, so the next append starts on a record boundary.
+     */
+    private Tail readTail(String key, File snap, int columns) throws IOException
+    {
+        Tail tail = new Tail(columns);
+        long start;
+        try (RandomAccessFile file = new RandomAccessFile(snap, "rw"))
+        {
+            long length = file.length();
+            long keyframe = findKeyframe(key, Long.MAX_VALUE);
+            start = keyframe > 0 && keyframe < length ? keyframe : 0;
+            byte[] bytes = new byte[(int) (length - start)];
+            file.seek(start);
+            file.readFully(bytes);
+
+            ByteArrayInputStream buffer = new ByteArrayInputStream(bytes);
+            DataInputStream in = new DataInputStream(buffer);
+            if (start == 0)
+            {
+                readHeader(in);
+            }
+            long good = length - buffer.available();
+            // Decoded separately, since a torn record leaves the decoder state half-updated
+            Tail state = new Tail(columns);
+            while (readRecord(in, state))
+            {
+                good = length - buffer.available();
+                tail.timestamp = state.timestamp;
+                tail.kc = state.kc.clone();
+                tail.rank = state.rank.clone();
+                tail.sinceKeyframe++;
+            }
+
+            if (good < length)
+            {
+                log.debug("Truncating {} bytes of torn hiscore history for {}", length - good, key);
+                file.setLength(good);
+            }
+            trimIndex(key, good);
+            tail.offset = good;
+        }
+        if (tail.timestamp < 0 && start > 0)
+        {
+            // The last keyframe itself was torn and is gone; decode from the one before
+            return readTail(key, snap, columns);
+        }
+        return tail;
+    }
+
+    /**
+     * Drop index entries for keyframes at or after {@code end} of the .snap file.
+     */
+    private void trimIndex(String key, long end) throws IOException
+    {
+        File idx = idxFile(key);
+        if (!idx.exists())
+        {
+            return;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(idx, "rw"))
+        {
+            long entries = file.length() / INDEX_ENTRY;
+            while (entries > 0)
+            {
+                file.seek((entries - 1) * INDEX_ENTRY + 8);
+                if (file.readLong() < end)
+                {
+                    break;
+                }
+                entries--;
+            }
+            if (entries * INDEX_ENTRY < file.length())
+            {
+                file.setLength(entries * INDEX_ENTRY);
+            }
+        }
+    }
+
+    private void append(String key, Tail tail, long timestamp, int[] kc, int[] rank) throws IOException
+    {
+        boolean keyframe = tail.timestamp < 0 || tail.sinceKeyframe >= KEYFRAME_INTERVAL;
+        ByteArrayOutputStream record = new ByteArrayOutputStream(64);
+
+        if (keyframe)
+        {
+            record.write(KEYFRAME);
+            writeVarint(record, timestamp);
+            for (int value : kc)
+            {
+                writeVarint(record, zigzag(value));
+            }
+            for (int value : rank)
+            {
+                writeVarint(record, zigzag(value));
+            }
+        }
+        else
+        {
+            int changed = 0;
+            for (int i = 0; i < kc.length; i++)
+            {
+                if (kc[i] != tail.kc[i] || rank[i] != tail.rank[i])
+                {
+                    changed++;
+                }
+            }
+            if (changed == 0)
+            {
+                return;
+            }
+
+            record.write(DELTA);
+            writeVarint(record, timestamp - tail.timestamp);
+            writeVarint(record, changed);
+            int lastCol = -1;
+            for (int i = 0; i < kc.length; i++)
+            {
+                if (kc[i] != tail.kc[i] || rank[i] != tail.rank[i])
+                {
+                    writeVarint(record, i - lastCol - 1);
+                    writeVarint(record, zigzag(kc[i] - tail.kc[i]));
+                    writeVarint(record, zigzag(rank[i] - tail.rank[i]));
+                    lastCol = i;
+                }
+            }
+        }
+
+        try (FileOutputStream out = new FileOutputStream(snapFile(key), true))
+        {
+            record.writeTo(out);
+        }
+        if (keyframe)
+        {
+            try (RandomAccessFile idx = new RandomAccessFile(idxFile(key), "rw"))
+            {
+                idx.seek(idx.length());
+                idx.writeLong(timestamp);
+                idx.writeLong(tail.offset);
+            }
+            tail.sinceKeyframe = 0;
+        }
+
+        tail.offset += record.size();
+        tail.sinceKeyframe++;
+        tail.timestamp = timestamp;
+        tail.kc = kc;
+        tail.rank = rank;
+    }
+
+    private static List<String> readHeader(DataInputStream in) throws IOException
+    {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC) || in.read() != VERSION)
+        {
+            return null;
+        }
+        int count = (int) readVarint(in);
+        List<String> columns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            byte[] name = new byte[(int) readVarint(in)];
+            in.readFully(name);
+            columns.add(new String(name, StandardCharsets.UTF_8));
+        }
+        return columns;
+    }
+
+    /**
+     * Decode the next record into {@code state}.
+     *
+     * @return false at the end of the file, or at a record cut short by a crash
+     */
+    private static boolean readRecord(DataInputStream in, Tail state) throws IOException
+    {
+        try
+        {
+            int type = in.read();
+            if (type == KEYFRAME)
+            {
+                state.timestamp = readVarint(in);
+                for (int i = 0; i < state.kc.length; i++)
+                {
+                    state.kc[i] = unzigzag(readVarint(in));
+                }
+                for (int i = 0; i < state.rank.length; i++)
+                {
+                    state.rank[i] = unzigzag(readVarint(in));
+                }
+                return true;
+            }
+            if (type == DELTA && state.timestamp >= 0)
+            {
+                state.timestamp += readVarint(in);
+                int changed = (int) readVarint(in);
+                int col = -1;
+                for (int i = 0; i < changed; i++)
+                {
+                    col += (int) readVarint(in) + 1;
+                    state.kc[col] += unzigzag(readVarint(in));
+                    state.rank[col] += unzigzag(readVarint(in));
+                }
+                return true;
+            }
+            return false;
+        }
+        catch (EOFException | ArrayIndexOutOfBoundsException e)
+        {
+            return false;
+        }
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(InputStream in) throws IOException
+    {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            int b = in.read();
+            if (b < 0)
+            {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long zigzag(int value)
+    {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private static int unzigzag(long value)
+    {
+        int v = (int) value;
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private File snapFile(String key)
+    {
+        return new File(dir, fileName(key) + ".snap");
+    }
+
+    private File idxFile(String key)
+    {
+        return new File(dir, fileName(key) + ".idx");
+    }
+
+    private static String fileName(String key)
+    {
+        return key.replaceAll("[^a-z0-9-]+", "_");
+    }
+
+    /**
+     * Decoder state, and the last record written for a player.
+     */
+    private static class Tail
+    {
+        private long timestamp = -1;
+        private int[] kc;
+        private int[] rank;
+        private long offset;
+        private int sinceKeyframe;
+
+        Tail(int columns)
+        {
+            kc = new int[columns];
+            rank = new int[columns];
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.bosslog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Boss count and fight duration messages as they appear in game chat.
+ */
+public class ChatKcDispatcherTest
+{
+    private ChatKcDispatcher dispatcher;
+    private Recorder recorder;
+
+    /**
+     * Records callbacks as "kc|chatName|bossName|kc" and "duration|bossName|millis|pb".
+     */
+    private static class Recorder implements ChatKcDispatcher.Listener
+    {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onKillCount(String chatName, String bossName, int kc)
+        {
+            events.add("kc|" + chatName + "|" + bossName + "|" + kc);
+        }
+
+        @Override
+        public void onFightDuration(String bossName, long durationMillis, boolean personalBest)
+        {
+            events.add("duration|" + bossName + "|" + durationMillis + "|" + personalBest);
+        }
+    }
+
+    @Before
+    public void setUp()
+    {
+        dispatcher = new ChatKcDispatcher();
+        recorder = new Recorder();
+    }
+
+    private void dispatch(String message, int tick)
+    {
+        dispatcher.dispatch(message, tick, recorder);
+    }
+
+    @Test
+    public void killCount()
+    {
+        dispatch("Your Vorkath kill count is: <col=ff0000>1,234</col>.", 1);
+        assertEquals(Arrays.asList("kc|Vorkath|Vorkath|1234"), recorder.events);
+    }
+
+    @Test
+    public void completedAndSubduedCounts()
+    {
+        dispatch("Your completed Chambers of Xeric count is: <col=ff0000>12</col>.", 1);
+        dispatch("Your subdued Wintertodt count is: <col=ff0000>50</col>.", 2);
+        assertEquals(Arrays.asList(
+            "kc|Chambers of Xeric|Chambers of Xeric|12",
+            "kc|Wintertodt|Wintertodt|50"), recorder.events);
+    }
+
+    @Test
+    public void completionCount()
+    {
+        dispatch("Your Gauntlet completion count is: <col=ff0000>7</col>.", 1);
+        assertEquals(Arrays.asList("kc|Gauntlet|The Gauntlet|7"), recorder.events);
+    }
+
+    @Test
+    public void chestCounts()
+    {
+        dispatch("Your Barrows chest count is: <col=ff0000>400</col>.", 1);
+        dispatch("Your Lunar Chest count is: <col=ff0000>25</col>.", 2);
+        assertEquals(Arrays.asList(
+            "kc|Barrows|Barrows Chests|400",
+            "kc|Lunar|Lunar Chests|25"), recorder.events);
+    }
+
+    @Test
+    public void untrackedBossHasNoBossName()
+    {
+        dispatch("Your Giant Frog kill count is: 3.", 1);
+        assertEquals(Arrays.asList("kc|Giant Frog|null|3"), recorder.events);
+    }
+
+    @Test
+    public void durationAfterKillCount()
+    {
+        dispatch("Your Vorkath kill count is: <col=ff0000>101</col>.", 5);
+        dispatch("Fight duration: <col=ff0000>1:23</col>. Personal best: 1:10.", 5);
+        assertEquals(Arrays.asList(
+            "kc|Vorkath|Vorkath|101",
+            "duration|Vorkath|83000|false"), recorder.events);
+    }
+
+    @Test
+    public void durationBeforeKillCount()
+    {
+        dispatch("Fight duration: <col=ff0000>1:05</col> (new personal best).", 5);
+        assertTrue(recorder.events.isEmpty());
+        dispatch("Your Vorkath kill count is: <col=ff0000>102</col>.", 5);
+        assertEquals(Arrays.asList(
+            "kc|Vorkath|Vorkath|102",
+            "duration|Vorkath|65000|true"), recorder.events);
+    }
+
+    @Test
+    public void raidDurationWithHundredths()
+    {
+        dispatch("Your completed Chambers of Xeric count is: <col=ff0000>13</col>.", 9);
+        dispatch("Congratulations - your raid is complete! Team size: <col=ff0000>Solo</col> "
+            + "Duration: <col=ff0000>25:31.40</col> Personal best: <col=ff0000>24:02.20</col>", 9);
+        assertEquals(Arrays.asList(
+            "kc|Chambers of Xeric|Chambers of Xeric|13",
+            "duration|Chambers of Xeric|1531400|false"), recorder.events);
+    }
+
+    @Test
+    public void durationOnAnotherTickIsNotPaired()
+    {
+        dispatch("Your Vorkath kill count is: 103.", 5);
+        dispatch("Fight duration: 1:30. Personal best: 1:05.", 6);
+        dispatch("Fight duration: 1:40. Personal best: 1:05.", 7);
+        dispatch("Your Zulrah kill count is: 50.", 8);
+        assertEquals(Arrays.asList(
+            "kc|Vorkath|Vorkath|103",
+            "kc|Zulrah|Zulrah|50"), recorder.events);
+    }
+
+    @Test
+    public void durationIsNotPairedWithUntrackedBoss()
+    {
+        dispatch("Your Giant Frog kill count is: 4.", 5);
+        dispatch("Fight duration: 0:40. Personal best: 0:35.", 5);
+        assertEquals(Arrays.asList("kc|Giant Frog|null|4"), recorder.events);
+    }
+
+    @Test
+    public void unrelatedMessagesAreIgnored()
+    {
+        dispatch("Your reward is: 3 x Coins.", 1);
+        dispatch("Welcome to Old School RuneScape.", 1);
+        dispatch("Your Vorkath kill count is: lots.", 1);
+        assertTrue(recorder.events.isEmpty());
+    }
+
+    @Test
+    public void parseTime()
+    {
+        assertEquals(83000, ChatKcDispatcher.parseTime("1:23"));
+        assertEquals(3723000, ChatKcDispatcher.parseTime("1:02:03"));
+        assertEquals(45500, ChatKcDispatcher.parseTime("0:45.5"));
+        assertEquals(45050, ChatKcDispatcher.parseTime("0:45.05"));
+        assertEquals(-1, ChatKcDispatcher.parseTime("1:xx"));
+    }
+
+    /**
+     * A stretch of game chat from a Vorkath and raids session, noise included,
+     * yields exactly the counts and durations it contains.
+     */
+    @Test
+    public void corpus()
+    {
+        String[] corpus = {
+            "1|Welcome to Old School RuneScape.",
+            "2|You drink some of your super antifire potion.",
+            "3|Your prayer has been drained!",
+            "40|Fight duration: <col=ff0000>1:58</col>. Personal best: 1:41.",
+            "40|Your Vorkath kill count is: <col=ff0000>1,500</col>.",
+            "41|<col=ef1020>Valuable drop: Dragonbone necklace (1,204,321 coins)</col>",
+            "42|Your reward is: <col=ff0000>1</col> x <col=ff0000>Blue dragonhide</col>.",
+            "130|Your Vorkath kill count is: <col=ff0000>1,501</col>.",
+            "130|Fight duration: <col=ff0000>1:38</col> (new personal best).",
+            "131|You have a funny feeling like you're being followed.",
+            "900|Your completed Chambers of Xeric count is: <col=ff0000>88</col>.",
+            "900|Congratulations - your raid is complete! Team size: <col=ff0000>3 players</col> "
+                + "Duration: <col=ff0000>22:10.80</col> Personal best: <col=ff0000>20:45.00</col>",
+            "950|Your Barrows chest count is: <col=ff0000>401</col>.",
+        };
+        for (String line : corpus)
+        {
+            int bar = line.indexOf('|');
+            dispatch(line.substring(bar + 1), Integer.parseInt(line.substring(0, bar)));
+        }
+        assertEquals(Arrays.asList(
+            "kc|Vorkath|Vorkath|1500",
+            "duration|Vorkath|118000|false",
+            "kc|Vorkath|Vorkath|1501",
+            "duration|Vorkath|98000|true",
+            "kc|Chambers of Xeric|Chambers of Xeric|88",
+            "duration|Chambers of Xeric|1330800|false",
+            "kc|Barrows|Barrows Chests|401"), recorder.events);
+    }
+}
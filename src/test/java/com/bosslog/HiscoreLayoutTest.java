@@ -0,0 +1,94 @@
+package com.bosslog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Which CSV line each tracked boss is read from, for the built-in layout, the
+ * one from RuneLite and one rebuilt after Jagex adds an activity.
+ */
+public class HiscoreLayoutTest
+{
+    private static final List<String> BOSSES = HiscoreService.bossNames();
+
+    @Test
+    public void builtInLayout()
+    {
+        HiscoreLayout layout = HiscoreService.builtInLayout();
+        assertTrue(layout.matches(45 + BOSSES.size()));
+        assertFalse(layout.matches(46 + BOSSES.size()));
+        for (int i = 0; i < BOSSES.size(); i++)
+        {
+            assertEquals(BOSSES.get(i), 45 + i, layout.lineOf(i));
+        }
+    }
+
+    @Test
+    public void hiscoreSkillsResolveEveryBoss()
+    {
+        HiscoreLayout layout = HiscoreLayout.fromHiscoreSkills();
+        for (int i = 0; i < BOSSES.size(); i++)
+        {
+            assertTrue(BOSSES.get(i), layout.lineOf(i) >= 0);
+        }
+    }
+
+    @Test
+    public void insertedActivityShiftsBosses()
+    {
+        List<String> activities = new ArrayList<>(Collections.nCopies(20, ""));
+        activities.add("A New Minigame");
+        activities.addAll(BOSSES);
+        HiscoreLayout layout = HiscoreLayout.of("test", 25, activities);
+        HiscoreLayout builtIn = HiscoreService.builtInLayout();
+
+        assertTrue(layout.matches(46 + BOSSES.size()));
+        for (int i = 0; i < BOSSES.size(); i++)
+        {
+            assertEquals(BOSSES.get(i), builtIn.lineOf(i) + 1, layout.lineOf(i));
+        }
+    }
+
+    @Test
+    public void untrackedAndMissingBosses()
+    {
+        // Activity names are matched the way chat names are; a dropped boss has no line
+        List<String> activities = new ArrayList<>();
+        activities.add("Clue Scrolls (all)");
+        activities.add("the corrupted gauntlet");
+        activities.add("Vorkath");
+        HiscoreLayout layout = HiscoreLayout.of("test", 25, activities);
+
+        assertTrue(layout.matches(28));
+        assertEquals(26, layout.lineOf(BOSSES.indexOf("The Corrupted Gauntlet")));
+        assertEquals(27, layout.lineOf(BOSSES.indexOf("Vorkath")));
+        assertEquals(-1, layout.lineOf(BOSSES.indexOf("Zulrah")));
+        assertEquals(-1, layout.rankingTable(BOSSES.indexOf("Zulrah")));
+    }
+
+    @Test
+    public void rankingTableFollowsLine()
+    {
+        // A new skill adds a line before the activities but doesn't renumber their tables
+        List<String> activities = new ArrayList<>(Collections.nCopies(20, ""));
+        activities.addAll(BOSSES);
+        HiscoreLayout[] layouts = {
+            HiscoreService.builtInLayout(),
+            HiscoreLayout.of("test", 26, activities),
+        };
+        for (HiscoreLayout layout : layouts)
+        {
+            for (int i = 0; i < BOSSES.size(); i++)
+            {
+                assertEquals(BOSSES.get(i), 20 + i, layout.rankingTable(i));
+            }
+        }
+        assertEquals(46, layouts[1].lineOf(0));
+    }
+}
@@ -0,0 +1,168 @@
+package com.bosslog;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Request hedging against a local server with injected delays.
+ */
+public class HttpFetcherTest
+{
+    private static final long SLOW_MS = 3000;
+
+    private final BossLogConfig config = new BossLogConfig()
+    {
+    };
+
+    private MockWebServer server;
+    private ScheduledExecutorService executor;
+    private HttpFetcher fetcher;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        server = new MockWebServer();
+        server.start();
+        executor = Executors.newScheduledThreadPool(2);
+        RequestScheduler scheduler = new RequestScheduler(new HostRateLimiter(config), executor);
+        fetcher = new HttpFetcher(new OkHttpClient(), executor, scheduler, new CircuitBreaker(config));
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        executor.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void hedgeBeatsSlowPrimaryWhileHostIsAtItsInFlightCap() throws Exception
+    {
+        AtomicInteger clogRequests = new AtomicInteger();
+        server.setDispatcher(new Dispatcher()
+        {
+            @Override
+            public MockResponse dispatch(RecordedRequest request)
+            {
+                if (request.getPath().startsWith("/busy"))
+                {
+                    return slow("busy");
+                }
+                // First copy stalls, the hedge answers at once
+                return clogRequests.incrementAndGet() == 1 ? slow("primary") : new MockResponse().setBody("hedge");
+            }
+        });
+
+        // Takes one of the host's two in-flight slots; the primary takes the other
+        fetcher.fetch(server.url("/busy").toString());
+        long start = System.nanoTime();
+        FetchOutcome outcome = fetcher.fetchHedged(server.url("/clog").toString(),
+            RequestScheduler.Priority.INTERACTIVE, fastTracker(), 90).get(SLOW_MS / 2, TimeUnit.MILLISECONDS);
+
+        assertTrue(outcome.isOk());
+        assertEquals("hedge", outcome.getBody());
+        assertEquals(2, clogRequests.get());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < SLOW_MS);
+    }
+
+    @Test
+    public void fastPrimaryIsNotHedged() throws Exception
+    {
+        server.setDispatcher(new Dispatcher()
+        {
+            @Override
+            public MockResponse dispatch(RecordedRequest request)
+            {
+                return new MockResponse().setBody("primary");
+            }
+        });
+
+        FetchOutcome outcome = fetcher.fetchHedged(server.url("/clog").toString(),
+            RequestScheduler.Priority.INTERACTIVE, slowTracker(), 90).get(SLOW_MS, TimeUnit.MILLISECONDS);
+
+        assertEquals("primary", outcome.getBody());
+        Thread.sleep(300);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void noHedgeWithoutLatencyHistory() throws Exception
+    {
+        server.setDispatcher(new Dispatcher()
+        {
+            @Override
+            public MockResponse dispatch(RecordedRequest request)
+            {
+                return new MockResponse().setBody("primary").setHeadersDelay(300, TimeUnit.MILLISECONDS);
+            }
+        });
+
+        FetchOutcome outcome = fetcher.fetchHedged(server.url("/clog").toString(),
+            RequestScheduler.Priority.INTERACTIVE, new LatencyTracker(), 90).get(SLOW_MS, TimeUnit.MILLISECONDS);
+
+        assertEquals("primary", outcome.getBody());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void failedHedgeIsNotRetried() throws Exception
+    {
+        AtomicInteger requests = new AtomicInteger();
+        server.setDispatcher(new Dispatcher()
+        {
+            @Override
+            public MockResponse dispatch(RecordedRequest request)
+            {
+                // Primary is slow but succeeds; the hedge gets a retryable error
+                return requests.incrementAndGet() == 1
+                    ? new MockResponse().setBody("primary").setHeadersDelay(800, TimeUnit.MILLISECONDS)
+                    : new MockResponse().setResponseCode(503);
+            }
+        });
+
+        FetchOutcome outcome = fetcher.fetchHedged(server.url("/clog").toString(),
+            RequestScheduler.Priority.INTERACTIVE, fastTracker(), 90).get(SLOW_MS, TimeUnit.MILLISECONDS);
+
+        assertEquals("primary", outcome.getBody());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private static MockResponse slow(String body)
+    {
+        return new MockResponse().setBody(body).setHeadersDelay(SLOW_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static LatencyTracker fastTracker()
+    {
+        LatencyTracker tracker = new LatencyTracker();
+        for (int i = 0; i < 16; i++)
+        {
+            tracker.record(50);
+        }
+        return tracker;
+    }
+
+    private static LatencyTracker slowTracker()
+    {
+        LatencyTracker tracker = new LatencyTracker();
+        for (int i = 0; i < 16; i++)
+        {
+            tracker.record(2000);
+        }
+        return tracker;
+    }
+}
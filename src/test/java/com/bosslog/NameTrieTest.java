@@ -0,0 +1,74 @@
+package com.bosslog;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Autocomplete ranking: history, then friends, then clan, then shortest.
+ */
+public class NameTrieTest
+{
+    private NameTrie trie;
+
+    @Before
+    public void setUp()
+    {
+        trie = new NameTrie();
+    }
+
+    @Test
+    public void ranksBySourceThenLength()
+    {
+        trie.add("Zezima", NameTrie.CLAN);
+        trie.add("Zezima Jr", NameTrie.FRIEND);
+        trie.add("Zezimaxx", NameTrie.HISTORY);
+        trie.add("Zed", NameTrie.CLAN);
+        trie.add("Zeb", NameTrie.FRIEND | NameTrie.CLAN);
+        assertEquals(Arrays.asList("Zezimaxx", "Zeb", "Zezima Jr", "Zed", "Zezima"), trie.complete("ze", 10));
+    }
+
+    @Test
+    public void historyNameBeyondManyClanNamesIsFirst()
+    {
+        for (int i = 0; i < 500; i++)
+        {
+            trie.add(String.format("Aa%03d", i), NameTrie.CLAN);
+        }
+        trie.add("Azure Sky", NameTrie.HISTORY);
+        assertEquals(Arrays.asList("Azure Sky", "Aa000", "Aa001"), trie.complete("a", 3));
+    }
+
+    @Test
+    public void exactNameIsNotSuggested()
+    {
+        trie.add("Vork", NameTrie.HISTORY);
+        trie.add("Vorkath Fan", NameTrie.CLAN);
+        assertEquals(Collections.singletonList("Vorkath Fan"), trie.complete("VORK", 5));
+    }
+
+    @Test
+    public void removingHistoryDemotesToFriend()
+    {
+        trie.add("Bob", NameTrie.FRIEND | NameTrie.HISTORY);
+        trie.add("Bobby", NameTrie.HISTORY);
+        trie.add("Bo", NameTrie.CLAN);
+        assertEquals(Arrays.asList("Bob", "Bobby"), trie.complete("b", 2));
+
+        trie.remove("Bob", NameTrie.HISTORY);
+        assertEquals(Arrays.asList("Bobby", "Bob", "Bo"), trie.complete("b", 5));
+    }
+
+    @Test
+    public void clearDropsOneSource()
+    {
+        trie.add("Alpha", NameTrie.CLAN);
+        trie.add("Alpine", NameTrie.CLAN | NameTrie.FRIEND);
+        trie.clear(NameTrie.CLAN);
+        assertEquals(1, trie.size());
+        assertEquals(Collections.singletonList("Alpine"), trie.complete("al", 5));
+    }
+}
@@ -0,0 +1,125 @@
+package com.bosslog;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Party KC payloads: full and delta round-trips, and rejecting bad input.
+ */
+public class PartyKcCodecTest
+{
+    private static final int SCHEMA = HiscoreService.bossNames().hashCode();
+
+    private int[] kc;
+
+    @Before
+    public void setUp()
+    {
+        kc = new int[PartyKcCodec.BOSS_COUNT];
+        Arrays.fill(kc, -1);
+        kc[0] = 5;
+        kc[3] = 420;
+        kc[kc.length - 1] = 100_000;
+    }
+
+    @Test
+    public void fullRoundTrip()
+    {
+        PartyKcCodec.Update update = PartyKcCodec.decode(
+            PartyKcCodec.encode(null, kc, AccountType.HARDCORE_IRONMAN, 1, 0));
+        assertNotNull(update);
+        assertTrue(update.full);
+        assertTrue(update.has420);
+        assertEquals(AccountType.HARDCORE_IRONMAN, update.accountType);
+        assertEquals(1, update.seq);
+        assertEquals(3, update.changedCount);
+
+        // A full update replaces whatever was there
+        int[] applied = new int[PartyKcCodec.BOSS_COUNT];
+        Arrays.fill(applied, 7);
+        PartyKcCodec.apply(update, applied);
+        assertArrayEquals(kc, applied);
+    }
+
+    @Test
+    public void deltaRoundTrip()
+    {
+        int[] next = kc.clone();
+        next[0] = 6;
+        next[3] = 419;
+        next[10] = 1;
+
+        PartyKcCodec.Update update = PartyKcCodec.decode(
+            PartyKcCodec.encode(kc, next, AccountType.REGULAR, 8, 7));
+        assertNotNull(update);
+        assertFalse(update.full);
+        assertFalse(update.has420);
+        assertEquals(8, update.seq);
+        assertEquals(7, update.baseSeq);
+        assertEquals(3, update.changedCount);
+
+        int[] applied = kc.clone();
+        PartyKcCodec.apply(update, applied);
+        assertArrayEquals(next, applied);
+    }
+
+    @Test
+    public void unchangedDeltaIsEmpty()
+    {
+        PartyKcCodec.Update update = PartyKcCodec.decode(PartyKcCodec.encode(kc, kc.clone(), null, 2, 1));
+        assertNotNull(update);
+        assertNull(update.accountType);
+        assertEquals(0, update.changedCount);
+    }
+
+    @Test
+    public void malformedPayloadsAreRejected()
+    {
+        assertNull(PartyKcCodec.decode(""));
+        assertNull(PartyKcCodec.decode("not base64!"));
+
+        String payload = PartyKcCodec.encode(null, kc, AccountType.REGULAR, 1, 0);
+        assertNull(PartyKcCodec.decode(payload.substring(0, payload.length() / 2)));
+
+        // Wrong version, and a plugin tracking a different boss list
+        assertNull(PartyKcCodec.decode(payload(2, SCHEMA, 1, 0, 1, 0)));
+        assertNull(PartyKcCodec.decode(payload(1, SCHEMA + 1, 1, 0, 1, 0)));
+
+        // More changes than bosses, and a boss index past the end
+        assertNull(PartyKcCodec.decode(payload(1, SCHEMA, 1, 0, 1, PartyKcCodec.BOSS_COUNT + 1)));
+        assertNull(PartyKcCodec.decode(payload(1, SCHEMA, 1, 0, 1, 1, PartyKcCodec.BOSS_COUNT, 2)));
+
+        // Unknown account types decode as unknown rather than failing
+        PartyKcCodec.Update update = PartyKcCodec.decode(payload(1, SCHEMA, 1, 99, 1, 0));
+        assertNotNull(update);
+        assertNull(update.accountType);
+    }
+
+    /**
+     * A raw payload: version, schema, then single-byte fields (all values < 128).
+     */
+    private static String payload(int version, int schema, int... fields)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(version);
+        out.write(schema >>> 24);
+        out.write(schema >>> 16);
+        out.write(schema >>> 8);
+        out.write(schema);
+        for (int field : fields)
+        {
+            out.write(field);
+        }
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+}
@@ -0,0 +1,239 @@
+package com.bosslog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A party member's KCs as received: deltas apply in sequence, and a missed
+ * delta is recovered by the next full update. Members exchange KCs through
+ * a fake party that delivers each message to every other member.
+ */
+public class PartyKcSyncTest
+{
+    private int[] sent;
+    private int seq;
+    private PartyKcSync.Peer peer;
+
+    private static final String VORKATH = "Vorkath";
+    private static final String ZULRAH = "Zulrah";
+
+    private final List<FakeParty> members = new ArrayList<>();
+    private boolean sharing = true;
+    private final BossLogConfig config = new BossLogConfig()
+    {
+        @Override
+        public boolean partyShare()
+        {
+            return sharing;
+        }
+    };
+
+    /**
+     * One member's view of the party. Sending stamps the message with the
+     * sender's id and hands it to every other member, like the party websocket.
+     */
+    private class FakeParty implements PartyKcSync.Party
+    {
+        private final long id;
+        private final String name;
+        private final PartyKcSync sync;
+
+        FakeParty(long id, String name)
+        {
+            this.id = id;
+            this.name = name;
+            this.sync = new PartyKcSync(this, null, null, null, null, config);
+            members.add(this);
+        }
+
+        @Override
+        public boolean isInParty()
+        {
+            return true;
+        }
+
+        @Override
+        public long getLocalMemberId()
+        {
+            return id;
+        }
+
+        @Override
+        public String getLocalName()
+        {
+            return name;
+        }
+
+        @Override
+        public String getMemberName(long memberId)
+        {
+            for (FakeParty member : members)
+            {
+                if (member.id == memberId)
+                {
+                    return member.name;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void send(PartyKcMessage message)
+        {
+            message.setMemberId(id);
+            for (FakeParty member : new ArrayList<>(members))
+            {
+                if (member != this)
+                {
+                    member.sync.onMessage(message);
+                }
+            }
+        }
+    }
+
+    private static HiscoreResult hiscores(int kc)
+    {
+        Map<String, Integer> kills = new HashMap<>();
+        for (String boss : HiscoreService.bossNames())
+        {
+            kills.put(boss, kc);
+        }
+        return new HiscoreResult(AccountType.IRONMAN, kills, new HashMap<>(), 0, 0, 0);
+    }
+
+    @Before
+    public void setUp()
+    {
+        sent = new int[PartyKcCodec.BOSS_COUNT];
+        Arrays.fill(sent, -1);
+        sent[0] = 10;
+        peer = new PartyKcSync.Peer("Teammate");
+    }
+
+    /**
+     * Encode the sender's next message, as PartyKcSync.send does, and decode it.
+     */
+    private PartyKcCodec.Update next(boolean full, int boss, int kc)
+    {
+        int[] previous = sent.clone();
+        sent[boss] = kc;
+        int baseSeq = seq++;
+        return PartyKcCodec.decode(PartyKcCodec.encode(full ? null : previous, sent, AccountType.IRONMAN,
+            seq, baseSeq));
+    }
+
+    @Test
+    public void deltasApplyInSequence()
+    {
+        assertTrue(peer.apply(next(true, 0, 10)));
+        assertTrue(peer.apply(next(false, 0, 11)));
+        assertTrue(peer.apply(next(false, 2, 420)));
+        assertEquals(11, peer.getKc(0));
+        assertEquals(420, peer.getKc(2));
+        assertEquals(AccountType.IRONMAN, peer.getAccountType());
+    }
+
+    @Test
+    public void missedDeltaIsResyncedByFullUpdate()
+    {
+        assertTrue(peer.apply(next(true, 0, 10)));
+        next(false, 0, 11);
+        assertFalse(peer.apply(next(false, 0, 12)));
+        assertFalse(peer.apply(next(false, 1, 3)));
+        assertEquals(10, peer.getKc(0));
+        assertEquals(-1, peer.getKc(1));
+
+        assertTrue(peer.apply(next(true, 1, 4)));
+        assertEquals(12, peer.getKc(0));
+        assertEquals(4, peer.getKc(1));
+        assertTrue(peer.apply(next(false, 0, 13)));
+        assertEquals(13, peer.getKc(0));
+    }
+
+    @Test
+    public void replayedDeltaIsIgnored()
+    {
+        assertTrue(peer.apply(next(true, 0, 10)));
+        PartyKcCodec.Update delta = next(false, 0, 11);
+        assertTrue(peer.apply(delta));
+        assertFalse(peer.apply(delta));
+        assertEquals(11, peer.getKc(0));
+    }
+
+    @Test
+    public void lookedUpHiscoresFillInJournalOnlySeed()
+    {
+        FakeParty alice = new FakeParty(1, "Alice");
+        FakeParty bob = new FakeParty(2, "Bob");
+
+        // No saved hiscores: only the journal's KCs at first
+        alice.sync.seedLocal("Alice", null, Collections.singletonMap(VORKATH, 50));
+        assertEquals(50, bob.sync.getResult("alice").getKc(VORKATH));
+        assertEquals(-1, bob.sync.getResult("alice").getKc(ZULRAH));
+        assertFalse(bob.sync.hasAllKc("Alice"));
+
+        alice.sync.mergeLookedUp("Alice", hiscores(7));
+        HiscoreResult shared = bob.sync.getResult("Alice");
+        assertEquals(50, shared.getKc(VORKATH));
+        assertEquals(7, shared.getKc(ZULRAH));
+        assertEquals(AccountType.IRONMAN, shared.getAccountType());
+        assertTrue(bob.sync.hasAllKc("Alice"));
+    }
+
+    @Test
+    public void chatKcsAreSentAndLateJoinerGetsFullState()
+    {
+        FakeParty alice = new FakeParty(1, "Alice");
+        FakeParty bob = new FakeParty(2, "Bob");
+        alice.sync.seedLocal("Alice", hiscores(7), Collections.emptyMap());
+
+        alice.sync.onLocalKc("Alice", VORKATH, 8);
+        alice.sync.onLocalKc("Alice", VORKATH, 9);
+        assertEquals(9, bob.sync.getResult("Alice").getKc(VORKATH));
+
+        FakeParty carol = new FakeParty(3, "Carol");
+        assertNull(carol.sync.getResult("Alice"));
+        alice.sync.onMemberJoined();
+        assertEquals(9, carol.sync.getResult("Alice").getKc(VORKATH));
+        assertEquals(7, carol.sync.getResult("Alice").getKc(ZULRAH));
+    }
+
+    @Test
+    public void lookupForAnotherAccountIsIgnored()
+    {
+        FakeParty alice = new FakeParty(1, "Alice");
+        FakeParty bob = new FakeParty(2, "Bob");
+        alice.sync.seedLocal("Alice", null, Collections.singletonMap(VORKATH, 50));
+        alice.sync.seedLocal("Alice Alt", null, Collections.emptyMap());
+
+        alice.sync.mergeLookedUp("Alice", hiscores(7));
+        assertEquals(-1, bob.sync.getResult("Alice").getKc(ZULRAH));
+    }
+
+    @Test
+    public void nothingIsKeptWhileSharingIsOff()
+    {
+        FakeParty alice = new FakeParty(1, "Alice");
+        FakeParty bob = new FakeParty(2, "Bob");
+        alice.sync.seedLocal("Alice", hiscores(7), Collections.emptyMap());
+        assertNotNull(bob.sync.getResult("Alice"));
+
+        sharing = false;
+        bob.sync.onMessage(new PartyKcMessage("garbage"));
+        assertNull(bob.sync.getResult("Alice"));
+        alice.sync.onLocalKc("Alice", VORKATH, 8);
+        assertNull(bob.sync.getResult("Alice"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.bosslog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rows read from a boss ranking page as the hiscores serve it.
+ */
+public class RankTableServiceTest
+{
+    private static String resource(String name) throws IOException
+    {
+        try (InputStream in = RankTableServiceTest.class.getResourceAsStream(name))
+        {
+            assertNotNull(name, in);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+            {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void parsePage() throws IOException
+    {
+        List<RankTableService.Row> rows = RankTableService.parsePage(resource("ranking-page.html"));
+
+        // The header row, the unranked score and the empty-table row are skipped
+        assertEquals(3, rows.size());
+        assertEquals(1, rows.get(0).getRank());
+        assertEquals("Vork Main", rows.get(0).getName());
+        assertEquals(61204, rows.get(0).getKc());
+        assertEquals("Zezima", rows.get(1).getName());
+        assertEquals(58990, rows.get(1).getKc());
+        assertEquals(1000, rows.get(2).getRank());
+        assertEquals("Iron Vork BTW", rows.get(2).getName());
+        assertEquals(12345, rows.get(2).getKc());
+    }
+
+    @Test
+    public void pageWithoutRows()
+    {
+        assertTrue(RankTableService.parsePage("<html><body>Service unavailable</body></html>").isEmpty());
+    }
+}
@@ -0,0 +1,222 @@
+package com.bosslog;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Hiscore history on disk: what is recorded reads back the same, from any
+ * keyframe, across a boss list change and after a crash mid-append.
+ */
+public class SnapshotStoreTest
+{
+    private static final String PLAYER = "Some Player";
+    private static final String VORKATH = "Vorkath";
+    private static final String ZULRAH = "Zulrah";
+
+    private File dir;
+    private SnapshotStore store;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("snapshots").toFile();
+        store = new SnapshotStore(dir);
+    }
+
+    @After
+    public void tearDown()
+    {
+        File[] files = dir.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    /**
+     * Snapshot {@code i} of a player who gets a Vorkath kill every time and a
+     * Zulrah kill every third time, with ranks moving the other way.
+     */
+    private void record(SnapshotStore target, int i)
+    {
+        Map<String, Integer> kills = new HashMap<>();
+        Map<String, Integer> ranks = new HashMap<>();
+        kills.put(VORKATH, 100 + i);
+        ranks.put(VORKATH, 50_000 - i);
+        kills.put(ZULRAH, 10 + i / 3);
+        ranks.put(ZULRAH, 90_000 - i / 3);
+        target.record(PLAYER, kills, ranks, time(i));
+    }
+
+    private static long time(int i)
+    {
+        return 1_700_000_000_000L + i * 3_600_000L;
+    }
+
+    private File snapFile()
+    {
+        return new File(dir, "some_player.snap");
+    }
+
+    @Test
+    public void roundTrip()
+    {
+        for (int i = 0; i < 5; i++)
+        {
+            record(store, i);
+        }
+
+        List<SnapshotStore.Point> points = store.history(PLAYER, VORKATH, 0, Long.MAX_VALUE);
+        assertEquals(5, points.size());
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(time(i), points.get(i).getTimestamp());
+            assertEquals(100 + i, points.get(i).getKc());
+            assertEquals(50_000 - i, points.get(i).getRank());
+        }
+
+        SnapshotStore.Snapshot latest = store.at(PLAYER, Long.MAX_VALUE);
+        assertEquals(104, latest.getKc(VORKATH));
+        assertEquals(11, latest.getKc(ZULRAH));
+        assertEquals(-1, latest.getKc("Zalcano"));
+        assertNull(store.at(PLAYER, time(0) - 1));
+    }
+
+    @Test
+    public void unchangedSnapshotIsNotStored()
+    {
+        record(store, 0);
+        long length = snapFile().length();
+        Map<String, Integer> kills = new HashMap<>();
+        kills.put(VORKATH, 100);
+        kills.put(ZULRAH, 10);
+        Map<String, Integer> ranks = new HashMap<>();
+        ranks.put(VORKATH, 50_000);
+        ranks.put(ZULRAH, 90_000);
+        store.record(PLAYER, kills, ranks, time(1));
+        assertEquals(length, snapFile().length());
+    }
+
+    @Test
+    public void rangeQueryAcrossKeyframes()
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            record(store, i);
+        }
+
+        // A fresh store reads the history from disk, not from its tail cache
+        SnapshotStore reopened = new SnapshotStore(dir);
+        List<SnapshotStore.Point> points = reopened.history(PLAYER, ZULRAH, time(40), time(70));
+        assertEquals(31, points.size());
+        for (int i = 0; i < points.size(); i++)
+        {
+            assertEquals(time(40 + i), points.get(i).getTimestamp());
+            assertEquals(10 + (40 + i) / 3, points.get(i).getKc());
+            assertEquals(90_000 - (40 + i) / 3, points.get(i).getRank());
+        }
+
+        SnapshotStore.Snapshot snapshot = reopened.at(PLAYER, time(65) + 1);
+        assertEquals(time(65), snapshot.getTimestamp());
+        assertEquals(165, snapshot.getKc(VORKATH));
+        assertEquals(50_000 - 65, snapshot.getRank(VORKATH));
+    }
+
+    @Test
+    public void changedBossListArchivesHistory() throws IOException
+    {
+        // History written when only one boss was tracked
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(snapFile())))
+        {
+            out.write(new byte[]{'4', '2', '0', 'S', 1, 1});
+            byte[] name = "Old Boss".getBytes(StandardCharsets.UTF_8);
+            out.write(name.length);
+            out.write(name);
+            // Keyframe at t=1: KC 5 (zigzag 10), rank 7 (zigzag 14)
+            out.write(new byte[]{1, 1, 10, 14});
+        }
+
+        record(store, 0);
+
+        File[] archived = dir.listFiles((d, name) -> name.startsWith("some_player-") && name.endsWith(".snap"));
+        assertNotNull(archived);
+        assertEquals(1, archived.length);
+        List<SnapshotStore.Point> points = store.history(PLAYER, VORKATH, 0, Long.MAX_VALUE);
+        assertEquals(1, points.size());
+        assertEquals(100, points.get(0).getKc());
+        assertTrue(store.history(PLAYER, "Old Boss", 0, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void tornDeltaIsTruncatedBeforeAppending() throws IOException
+    {
+        for (int i = 0; i < 5; i++)
+        {
+            record(store, i);
+        }
+        long length = snapFile().length();
+        try (FileOutputStream out = new FileOutputStream(snapFile(), true))
+        {
+            // A delta cut off inside its timestamp varint
+            out.write(new byte[]{0, (byte) 0x80});
+        }
+
+        SnapshotStore reopened = new SnapshotStore(dir);
+        record(reopened, 5);
+
+        List<SnapshotStore.Point> points = reopened.history(PLAYER, VORKATH, 0, Long.MAX_VALUE);
+        assertEquals(6, points.size());
+        assertEquals(time(5), points.get(5).getTimestamp());
+        assertEquals(105, points.get(5).getKc());
+        assertTrue(snapFile().length() > length);
+    }
+
+    @Test
+    public void tornKeyframeIsTruncatedWithItsIndexEntry() throws IOException
+    {
+        // 33 records: the 33rd is the second keyframe
+        for (int i = 0; i < 33; i++)
+        {
+            record(store, i);
+        }
+        File idx = new File(dir, "some_player.idx");
+        assertEquals(32, idx.length());
+        try (RandomAccessFile file = new RandomAccessFile(snapFile(), "rw"))
+        {
+            file.setLength(file.length() - 3);
+        }
+
+        SnapshotStore reopened = new SnapshotStore(dir);
+        record(reopened, 33);
+
+        // The torn keyframe and its index entry are gone, and record 33 is the new second keyframe
+        assertEquals(32, idx.length());
+        List<SnapshotStore.Point> points = reopened.history(PLAYER, VORKATH, 0, Long.MAX_VALUE);
+        assertEquals(33, points.size());
+        assertEquals(time(31), points.get(31).getTimestamp());
+        assertEquals(time(33), points.get(32).getTimestamp());
+        assertEquals(133, points.get(32).getKc());
+        assertEquals(time(33), reopened.at(PLAYER, Long.MAX_VALUE).getTimestamp());
+        assertEquals(131, reopened.at(PLAYER, time(32)).getKc(VORKATH));
+    }
+}